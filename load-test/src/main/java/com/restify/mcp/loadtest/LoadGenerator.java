@@ -0,0 +1,201 @@
+package com.restify.mcp.loadtest;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives POST /mcp with a RequestMix and records latency per operation.
+ * A closed loop keeps a fixed number of requests in flight, each sent as soon as the previous
+ * one is answered, and measures the server's capacity. An open loop sends at a fixed rate
+ * regardless of responses, like independent clients do; its latencies are measured from the
+ * time a request was scheduled, so a stalled server shows up in the percentiles instead of
+ * silently slowing the generator down.
+ * Requests started during the warmup are sent but not recorded.
+ */
+final class LoadGenerator {
+
+    private static final String TOTAL = "total";
+
+    private final HttpClient client;
+    private final URI target;
+    private final RequestMix mix;
+    private final List<String> tokens;
+    private final Duration timeout;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long measuredNanos;
+
+    /**
+     * @param tokens bearer tokens to send, one picked at random per request; empty for none
+     */
+    LoadGenerator(URI target, RequestMix mix, List<String> tokens, Duration timeout) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        this.target = target;
+        this.mix = mix;
+        this.tokens = tokens;
+        this.timeout = timeout;
+        stats.put(TOTAL, new Stats());
+        mix.operations().forEach(operation -> stats.put(operation, new Stats()));
+    }
+
+    /**
+     * Keep the given number of requests in flight until the duration has passed
+     */
+    void runClosedLoop(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            sendNext(measureFrom, end, done);
+        }
+        done.await();
+        measuredNanos = System.nanoTime() - measureFrom;
+    }
+
+    private void sendNext(long measureFrom, long end, CountDownLatch done) {
+        long now = System.nanoTime();
+        if (now - end >= 0) {
+            done.countDown();
+            return;
+        }
+        send(now, measureFrom).whenComplete((ignored, error) -> sendNext(measureFrom, end, done));
+    }
+
+    /**
+     * Send requests at a fixed rate until the duration has passed. A request due while
+     * maxOutstanding are still unanswered is dropped and counted, so an overloaded server
+     * cannot exhaust the generator.
+     */
+    void runOpenLoop(double rate, int maxOutstanding, Duration warmup, Duration duration) throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        AtomicInteger outstanding = new AtomicInteger();
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * interval;
+            if (scheduled - end >= 0) {
+                break;
+            }
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (outstanding.get() >= maxOutstanding) {
+                if (scheduled - measureFrom >= 0) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            outstanding.incrementAndGet();
+            send(scheduled, measureFrom).whenComplete((ignored, error) -> outstanding.decrementAndGet());
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+        measuredNanos = duration.toNanos();
+    }
+
+    /**
+     * Send one request and record it if it was scheduled after the warmup
+     *
+     * @param scheduled time the request was due, latency is measured from there
+     */
+    private CompletableFuture<Void> send(long scheduled, long measureFrom) {
+        String operation = mix.next();
+        HttpRequest.Builder request = HttpRequest.newBuilder(target)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mix.body(operation)));
+        if (!tokens.isEmpty()) {
+            request.header("Authorization", "Bearer " + tokens.get(ThreadLocalRandom.current().nextInt(tokens.size())));
+        }
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (scheduled - measureFrom >= 0) {
+                        boolean failed = error != null || response.statusCode() != 200
+                                || response.body().contains("\"error\":{");
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+                        stats.get(operation).record(micros, failed);
+                        stats.get(TOTAL).record(micros, failed);
+                    }
+                    return null;
+                });
+    }
+
+    long completed() {
+        return stats.get(TOTAL).latencies.count();
+    }
+
+    long errors() {
+        return stats.get(TOTAL).errors.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Completed requests per second over the measured period
+     */
+    double throughput() {
+        return measuredNanos > 0 ? completed() * (double) TimeUnit.SECONDS.toNanos(1) / measuredNanos : 0;
+    }
+
+    double p99Millis() {
+        return stats.get(TOTAL).latencies.percentileMicros(99) / 1000.0;
+    }
+
+    /**
+     * Print count, errors and latency percentiles per operation, then the totals
+     */
+    void report(PrintStream out) {
+        out.printf("%-24s %9s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (String operation : mix.operations()) {
+            stats.get(operation).print(out, operation);
+        }
+        stats.get(TOTAL).print(out, TOTAL);
+        long completed = completed();
+        out.printf("throughput: %.1f req/s, errors: %d (%.2f%%), dropped: %d%n", throughput(), errors(),
+                completed > 0 ? errors() * 100.0 / completed : 0.0, dropped());
+    }
+
+    private static final class Stats {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long micros, boolean failed) {
+            latencies.record(micros);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        private void print(PrintStream out, String name) {
+            out.printf("%-24s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, latencies.count(), errors.sum(),
+                    latencies.percentileMicros(50) / 1000.0, latencies.percentileMicros(90) / 1000.0,
+                    latencies.percentileMicros(99) / 1000.0, latencies.percentileMicros(99.9) / 1000.0,
+                    latencies.maxMicros() / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.restify.mcp.loadtest;
+
+import com.restify.mcp.testing.FakeGraphServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Load test entry point. Starts the fake Graph server, drives the MCP endpoint with a closed
+ * or open loop and prints throughput and latency percentiles. Exits with status 1 if a
+ * configured threshold is missed, so a run can gate a deployment.
+ * The MCP server is started separately, with outlook.graph.endpoint set to the printed
+ * fake Graph endpoint; with --fake-graph-only the fake Graph server runs until interrupted.
+ *
+ * <pre>
+ * java -jar load-test/target/mcp-restify-load-test-1.0.0.jar --mode=open --rate=500 --duration=60s
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("target", "http://localhost:9092/mcp"),
+            Map.entry("mode", "closed"),
+            Map.entry("concurrency", "32"),
+            Map.entry("rate", "200"),
+            Map.entry("max-outstanding", "1000"),
+            Map.entry("warmup", "10s"),
+            Map.entry("duration", "60s"),
+            Map.entry("timeout", "30s"),
+            Map.entry("mix", RequestMix.DEFAULT),
+            Map.entry("users", "10"),
+            Map.entry("fake-graph-port", "9093"),
+            Map.entry("fake-graph-only", "false"),
+            Map.entry("graph-latency", "50ms"),
+            Map.entry("graph-jitter", "20ms"),
+            Map.entry("graph-throttle-rate", "0"),
+            Map.entry("graph-retry-after", "1s"),
+            Map.entry("graph-messages", "500"),
+            Map.entry("graph-body-size", "4096"),
+            Map.entry("max-p99-ms", "0"),
+            Map.entry("min-throughput", "0"),
+            Map.entry("max-error-rate", "1"));
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        FakeGraphServer.Settings graphSettings = new FakeGraphServer.Settings(
+                Integer.parseInt(options.get("fake-graph-port")),
+                duration(options.get("graph-latency")),
+                duration(options.get("graph-jitter")),
+                Double.parseDouble(options.get("graph-throttle-rate")),
+                duration(options.get("graph-retry-after")),
+                Integer.parseInt(options.get("graph-messages")),
+                Integer.parseInt(options.get("graph-body-size")),
+                false);
+
+        try (FakeGraphServer graph = new FakeGraphServer(graphSettings)) {
+            System.out.println("Fake Graph endpoint: " + graph.endpoint());
+            if (Boolean.parseBoolean(options.get("fake-graph-only"))) {
+                new CountDownLatch(1).await();
+            }
+
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < Integer.parseInt(options.get("users")); i++) {
+                tokens.add("load-test-user-" + i);
+            }
+            LoadGenerator generator = new LoadGenerator(URI.create(options.get("target")),
+                    RequestMix.parse(options.get("mix"), graph.messageIds()), tokens, duration(options.get("timeout")));
+            Duration warmup = duration(options.get("warmup"));
+            Duration measured = duration(options.get("duration"));
+            if ("open".equals(options.get("mode"))) {
+                double rate = Double.parseDouble(options.get("rate"));
+                System.out.printf("Open loop at %.0f req/s against %s for %s after %s warmup%n",
+                        rate, options.get("target"), options.get("duration"), options.get("warmup"));
+                generator.runOpenLoop(rate, Integer.parseInt(options.get("max-outstanding")), warmup, measured);
+            } else if ("closed".equals(options.get("mode"))) {
+                int concurrency = Integer.parseInt(options.get("concurrency"));
+                System.out.printf("Closed loop with %d concurrent requests against %s for %s after %s warmup%n",
+                        concurrency, options.get("target"), options.get("duration"), options.get("warmup"));
+                generator.runClosedLoop(concurrency, warmup, measured);
+            } else {
+                throw new IllegalArgumentException("Unknown mode: " + options.get("mode"));
+            }
+
+            generator.report(System.out);
+            System.out.printf("fake Graph: %d requests, %d throttled%n", graph.requestCount(), graph.throttledCount());
+            if (!meetsThresholds(generator, options)) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static boolean meetsThresholds(LoadGenerator generator, Map<String, String> options) {
+        boolean met = true;
+        double maxP99 = Double.parseDouble(options.get("max-p99-ms"));
+        if (maxP99 > 0 && generator.p99Millis() > maxP99) {
+            System.out.printf("FAILED: p99 %.2f ms exceeds %.2f ms%n", generator.p99Millis(), maxP99);
+            met = false;
+        }
+        double minThroughput = Double.parseDouble(options.get("min-throughput"));
+        if (minThroughput > 0 && generator.throughput() < minThroughput) {
+            System.out.printf("FAILED: throughput %.1f req/s is below %.1f req/s%n", generator.throughput(), minThroughput);
+            met = false;
+        }
+        double maxErrorRate = Double.parseDouble(options.get("max-error-rate"));
+        double errorRate = generator.completed() > 0 ? (double) generator.errors() / generator.completed() : 0;
+        if (errorRate > maxErrorRate) {
+            System.out.printf("FAILED: error rate %.4f exceeds %.4f%n", errorRate, maxErrorRate);
+            met = false;
+        }
+        return met;
+    }
+
+    /**
+     * Options as "--name=value"; unknown names are rejected so a typo cannot go unnoticed
+     */
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0 || !DEFAULTS.containsKey(arg.substring(2, eq))) {
+                throw new IllegalArgumentException("Unknown option: " + arg + ", expected --name=value with a name in "
+                        + DEFAULTS.keySet());
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Duration like "500ms", "30s" or "2m"
+     */
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Invalid duration: " + value);
+        };
+    }
+}
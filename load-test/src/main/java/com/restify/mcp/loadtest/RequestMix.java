@@ -0,0 +1,120 @@
+package com.restify.mcp.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Weighted mix of MCP requests. Each operation is a JSON-RPC method, or a tools/call of one
+ * tool, with arguments drawn at random from the fake mailbox so caches see a realistic
+ * spread of hits and misses.
+ */
+final class RequestMix {
+
+    static final String DEFAULT = "initialize:5,tools/list:10,readOutlookEmails:30,readOutlookEmailById:30,"
+            + "searchOutlookEmails:15,getOutlookUserProfile:10";
+
+    private static final String[] KEYWORDS = {"budget", "review", "report", "meeting", "release", "invoice",
+            "design", "incident", "customer", "launch"};
+    private static final int[] PAGE_SIZES = {5, 10, 20};
+
+    private final List<String> operations = new ArrayList<>();
+    private final int[] cumulativeWeights;
+    private final List<String> messageIds;
+    private final AtomicLong ids = new AtomicLong();
+
+    private RequestMix(Map<String, Integer> weights, List<String> messageIds) {
+        this.cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            total += weight.getValue();
+            cumulativeWeights[operations.size()] = total;
+            operations.add(weight.getKey());
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The request mix needs at least one positive weight");
+        }
+        this.messageIds = messageIds;
+    }
+
+    /**
+     * Parse a mix like "tools/list:10,readOutlookEmails:30"
+     *
+     * @param messageIds IDs to read with readOutlookEmailById
+     */
+    static RequestMix parse(String mix, List<String> messageIds) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid request mix entry: " + entry);
+            }
+            String operation = parts[0].trim();
+            if (!isKnown(operation)) {
+                throw new IllegalArgumentException("Unknown operation in request mix: " + operation);
+            }
+            weights.put(operation, Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.containsKey("readOutlookEmailById") && messageIds.isEmpty()) {
+            throw new IllegalArgumentException("readOutlookEmailById needs at least one message");
+        }
+        return new RequestMix(weights, messageIds);
+    }
+
+    List<String> operations() {
+        return operations;
+    }
+
+    /**
+     * Pick an operation by weight
+     */
+    String next() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    /**
+     * JSON-RPC request body for an operation
+     */
+    String body(String operation) {
+        long id = ids.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case "initialize" -> request(id, "initialize", "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},"
+                    + "\"clientInfo\":{\"name\":\"mcp-restify-load-test\",\"version\":\"1.0.0\"}}");
+            case "tools/list" -> request(id, "tools/list", "{}");
+            case "readOutlookEmails" -> toolCall(id, operation, "{\"folderId\":\"inbox\",\"maxResults\":"
+                    + PAGE_SIZES[random.nextInt(PAGE_SIZES.length)] + "}");
+            case "readOutlookEmailById" -> toolCall(id, operation, "{\"messageId\":\""
+                    + messageIds.get(random.nextInt(messageIds.size())) + "\"}");
+            case "searchOutlookEmails" -> toolCall(id, operation, "{\"query\":\""
+                    + KEYWORDS[random.nextInt(KEYWORDS.length)] + "\",\"maxResults\":10}");
+            case "getOutlookUserProfile" -> toolCall(id, operation, "{}");
+            default -> throw new IllegalArgumentException("Unknown operation: " + operation);
+        };
+    }
+
+    private static boolean isKnown(String operation) {
+        return switch (operation) {
+            case "initialize", "tools/list", "readOutlookEmails", "readOutlookEmailById", "searchOutlookEmails",
+                    "getOutlookUserProfile" -> true;
+            default -> false;
+        };
+    }
+
+    private static String toolCall(long id, String tool, String arguments) {
+        return request(id, "tools/call", "{\"name\":\"" + tool + "\",\"arguments\":" + arguments + "}");
+    }
+
+    private static String request(long id, String method, String params) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"" + method + "\",\"params\":" + params + "}";
+    }
+}
@@ -0,0 +1,148 @@
+package com.restify.mcp.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Small size-bounded LRU cache with a time-to-live per entry.
+ * Entries expire {@code ttl} after they were loaded, or after they were last read if the
+ * cache expires after access; the least recently used entry is evicted once
+ * {@code maxSize} is exceeded.
+ * All operations lock the cache, so loaders should be cheap and non-blocking.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final boolean expireAfterAccess;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public ExpiringLruCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    public ExpiringLruCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this(maxSize, ttl, false, nanoClock);
+    }
+
+    /**
+     * @param maxSize           maximum number of entries kept
+     * @param ttl               time-to-live of each entry
+     * @param expireAfterAccess whether every read restarts an entry's time-to-live, so only
+     *                          entries nobody reads expire
+     * @param nanoClock         monotonic clock, replaceable in tests
+     */
+    public ExpiringLruCache(int maxSize, Duration ttl, boolean expireAfterAccess, LongSupplier nanoClock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.expireAfterAccess = expireAfterAccess;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringLruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Return the cached value for the key, or null if absent or expired
+     */
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        if (isExpired(entry, now)) {
+            entries.remove(key);
+            return null;
+        }
+        if (expireAfterAccess) {
+            entry.expiresAtNanos = now + entry.ttlNanos;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Return the cached value for the key, loading and caching it if absent or expired
+     */
+    public synchronized V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Cache a value using the default time-to-live
+     */
+    public synchronized void put(K key, V value) {
+        put(key, value, ttlNanos);
+    }
+
+    /**
+     * Cache a value with its own time-to-live, capped at the cache default
+     */
+    public synchronized void put(K key, V value, Duration ttl) {
+        put(key, value, Math.min(ttl.toNanos(), ttlNanos));
+    }
+
+    private void put(K key, V value, long entryTtlNanos) {
+        entries.put(key, new Entry<>(value, entryTtlNanos, nanoClock.getAsLong() + entryTtlNanos));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Drop all expired entries
+     */
+    public synchronized void cleanUp() {
+        long now = nanoClock.getAsLong();
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (isExpired(iterator.next(), now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.expiresAtNanos >= 0;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long ttlNanos;
+        private long expiresAtNanos;
+
+        private Entry(V value, long ttlNanos, long expiresAtNanos) {
+            this.value = value;
+            this.ttlNanos = ttlNanos;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.restify.mcp.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Segmented LRU cache bounded by the number of entries and their total weight, with a
+ * time-to-live per entry.
+ * New entries start in a probation segment and move to a protected segment when they are
+ * read again. Evictions take the least recently used probation entry first, so a burst of
+ * keys that are used once cannot push out entries that are read repeatedly. The protected
+ * segment holds at most 80% of the entries and weight; its least recently used entries
+ * drop back to probation when it is full.
+ * All operations lock the cache.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SegmentedLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final int maxProtectedEntries;
+    private final long maxProtectedWeight;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long protectedWeight;
+    private long evictions;
+
+    public SegmentedLruCache(int maxEntries, long maxWeight, Duration ttl) {
+        this(maxEntries, maxWeight, ttl, System::nanoTime);
+    }
+
+    /**
+     * @param maxEntries maximum number of entries kept
+     * @param maxWeight  maximum total weight of the entries kept
+     * @param ttl        longest time-to-live of an entry
+     * @param nanoClock  monotonic clock, replaceable in tests
+     */
+    public SegmentedLruCache(int maxEntries, long maxWeight, Duration ttl, LongSupplier nanoClock) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("maxEntries and maxWeight must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.maxProtectedEntries = Math.max(1, maxEntries - maxEntries / 5);
+        this.maxProtectedWeight = maxWeight - maxWeight / 5;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Return the cached value for the key, or null if absent or expired
+     */
+    public synchronized V getIfPresent(K key) {
+        long now = nanoClock.getAsLong();
+        Entry<V> entry = protectedSegment.get(key);
+        if (entry != null) {
+            if (isExpired(entry, now)) {
+                protectedSegment.remove(key);
+                protectedWeight -= entry.weight;
+                weight -= entry.weight;
+                return null;
+            }
+            return entry.value;
+        }
+        entry = probation.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, now)) {
+            weight -= entry.weight;
+            return null;
+        }
+        protectedSegment.put(key, entry);
+        protectedWeight += entry.weight;
+        demoteProtected();
+        return entry.value;
+    }
+
+    /**
+     * Cache a value with its own time-to-live, capped at the cache default. A value heavier
+     * than the whole cache is not kept.
+     *
+     * @param weight weight of the value, e.g. its size in bytes
+     */
+    public synchronized void put(K key, V value, long weight, Duration ttl) {
+        invalidate(key);
+        if (weight > maxWeight) {
+            return;
+        }
+        long expiresAtNanos = nanoClock.getAsLong() + Math.min(ttl.toNanos(), ttlNanos);
+        probation.put(key, new Entry<>(value, weight, expiresAtNanos));
+        this.weight += weight;
+        evict();
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry<V> entry = probation.remove(key);
+        if (entry == null) {
+            entry = protectedSegment.remove(key);
+            if (entry != null) {
+                protectedWeight -= entry.weight;
+            }
+        }
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        probation.clear();
+        protectedSegment.clear();
+        weight = 0;
+        protectedWeight = 0;
+    }
+
+    public synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * Total weight of the cached entries
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * Number of entries evicted to stay within the bounds; expired entries dropped on read are not counted
+     */
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Move least recently used protected entries back to probation until the protected
+     * segment is within its share
+     */
+    private void demoteProtected() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = protectedSegment.entrySet().iterator();
+        while ((protectedSegment.size() > maxProtectedEntries || protectedWeight > maxProtectedWeight)
+                && iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            iterator.remove();
+            protectedWeight -= eldest.getValue().weight;
+            probation.put(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * Drop least recently used entries from probation and, once it is empty, from the
+     * protected segment until the cache is within its bounds. Expired entries are removed
+     * when they are read, or evicted like any other.
+     */
+    private void evict() {
+        Iterator<Entry<V>> probationEntries = probation.values().iterator();
+        Iterator<Entry<V>> protectedEntries = protectedSegment.values().iterator();
+        while (size() > maxEntries || weight > maxWeight) {
+            Entry<V> eldest;
+            if (probationEntries.hasNext()) {
+                eldest = probationEntries.next();
+                probationEntries.remove();
+            } else {
+                eldest = protectedEntries.next();
+                protectedEntries.remove();
+                protectedWeight -= eldest.weight;
+            }
+            weight -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.expiresAtNanos >= 0;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expiresAtNanos;
+
+        private Entry(V value, long weight, long expiresAtNanos) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.restify.mcp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors used by the MCP endpoint.
+ */
+@Configuration
+@EnableConfigurationProperties({McpToolProperties.class, McpRequestLogProperties.class})
+public class McpExecutorConfig {
+
+    /**
+     * Boot only auto-configures its application executor when no other Executor bean exists,
+     * so it is declared here explicitly. Spring MVC uses it for async and streaming responses.
+     */
+    @Lazy
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Bounded executor for the entries of a JSON-RPC batch.
+     * When the queue is full the submitting request thread runs the entry itself,
+     * which throttles large batches instead of rejecting them.
+     */
+    @Bean(name = "mcpBatchExecutor")
+    public ThreadPoolTaskExecutor mcpBatchExecutor(
+            @Value("${mcp.batch.max-concurrency:16}") int maxConcurrency,
+            @Value("${mcp.batch.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mcp-batch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Bounded executor running tools/call requests answered as Server-Sent Events,
+     * so the request thread is released while the tool streams its output.
+     * When all threads are busy the call is rejected rather than run on the request thread,
+     * where its events would be buffered until the tool finished.
+     */
+    @Bean(name = "mcpStreamExecutor")
+    public ThreadPoolTaskExecutor mcpStreamExecutor(
+            @Value("${mcp.sse.max-concurrency:64}") int maxConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("mcp-stream-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
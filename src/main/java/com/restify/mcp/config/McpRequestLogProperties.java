@@ -0,0 +1,107 @@
+package com.restify.mcp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for the sampled MCP request log, bound from "mcp.request-log.*".
+ * Sampling and payload size can be overridden per tool under
+ * "mcp.request-log.per-tool.&lt;toolName&gt;.*".
+ */
+@ConfigurationProperties(prefix = "mcp.request-log")
+public class McpRequestLogProperties {
+
+    private boolean enabled = true;
+    private double sampleRate = 0.01;
+    private boolean logErrors = true;
+    private int maxPerSecond = 100;
+    private int payloadMaxChars = 256;
+    private Map<String, ToolSettings> perTool = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isLogErrors() {
+        return logErrors;
+    }
+
+    public void setLogErrors(boolean logErrors) {
+        this.logErrors = logErrors;
+    }
+
+    public int getMaxPerSecond() {
+        return maxPerSecond;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    public int getPayloadMaxChars() {
+        return payloadMaxChars;
+    }
+
+    public void setPayloadMaxChars(int payloadMaxChars) {
+        this.payloadMaxChars = payloadMaxChars;
+    }
+
+    public Map<String, ToolSettings> getPerTool() {
+        return perTool;
+    }
+
+    public void setPerTool(Map<String, ToolSettings> perTool) {
+        this.perTool = perTool;
+    }
+
+    /**
+     * Sample rate for a tool, or the default when the tool has no override
+     */
+    public double sampleRateFor(String toolName) {
+        ToolSettings settings = toolName != null ? perTool.get(toolName) : null;
+        return settings != null && settings.getSampleRate() != null ? settings.getSampleRate() : sampleRate;
+    }
+
+    /**
+     * Payload size limit for a tool, or the default when the tool has no override
+     */
+    public int payloadMaxCharsFor(String toolName) {
+        ToolSettings settings = toolName != null ? perTool.get(toolName) : null;
+        return settings != null && settings.getPayloadMaxChars() != null ? settings.getPayloadMaxChars() : payloadMaxChars;
+    }
+
+    public static class ToolSettings {
+        private Double sampleRate;
+        private Integer payloadMaxChars;
+
+        public Double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(Double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public Integer getPayloadMaxChars() {
+            return payloadMaxChars;
+        }
+
+        public void setPayloadMaxChars(Integer payloadMaxChars) {
+            this.payloadMaxChars = payloadMaxChars;
+        }
+    }
+}
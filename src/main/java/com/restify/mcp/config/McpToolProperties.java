@@ -0,0 +1,181 @@
+package com.restify.mcp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for MCP tool execution, bound from "mcp.tools.*".
+ * Defaults apply to every tool and can be overridden per tool under
+ * "mcp.tools.per-tool.&lt;toolName&gt;.*".
+ */
+@ConfigurationProperties(prefix = "mcp.tools")
+public class McpToolProperties {
+
+    /**
+     * Where tool invocations run
+     */
+    public enum ExecutionMode {
+        /** On the thread handling the request (default) */
+        CALLER,
+        /** On a bounded pool of platform threads */
+        PLATFORM,
+        /** On a new virtual thread per call; requires Java 21, otherwise falls back to PLATFORM */
+        VIRTUAL
+    }
+
+    private Execution execution = new Execution();
+    private Map<String, ToolSettings> perTool = new HashMap<>();
+
+    public Execution getExecution() {
+        return execution;
+    }
+
+    public void setExecution(Execution execution) {
+        this.execution = execution;
+    }
+
+    public Map<String, ToolSettings> getPerTool() {
+        return perTool;
+    }
+
+    public void setPerTool(Map<String, ToolSettings> perTool) {
+        this.perTool = perTool;
+    }
+
+    /**
+     * Settings for one tool, with defaults filled in from the execution section
+     */
+    public ToolSettings forTool(String toolName) {
+        ToolSettings overrides = perTool.get(toolName);
+        ToolSettings settings = new ToolSettings();
+        settings.setMaxConcurrency(overrides != null && overrides.getMaxConcurrency() != null
+                ? overrides.getMaxConcurrency() : execution.getMaxConcurrency());
+        settings.setTimeout(overrides != null && overrides.getTimeout() != null
+                ? overrides.getTimeout() : execution.getTimeout());
+        settings.setCoalesce(overrides != null && overrides.getCoalesce() != null
+                ? overrides.getCoalesce() : execution.isCoalesce());
+        if (overrides != null) {
+            settings.setCacheTtl(overrides.getCacheTtl());
+            settings.setCacheMaxEntries(overrides.getCacheMaxEntries());
+            settings.setCacheMaxSize(overrides.getCacheMaxSize());
+        }
+        return settings;
+    }
+
+    public static class Execution {
+        private ExecutionMode mode = ExecutionMode.CALLER;
+        private int platformThreads = 200;
+        private int maxConcurrency = 256;
+        private Duration timeout = Duration.ofSeconds(60);
+        private boolean coalesce;
+
+        public ExecutionMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ExecutionMode mode) {
+            this.mode = mode;
+        }
+
+        public int getPlatformThreads() {
+            return platformThreads;
+        }
+
+        public void setPlatformThreads(int platformThreads) {
+            this.platformThreads = platformThreads;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        /**
+         * Whether concurrent equal calls of a tool share one invocation (default false). Only
+         * idempotent tools should turn it on, per tool.
+         */
+        public boolean isCoalesce() {
+            return coalesce;
+        }
+
+        public void setCoalesce(boolean coalesce) {
+            this.coalesce = coalesce;
+        }
+    }
+
+    /**
+     * Settings of one tool. The cache settings override the tool's @McpToolCache annotation;
+     * a cache-ttl of 0 turns its result cache off, any other enables it.
+     */
+    public static class ToolSettings {
+        private Integer maxConcurrency;
+        private Duration timeout;
+        private Boolean coalesce;
+        private Duration cacheTtl;
+        private Integer cacheMaxEntries;
+        private DataSize cacheMaxSize;
+
+        public Integer getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(Integer maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Boolean getCoalesce() {
+            return coalesce;
+        }
+
+        public void setCoalesce(Boolean coalesce) {
+            this.coalesce = coalesce;
+        }
+
+        public Duration getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+
+        public Integer getCacheMaxEntries() {
+            return cacheMaxEntries;
+        }
+
+        public void setCacheMaxEntries(Integer cacheMaxEntries) {
+            this.cacheMaxEntries = cacheMaxEntries;
+        }
+
+        public DataSize getCacheMaxSize() {
+            return cacheMaxSize;
+        }
+
+        public void setCacheMaxSize(DataSize cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+        }
+    }
+}
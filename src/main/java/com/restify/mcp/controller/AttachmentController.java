@@ -0,0 +1,120 @@
+package com.restify.mcp.controller;
+
+import com.restify.mcp.service.AccessTokens;
+import com.restify.mcp.service.OutlookMailService;
+import com.microsoft.graph.http.GraphServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Download endpoint for email attachments, linked from the readOutlookAttachment tool.
+ * The content is copied from Graph's $value response to the client in small buffers, so
+ * attachments of any size pass through without being held in memory. With
+ * encoding=base64 the bytes are encoded on the fly as they are copied.
+ * Attachments are always served as downloads and never content-sniffed, so a browser
+ * following the link does not render mail content in the server's origin.
+ */
+@RestController
+@RequestMapping("/mcp/attachments")
+public class AttachmentController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentController.class);
+    private final OutlookMailService outlookMailService;
+
+    public AttachmentController(OutlookMailService outlookMailService) {
+        this.outlookMailService = outlookMailService;
+    }
+
+    /**
+     * Stream the content of an attachment
+     *
+     * @param messageId     The ID of the message
+     * @param attachmentId  The ID of the attachment
+     * @param encoding      "base64" to receive the content as base64 text, otherwise the raw bytes are sent
+     * @param authorization "Bearer" token passed on to Microsoft Graph
+     * @return The attachment content, 401 without a bearer token, or Graph's error status
+     */
+    @GetMapping("/{messageId}/{attachmentId}")
+    public ResponseEntity<StreamingResponseBody> downloadAttachment(
+            @PathVariable String messageId,
+            @PathVariable String attachmentId,
+            @RequestParam(value = "encoding", required = false) String encoding,
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String accessToken = AccessTokens.fromAuthorizationHeader(authorization);
+        if (accessToken == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Map<String, Object> attachment;
+        try {
+            attachment = outlookMailService.getAttachment(accessToken, messageId, attachmentId);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(graphStatus(e)).build();
+        }
+
+        boolean base64 = "base64".equalsIgnoreCase(encoding);
+        String name = (String) attachment.get("name");
+        StreamingResponseBody body = out -> {
+            try (InputStream content = outlookMailService.openAttachmentContent(accessToken, messageId, attachmentId)) {
+                if (base64) {
+                    // Closing the encoder writes the final padding
+                    try (OutputStream encoder = Base64.getEncoder().wrap(out)) {
+                        content.transferTo(encoder);
+                    }
+                } else {
+                    content.transferTo(out);
+                }
+            }
+        };
+        ContentDisposition.Builder disposition = ContentDisposition.attachment();
+        if (name != null) {
+            disposition.filename(name, StandardCharsets.UTF_8);
+        }
+        return ResponseEntity.ok()
+                .contentType(base64 ? MediaType.TEXT_PLAIN : contentType((String) attachment.get("contentType")))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.build().toString())
+                .header("X-Content-Type-Options", "nosniff")
+                .body(body);
+    }
+
+    /**
+     * HTTP status to answer for a failed Graph call: Graph's own status, or 502 when Graph was not reached
+     */
+    private HttpStatus graphStatus(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof GraphServiceException) {
+                HttpStatus status = HttpStatus.resolve(((GraphServiceException) cause).getResponseCode());
+                return status != null ? status : HttpStatus.BAD_GATEWAY;
+            }
+        }
+        logger.warn("Error reading attachment: {}", e.getMessage());
+        return HttpStatus.BAD_GATEWAY;
+    }
+
+    private MediaType contentType(String contentType) {
+        try {
+            return contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
@@ -2,20 +2,39 @@ package com.restify.mcp.controller;
 
 import com.restify.mcp.dto.McpRequest;
 import com.restify.mcp.dto.McpResponse;
+import com.restify.mcp.logging.McpRequestLogger;
+import com.restify.mcp.metrics.McpMetrics;
+import com.restify.mcp.service.AccessTokens;
 import com.restify.mcp.service.McpToolService;
+import com.restify.mcp.service.ToolContext;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST Controller for MCP (Model Context Protocol) server endpoint.
@@ -28,257 +47,403 @@ public class McpController {
     private static final Logger logger = LoggerFactory.getLogger(McpController.class);
     private final McpToolService mcpToolService;
     private final ObjectMapper objectMapper;
+    private final Executor batchExecutor;
+    private final Executor streamExecutor;
+    private final McpMetrics metrics;
+    private final McpRequestLogger requestLogger;
 
-    public McpController(McpToolService mcpToolService, ObjectMapper objectMapper) {
+    @Value("${mcp.batch.max-size:100}")
+    private int maxBatchSize;
+
+    @Value("${mcp.sse.timeout:5m}")
+    private Duration sseTimeout;
+
+    @Value("${mcp.async.timeout:2m}")
+    private Duration asyncTimeout;
+
+    public McpController(McpToolService mcpToolService, ObjectMapper objectMapper,
+                         @Qualifier("mcpBatchExecutor") Executor batchExecutor,
+                         @Qualifier("mcpStreamExecutor") Executor streamExecutor,
+                         McpMetrics metrics, McpRequestLogger requestLogger) {
         this.mcpToolService = mcpToolService;
         this.objectMapper = objectMapper;
+        this.batchExecutor = batchExecutor;
+        this.streamExecutor = streamExecutor;
+        this.metrics = metrics;
+        this.requestLogger = requestLogger;
     }
 
     /**
      * Main MCP endpoint that handles JSON-RPC 2.0 requests.
-     * Supports both regular JSON responses and streamable HTTP (chunked JSON) based on Accept header.
+     * When the Accept header includes text/event-stream, tools/call is answered as a
+     * Server-Sent Events stream carrying the tool's notifications followed by its response;
+     * everything else, and a tools/call arriving while every stream thread is busy, is
+     * answered as regular JSON.
+     * Accepts a single request object or a JSON-RPC batch array.
      * Supports methods: initialize, tools/call, tools/list
+     * While a tool call is waiting on Microsoft Graph no servlet thread is held: the response
+     * is completed asynchronously through a DeferredResult.
      *
-     * @param request JSON-RPC 2.0 request
+     * @param body JSON-RPC 2.0 request or batch of requests, parsed as a stream
      * @param acceptHeader Accept header to determine response format
-     * @return JSON-RPC 2.0 response (JSON or streamable HTTP)
+     * @param ifNoneMatch ETag(s) of a cached tools/list result held by the client
+     * @param authorization optional "Bearer" token, passed on to tools that call Microsoft Graph
+     * @return JSON-RPC 2.0 response (JSON or Server-Sent Events)
      */
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     public Object handleMcpRequest(
-            @RequestBody McpRequest request,
-            @RequestHeader(value = "Accept", defaultValue = "application/json") String acceptHeader) {
+            InputStream body,
+            @RequestHeader(value = "Accept", defaultValue = "application/json") String acceptHeader,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String accessToken = AccessTokens.fromAuthorizationHeader(authorization);
+        McpRequest request;
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() == JsonToken.START_ARRAY) {
+                return handleBatchRequest(parser, acceptHeader, accessToken);
+            }
+            request = readMcpRequest(parser);
+        } catch (JsonParseException e) {
+            return ResponseEntity.ok(createErrorResponse(null, -32700, "Parse error", e.getOriginalMessage()));
+        } catch (JsonMappingException e) {
+            return ResponseEntity.ok(createErrorResponse(null, -32600, "Invalid Request", e.getOriginalMessage()));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.ok(createErrorResponse(null, -32600, "Invalid Request", e.getMessage()));
+        }
         logger.debug("Received MCP request: method={}, id={}, accept={}", request.getMethod(), request.getId(), acceptHeader);
 
+        if (supportsStreamableHttp(acceptHeader) && isStreamableToolCall(request)) {
+            SseEmitter emitter = streamToolCall(request, accessToken);
+            if (emitter != null) {
+                return emitter;
+            }
+        }
+
+        if ("tools/list".equals(request.getMethod()) && !request.isNotification()) {
+            return handleToolsListRequest(request, ifNoneMatch);
+        }
+
+        return deferred(processRequest(request, accessToken)
+                .thenApply(response -> request.isNotification()
+                        // Notifications are processed but never answered
+                        ? ResponseEntity.accepted().build()
+                        : ResponseEntity.ok(response)));
+    }
+
+    /**
+     * Return the response right away if it is ready, otherwise complete it asynchronously
+     * once the future completes, releasing the servlet thread in the meantime
+     */
+    private Object deferred(CompletableFuture<ResponseEntity<?>> response) {
+        if (response.isDone()) {
+            return response.join();
+        }
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(asyncTimeout.toMillis(),
+                () -> ResponseEntity.ok(createErrorResponse(null, -32603, "Internal error", "Request timed out")));
+        response.whenComplete((value, error) -> {
+            if (error != null) {
+                result.setErrorResult(error);
+            } else {
+                result.setResult(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Serve tools/list with the ETag of the cached result.
+     * Answers 304 Not Modified when the client already holds the current list.
+     */
+    private ResponseEntity<?> handleToolsListRequest(McpRequest request, String ifNoneMatch) {
+        String etag = mcpToolService.getToolsListEtag();
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .body(processRequest(request, null).join());
+    }
+
+    /**
+     * Check an If-None-Match header value (a list of ETags or "*") against the current ETag
+     */
+    private boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Handle a JSON-RPC batch. All entries are read before any is run, so a batch over the
+     * size limit is rejected as a whole without side effects. Requests are then dispatched
+     * concurrently on the bounded batch executor and responses are returned in request order
+     * once all have completed. Notifications produce no entry.
+     *
+     * @param batch parser positioned on the batch array
+     */
+    private Object handleBatchRequest(JsonParser batch, String acceptHeader, String accessToken) throws IOException {
+        List<TokenBuffer> entries = new ArrayList<>();
+        while (batch.nextToken() != JsonToken.END_ARRAY) {
+            if (entries.size() == maxBatchSize) {
+                return ResponseEntity.ok(createErrorResponse(null, -32600, "Invalid Request",
+                        "Batch size exceeds the limit of " + maxBatchSize));
+            }
+            // Each entry is buffered as tokens first, so one malformed entry cannot derail the rest
+            TokenBuffer element = new TokenBuffer(batch);
+            element.copyCurrentStructure(batch);
+            entries.add(element);
+        }
+        if (entries.isEmpty()) {
+            return ResponseEntity.ok(createErrorResponse(null, -32600, "Invalid Request", "Batch must not be empty"));
+        }
+
+        List<CompletableFuture<McpResponse>> pending = new ArrayList<>(entries.size());
+        for (TokenBuffer element : entries) {
+            McpRequest request;
+            try (JsonParser elementParser = element.asParser(objectMapper)) {
+                elementParser.nextToken();
+                request = readMcpRequest(elementParser);
+            } catch (JsonMappingException e) {
+                pending.add(CompletableFuture.completedFuture(
+                    createErrorResponse(null, -32600, "Invalid Request", e.getOriginalMessage())));
+                continue;
+            } catch (IllegalArgumentException e) {
+                pending.add(CompletableFuture.completedFuture(
+                    createErrorResponse(null, -32600, "Invalid Request", e.getMessage())));
+                continue;
+            }
+            CompletableFuture<McpResponse> future = CompletableFuture
+                    .supplyAsync(() -> processRequest(request, accessToken), batchExecutor)
+                    .thenCompose(response -> response);
+            pending.add(request.isNotification() ? future.thenApply(response -> null) : future);
+        }
+        logger.debug("Received MCP batch request: size={}, accept={}", pending.size(), acceptHeader);
+
+        return deferred(CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+                .thenApply(done -> batchResponse(pending)));
+    }
+
+    private ResponseEntity<?> batchResponse(List<CompletableFuture<McpResponse>> pending) {
+        List<McpResponse> responses = new ArrayList<>(pending.size());
+        for (CompletableFuture<McpResponse> future : pending) {
+            McpResponse response = future.join();
+            if (response != null) {
+                responses.add(response);
+            }
+        }
+        if (responses.isEmpty()) {
+            // A batch of notifications gets no response body
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(responses);
+    }
+
+    /**
+     * Bind a single JSON-RPC request object from the parser's current token.
+     * params are kept as a token buffer and only decoded by the method handler.
+     */
+    private McpRequest readMcpRequest(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Request must be a JSON object");
+        }
+        return objectMapper.readValue(parser, McpRequest.class);
+    }
+
+    /**
+     * Open a parser over the request params, positioned on the value at the given field path.
+     * Returns null if params or any field on the path is absent.
+     */
+    private JsonParser openParam(McpRequest request, String... path) throws IOException {
+        TokenBuffer params = request.getParams();
+        if (params == null) {
+            return null;
+        }
+        JsonParser parser = params.asParser(objectMapper);
+        parser.nextToken();
+        for (String field : path) {
+            if (!seekField(parser, field)) {
+                parser.close();
+                return null;
+            }
+        }
+        return parser;
+    }
+
+    /**
+     * Advance an object parser to the value of a field, skipping other fields without decoding them
+     */
+    private boolean seekField(JsonParser parser, String field) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (field.equals(name)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Validate and dispatch a single JSON-RPC request to its method handler, timed per method
+     * and passed to the sampled request log
+     */
+    private CompletableFuture<McpResponse> processRequest(McpRequest request, String accessToken) {
+        long start = metrics.requestStarted();
+        CompletableFuture<McpResponse> response;
+        try {
+            response = dispatchRequest(request, accessToken);
+        } catch (RuntimeException | Error e) {
+            metrics.requestFinished(request.getMethod(), start);
+            requestLogger.log(request, null, start);
+            throw e;
+        }
+        return response.whenComplete((value, error) -> {
+            metrics.requestFinished(request.getMethod(), start);
+            requestLogger.log(request, value, start);
+        });
+    }
+
+    private CompletableFuture<McpResponse> dispatchRequest(McpRequest request, String accessToken) {
         try {
             // Validate JSON-RPC version
             if (!"2.0".equals(request.getJsonrpc())) {
-                McpResponse errorResponse = createErrorResponse(
+                return CompletableFuture.completedFuture(createErrorResponse(
                     request.getId(),
                     -32600,
                     "Invalid Request",
                     "jsonrpc must be '2.0'"
-                );
-                if (supportsStreamableHttp(acceptHeader)) {
-                    return createStreamableResponse(errorResponse);
-                } else {
-                    return ResponseEntity.ok(errorResponse);
-                }
+                ));
+            }
+            if (request.getMethod() == null) {
+                return CompletableFuture.completedFuture(createErrorResponse(
+                    request.getId(),
+                    -32600,
+                    "Invalid Request",
+                    "method is required"
+                ));
             }
 
             // Handle different methods
-            McpResponse response;
             switch (request.getMethod()) {
                 case "initialize":
-                    response = handleInitialize(request);
-                    break;
+                    return CompletableFuture.completedFuture(handleInitialize(request));
+                case "notifications/initialized":
+                    // Sent by the client once initialization is done; nothing to do, and as a
+                    // notification the empty result is never sent
+                    return CompletableFuture.completedFuture(createSuccessResponse(request.getId(), Map.of()));
                 case "tools/call":
-                    response = handleToolCall(request);
-                    break;
+                    return handleToolCall(request, ToolContext.of(accessToken));
                 case "tools/list":
-                    response = handleToolsList(request);
-                    break;
+                    return CompletableFuture.completedFuture(handleToolsList(request));
                 default:
-                    response = createErrorResponse(
+                    return CompletableFuture.completedFuture(createErrorResponse(
                         request.getId(),
                         -32601,
                         "Method not found",
                         "Method '" + request.getMethod() + "' is not supported"
-                    );
-            }
-
-            // Return streamable HTTP or regular response based on Accept header
-            if (supportsStreamableHttp(acceptHeader)) {
-                logger.info("Creating streamable response for Accept: {}", acceptHeader);
-                try {
-                    // For streamable HTTP, create manual response and return as regular response with chunked encoding
-                    Map<String, Object> manualResponse = new HashMap<>();
-                    manualResponse.put("jsonrpc", "2.0");
-                    manualResponse.put("id", response.getId());
-                    if (response.getResult() != null) {
-                        manualResponse.put("result", response.getResult());
-                    }
-                    if (response.getError() != null) {
-                        Map<String, Object> errorMap = new HashMap<>();
-                        errorMap.put("code", response.getError().getCode());
-                        errorMap.put("message", response.getError().getMessage());
-                        if (response.getError().getData() != null) {
-                            errorMap.put("data", response.getError().getData());
-                        }
-                        manualResponse.put("error", errorMap);
-                    }
-                    String jsonResponse = objectMapper.writeValueAsString(manualResponse);
-                    logger.info("Streamable response JSON: {}", jsonResponse);
-                    return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .header("Transfer-Encoding", "chunked")
-                        .body(jsonResponse);
-                } catch (Exception e) {
-                    logger.error("Error creating streamable response", e);
-                    // Fallback to regular response
-                    return ResponseEntity.ok(response);
-                }
-            } else {
-                logger.debug("Creating regular JSON response");
-                ResponseEntity<McpResponse> jsonResponse = ResponseEntity.ok(response);
-                return jsonResponse;
+                    ));
             }
         } catch (Exception e) {
             logger.error("Error processing MCP request", e);
-            McpResponse errorResponse = createErrorResponse(
+            return CompletableFuture.completedFuture(createErrorResponse(
                 request.getId(),
                 -32603,
                 "Internal error",
                 e.getMessage()
-            );
-            if (supportsStreamableHttp(acceptHeader)) {
-                try {
-                    // For streamable HTTP, create manual response
-                    Map<String, Object> manualResponse = new HashMap<>();
-                    manualResponse.put("jsonrpc", "2.0");
-                    manualResponse.put("id", errorResponse.getId());
-                    Map<String, Object> errorMap = new HashMap<>();
-                    errorMap.put("code", errorResponse.getError().getCode());
-                    errorMap.put("message", errorResponse.getError().getMessage());
-                    if (errorResponse.getError().getData() != null) {
-                        errorMap.put("data", errorResponse.getError().getData());
-                    }
-                    manualResponse.put("error", errorMap);
-                    String jsonResponse = objectMapper.writeValueAsString(manualResponse);
-                    return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .header("Transfer-Encoding", "chunked")
-                        .body(jsonResponse);
-                } catch (Exception ex) {
-                    logger.error("Error creating streamable error response", ex);
-                    return ResponseEntity.ok(errorResponse);
-                }
-            } else {
-                return ResponseEntity.ok(errorResponse);
-            }
+            ));
         }
     }
 
     /**
-     * Check if the Accept header supports streamable HTTP (text/event-stream)
+     * A valid tools/call request expecting a response can be streamed
      */
-    private boolean supportsStreamableHttp(String acceptHeader) {
-        return acceptHeader != null && acceptHeader.contains("text/event-stream");
+    private boolean isStreamableToolCall(McpRequest request) {
+        return "2.0".equals(request.getJsonrpc())
+            && "tools/call".equals(request.getMethod())
+            && !request.isNotification();
     }
 
     /**
-     * Create a streamable HTTP response (chunked JSON)
-     * For MCP streamable HTTP, we send the JSON response in chunks
-     * Always uses manual Map response to avoid DTO serialization issues
+     * Run a tools/call on the stream executor and answer it as Server-Sent Events.
+     * Notifications emitted by the tool are sent as they happen; the JSON-RPC response is
+     * the last event, after which the stream is closed. The stream thread is only held
+     * while the tool runs synchronously, not while its asynchronous result is pending.
+     *
+     * @return the event stream, or null if all stream threads are busy and the call should be
+     *         answered as plain JSON instead
      */
-    private ResponseEntity<StreamingResponseBody> createStreamableResponse(McpResponse response) {
+    private SseEmitter streamToolCall(McpRequest request, String accessToken) {
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        SseToolContext context = new SseToolContext(emitter, request.getId(), progressToken(request), accessToken);
         try {
-            // Always create manual response for streaming to avoid DTO serialization issues
-            Map<String, Object> manualResponse = new HashMap<>();
-            manualResponse.put("jsonrpc", "2.0");
-            manualResponse.put("id", response.getId());
-            
-            if (response.getResult() != null) {
-                manualResponse.put("result", response.getResult());
-            }
-            if (response.getError() != null) {
-                Map<String, Object> errorMap = new HashMap<>();
-                errorMap.put("code", response.getError().getCode());
-                errorMap.put("message", response.getError().getMessage());
-                if (response.getError().getData() != null) {
-                    errorMap.put("data", response.getError().getData());
-                }
-                manualResponse.put("error", errorMap);
+            streamExecutor.execute(() -> runStreamedToolCall(request, emitter, context));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Stream executor saturated, answering request {} without streaming", request.getId());
+            return null;
+        }
+        return emitter;
+    }
+
+    private void runStreamedToolCall(McpRequest request, SseEmitter emitter, SseToolContext context) {
+        long start = metrics.requestStarted();
+        handleToolCall(request, context).whenComplete((response, error) -> {
+            try {
+                context.send(response);
+                emitter.complete();
+            } catch (Exception e) {
+                logger.debug("Event stream for request {} ended early: {}", request.getId(), e.getMessage());
+                emitter.completeWithError(e);
+            } finally {
+                metrics.requestFinished(request.getMethod(), start);
+                requestLogger.log(request, response, start);
             }
-            
-            String jsonResponse = objectMapper.writeValueAsString(manualResponse);
-            logger.info("Streamable response JSON: {}", jsonResponse);
-            
-            if (jsonResponse == null || jsonResponse.trim().equals("{}") || jsonResponse.trim().isEmpty()) {
-                logger.error("CRITICAL: Manual response also serializes to empty! Response data: {}", manualResponse);
-                // Last resort: build JSON manually
-                StringBuilder jsonBuilder = new StringBuilder();
-                jsonBuilder.append("{\"jsonrpc\":\"2.0\",\"id\":");
-                if (response.getId() != null) {
-                    if (response.getId() instanceof String) {
-                        jsonBuilder.append("\"").append(response.getId()).append("\"");
-                    } else {
-                        jsonBuilder.append(response.getId());
-                    }
-                } else {
-                    jsonBuilder.append("null");
-                }
-                if (response.getResult() != null) {
-                    jsonBuilder.append(",\"result\":").append(objectMapper.writeValueAsString(response.getResult()));
-                }
-                if (response.getError() != null) {
-                    jsonBuilder.append(",\"error\":{\"code\":").append(response.getError().getCode())
-                        .append(",\"message\":\"").append(response.getError().getMessage()).append("\"");
-                    if (response.getError().getData() != null) {
-                        jsonBuilder.append(",\"data\":\"").append(response.getError().getData().replace("\"", "\\\"")).append("\"");
-                    }
-                    jsonBuilder.append("}");
-                }
-                jsonBuilder.append("}");
-                jsonResponse = jsonBuilder.toString();
-                logger.info("Using manually built JSON: {}", jsonResponse);
+        });
+    }
+
+    /**
+     * Read params._meta.progressToken, if the client asked for progress notifications
+     */
+    private Object progressToken(McpRequest request) {
+        try (JsonParser token = openParam(request, "_meta", "progressToken")) {
+            if (token == null) {
+                return null;
             }
-            
-            final String finalJsonResponse = jsonResponse;
-            StreamingResponseBody stream = new StreamingResponseBody() {
-                @Override
-                public void writeTo(OutputStream outputStream) throws IOException {
-                    logger.info("Writing to stream: {}", finalJsonResponse);
-                    byte[] bytes = finalJsonResponse.getBytes(StandardCharsets.UTF_8);
-                    outputStream.write(bytes);
-                    outputStream.flush();
-                    logger.debug("Written {} bytes to stream", bytes.length);
-                }
-            };
-            
-            return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .header("Transfer-Encoding", "chunked")
-                .body(stream);
-        } catch (Exception e) {
-            logger.error("Error creating streamable response", e);
-            // Fallback: create error response as stream
-            try {
-                final String errorJson = "{\"jsonrpc\":\"2.0\",\"id\":" + 
-                    (response != null && response.getId() != null ? 
-                        (response.getId() instanceof String ? "\"" + response.getId() + "\"" : response.getId()) : "null") + 
-                    ",\"error\":{\"code\":-32603,\"message\":\"Internal error\",\"data\":\"Error creating stream: " + 
-                    e.getMessage().replace("\"", "\\\"").replace("\n", "\\n") + "\"}}";
-                logger.info("Error fallback JSON: {}", errorJson);
-                StreamingResponseBody errorStream = new StreamingResponseBody() {
-                    @Override
-                    public void writeTo(OutputStream outputStream) throws IOException {
-                        outputStream.write(errorJson.getBytes(StandardCharsets.UTF_8));
-                        outputStream.flush();
-                    }
-                };
-                return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .header("Transfer-Encoding", "chunked")
-                    .body(errorStream);
-            } catch (Exception ex) {
-                logger.error("Error creating error stream", ex);
-                // Last resort: return error JSON manually
-                final String lastResortJson = "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32603,\"message\":\"Internal error\",\"data\":\"Stream creation failed\"}}";
-                StreamingResponseBody emptyStream = new StreamingResponseBody() {
-                    @Override
-                    public void writeTo(OutputStream outputStream) throws IOException {
-                        outputStream.write(lastResortJson.getBytes(StandardCharsets.UTF_8));
-                        outputStream.flush();
-                    }
-                };
-                return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .header("Transfer-Encoding", "chunked")
-                    .body(emptyStream);
+            switch (token.currentToken()) {
+                case VALUE_NUMBER_INT:
+                    return token.getNumberValue();
+                case VALUE_STRING:
+                    return token.getText();
+                default:
+                    return null;
             }
+        } catch (IOException e) {
+            return null;
         }
     }
 
+    /**
+     * Check if the Accept header supports Server-Sent Events (text/event-stream)
+     */
+    private boolean supportsStreamableHttp(String acceptHeader) {
+        return acceptHeader != null && acceptHeader.contains("text/event-stream");
+    }
+
     /**
      * Handle initialize method - MCP protocol initialization
      */
@@ -291,6 +456,8 @@ public class McpController {
         Map<String, Object> capabilities = new HashMap<>();
         Map<String, Object> toolsCapability = new HashMap<>();
         capabilities.put("tools", toolsCapability);
+        // Streamed tool calls send partial content as log message notifications
+        capabilities.put("logging", new HashMap<>());
         result.put("capabilities", capabilities);
         
         Map<String, Object> serverInfo = new HashMap<>();
@@ -303,44 +470,59 @@ public class McpController {
     }
 
     /**
-     * Handle tools/call method - execute a specific tool
+     * Handle tools/call method - execute a specific tool.
+     * The returned future completes when the tool's result is available.
      */
-    private McpResponse handleToolCall(McpRequest request) {
-        if (request.getParams() == null || !request.getParams().has("name")) {
-            return createErrorResponse(
+    private CompletableFuture<McpResponse> handleToolCall(McpRequest request, ToolContext context) {
+        String toolName;
+        try (JsonParser name = openParam(request, "name")) {
+            toolName = name != null && name.currentToken().isScalarValue() ? name.getValueAsString() : null;
+        } catch (IOException e) {
+            toolName = null;
+        }
+        if (toolName == null) {
+            return CompletableFuture.completedFuture(createErrorResponse(
                 request.getId(),
                 -32602,
                 "Invalid params",
                 "Missing 'name' parameter in params"
-            );
+            ));
         }
 
-        String toolName = request.getParams().get("name").asText();
-        var arguments = request.getParams().has("arguments") 
-            ? request.getParams().get("arguments") 
-            : objectMapper.createObjectNode();
+        logger.debug("Calling tool: {}", toolName);
 
-        logger.debug("Calling tool: {}, with arguments: {}", toolName, arguments);
+        CompletableFuture<Object> result;
+        try (JsonParser arguments = openParam(request, "arguments")) {
+            result = mcpToolService.callToolAsync(toolName, arguments, context);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(createToolErrorResponse(request, toolName, e));
+        }
+        String calledTool = toolName;
+        return result.handle((value, error) -> error == null
+                ? createSuccessResponse(request.getId(), value)
+                : createToolErrorResponse(request, calledTool,
+                        error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+    }
 
-        try {
-            Object result = mcpToolService.callTool(toolName, arguments);
-            return createSuccessResponse(request.getId(), result);
-        } catch (IllegalArgumentException e) {
+    /**
+     * Map a failed tool call to its JSON-RPC error response
+     */
+    private McpResponse createToolErrorResponse(McpRequest request, String toolName, Throwable e) {
+        if (e instanceof IllegalArgumentException) {
             return createErrorResponse(
                 request.getId(),
                 -32602,
                 "Invalid params",
                 e.getMessage()
             );
-        } catch (Exception e) {
-            logger.error("Error calling tool: " + toolName, e);
-            return createErrorResponse(
-                request.getId(),
-                -32603,
-                "Internal error",
-                "Error executing tool: " + e.getMessage()
-            );
         }
+        logger.error("Error calling tool: " + toolName, e);
+        return createErrorResponse(
+            request.getId(),
+            -32603,
+            "Internal error",
+            "Error executing tool: " + e.getMessage()
+        );
     }
 
     /**
@@ -377,6 +559,7 @@ public class McpController {
      * Create an error JSON-RPC response
      */
     private McpResponse createErrorResponse(Object id, int code, String message, String data) {
+        metrics.recordError(code);
         McpResponse response = new McpResponse();
         response.setJsonrpc("2.0");
         response.setId(id);
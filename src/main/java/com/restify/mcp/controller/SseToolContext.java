@@ -0,0 +1,93 @@
+package com.restify.mcp.controller;
+
+import com.restify.mcp.dto.McpNotification;
+import com.restify.mcp.dto.TextContent;
+import com.restify.mcp.service.ToolContext;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ToolContext that writes notifications for one tools/call as Server-Sent Events.
+ * Progress is sent as MCP "notifications/progress" when the client supplied a progressToken.
+ * MCP has no notification for partial tool results, so partial content items are sent as
+ * "notifications/message" log messages at level "info", whose data names the originating
+ * request; clients without special handling show them as server log output.
+ */
+class SseToolContext implements ToolContext {
+
+    static final String CONTENT_NOTIFICATION = "notifications/message";
+    static final String CONTENT_LOGGER = "tools/call";
+    static final String PROGRESS_NOTIFICATION = "notifications/progress";
+
+    private final SseEmitter emitter;
+    private final Object requestId;
+    private final Object progressToken;
+    private final String accessToken;
+
+    SseToolContext(SseEmitter emitter, Object requestId, Object progressToken, String accessToken) {
+        this.emitter = emitter;
+        this.requestId = requestId;
+        this.progressToken = progressToken;
+        this.accessToken = accessToken;
+    }
+
+    @Override
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return true;
+    }
+
+    @Override
+    public void sendProgress(long progress, Long total, String message) {
+        if (progressToken == null) {
+            return;
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("progressToken", progressToken);
+        params.put("progress", progress);
+        if (total != null) {
+            params.put("total", total);
+        }
+        if (message != null) {
+            params.put("message", message);
+        }
+        send(new McpNotification(PROGRESS_NOTIFICATION, params));
+    }
+
+    @Override
+    public void sendContent(Object value) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("requestId", requestId);
+        if (progressToken != null) {
+            data.put("progressToken", progressToken);
+        }
+        data.put("content", List.of(new TextContent(value)));
+        Map<String, Object> params = new HashMap<>();
+        params.put("level", "info");
+        params.put("logger", CONTENT_LOGGER);
+        params.put("data", data);
+        send(new McpNotification(CONTENT_NOTIFICATION, params));
+    }
+
+    /**
+     * Send a JSON-RPC message as one SSE "message" event.
+     * Fails with UncheckedIOException once the client has gone away, which stops the tool.
+     */
+    void send(Object message) {
+        try {
+            emitter.send(SseEmitter.event().name("message").data(message, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Client disconnected from event stream", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.restify.mcp.dto;
+
+/**
+ * An email as returned by the Outlook tools.
+ * The default field sets are typed records with their own serializers (EmailSummary for
+ * listings, EmailDetail for single messages); a caller-chosen subset of fields is returned
+ * as a PartialEmail.
+ */
+public interface Email {
+
+    /**
+     * Graph message ID, or null if the caller left it out of the fields
+     */
+    String id();
+}
@@ -0,0 +1,42 @@
+package com.restify.mcp.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+
+/**
+ * Single email with its body: the default fields of readOutlookEmailById and readOutlookEmailsByIds.
+ * "to" holds the recipient addresses joined with ", ".
+ *
+ * @see EmailSummary
+ */
+@JsonSerialize(using = EmailDetail.Serializer.class)
+public record EmailDetail(String id, String subject, String from, String to, OffsetDateTime receivedDateTime,
+                          String body, String bodyPreview, boolean isRead, boolean hasAttachments) implements Email {
+
+    static class Serializer extends StdSerializer<EmailDetail> {
+
+        Serializer() {
+            super(EmailDetail.class);
+        }
+
+        @Override
+        public void serialize(EmailDetail email, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(email);
+            gen.writeStringField("id", email.id());
+            gen.writeStringField("subject", email.subject());
+            gen.writeStringField("from", email.from());
+            gen.writeStringField("to", email.to());
+            EmailSummary.writeDateTime(gen, "receivedDateTime", email.receivedDateTime());
+            gen.writeStringField("body", email.body());
+            gen.writeStringField("bodyPreview", email.bodyPreview());
+            gen.writeBooleanField("isRead", email.isRead());
+            gen.writeBooleanField("hasAttachments", email.hasAttachments());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.restify.mcp.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+
+/**
+ * Email in a listing: the default fields of readOutlookEmails.
+ * Absent text fields are empty strings and the date is kept as parsed from Graph; it is
+ * only formatted when the record is written. The serializer writes the fields directly
+ * instead of having Jackson introspect the record.
+ */
+@JsonSerialize(using = EmailSummary.Serializer.class)
+public record EmailSummary(String id, String subject, String from, OffsetDateTime receivedDateTime,
+                           String bodyPreview, boolean isRead, boolean hasAttachments) implements Email {
+
+    static class Serializer extends StdSerializer<EmailSummary> {
+
+        Serializer() {
+            super(EmailSummary.class);
+        }
+
+        @Override
+        public void serialize(EmailSummary email, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(email);
+            gen.writeStringField("id", email.id());
+            gen.writeStringField("subject", email.subject());
+            gen.writeStringField("from", email.from());
+            writeDateTime(gen, "receivedDateTime", email.receivedDateTime());
+            gen.writeStringField("bodyPreview", email.bodyPreview());
+            gen.writeBooleanField("isRead", email.isRead());
+            gen.writeBooleanField("hasAttachments", email.hasAttachments());
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Write a date in its ISO-8601 form, or an empty string if there is none
+     */
+    static void writeDateTime(JsonGenerator gen, String field, OffsetDateTime dateTime) throws IOException {
+        gen.writeStringField(field, dateTime != null ? dateTime.toString() : "");
+    }
+}
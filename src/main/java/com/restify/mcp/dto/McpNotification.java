@@ -0,0 +1,48 @@
+package com.restify.mcp.dto;
+
+import com.fasterxml.jackson.annotation.JsonGetter;
+
+/**
+ * JSON-RPC 2.0 notification DTO for MCP protocol (a message without an id)
+ */
+public class McpNotification {
+    private String jsonrpc;
+    private String method;
+    private Object params;
+
+    public McpNotification() {
+    }
+
+    public McpNotification(String method, Object params) {
+        this.jsonrpc = "2.0";
+        this.method = method;
+        this.params = params;
+    }
+
+    @JsonGetter("jsonrpc")
+    public String getJsonrpc() {
+        return jsonrpc;
+    }
+
+    public void setJsonrpc(String jsonrpc) {
+        this.jsonrpc = jsonrpc;
+    }
+
+    @JsonGetter("method")
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    @JsonGetter("params")
+    public Object getParams() {
+        return params;
+    }
+
+    public void setParams(Object params) {
+        this.params = params;
+    }
+}
@@ -1,15 +1,19 @@
 package com.restify.mcp.dto;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 /**
- * JSON-RPC 2.0 request DTO for MCP protocol
+ * JSON-RPC 2.0 request DTO for MCP protocol.
+ * params are held as a buffer of JSON tokens rather than a JsonNode tree, so method
+ * handlers can stream them straight into their target types.
  */
 public class McpRequest {
     private String jsonrpc;
     private String method;
-    private JsonNode params;
+    private TokenBuffer params;
     private Object id;
+    private boolean idPresent;
 
     public String getJsonrpc() {
         return jsonrpc;
@@ -27,11 +31,11 @@ public class McpRequest {
         this.method = method;
     }
 
-    public JsonNode getParams() {
+    public TokenBuffer getParams() {
         return params;
     }
 
-    public void setParams(JsonNode params) {
+    public void setParams(TokenBuffer params) {
         this.params = params;
     }
 
@@ -41,6 +45,16 @@ public class McpRequest {
 
     public void setId(Object id) {
         this.id = id;
+        this.idPresent = true;
+    }
+
+    /**
+     * A request without an "id" member is a notification and must not be answered.
+     * An explicit "id": null still counts as a request.
+     */
+    @JsonIgnore
+    public boolean isNotification() {
+        return !idPresent;
     }
 }
 
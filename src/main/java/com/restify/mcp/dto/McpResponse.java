@@ -22,6 +22,7 @@ public class McpResponse {
     }
 
     @JsonGetter("id")
+    @JsonInclude(JsonInclude.Include.ALWAYS)
     public Object getId() {
         return id;
     }
@@ -0,0 +1,41 @@
+package com.restify.mcp.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Email with a caller-chosen subset of fields, in the order they were asked for.
+ * Also used for an email that could not be read, which only carries "id" and "error".
+ */
+public record PartialEmail(Map<String, Object> fields) implements Email {
+
+    /**
+     * Entry for an email that could not be read
+     */
+    public static PartialEmail failed(String id, String error) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", id);
+        fields.put("error", error);
+        return new PartialEmail(fields);
+    }
+
+    @Override
+    public String id() {
+        Object id = fields.get("id");
+        return id != null ? id.toString() : null;
+    }
+
+    /**
+     * Value of a field, or null if it was not selected
+     */
+    public Object get(String field) {
+        return fields.get(field);
+    }
+
+    @JsonValue
+    public Map<String, Object> fields() {
+        return fields;
+    }
+}
@@ -0,0 +1,151 @@
+package com.restify.mcp.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * MCP text content item: {"type": "text", "text": ...}.
+ * Strings are written as-is. Other values are written as their JSON text, which is
+ * serialized and escaped in a single pass straight into the enclosing generator
+ * instead of being materialized as an intermediate String.
+ */
+@JsonSerialize(using = TextContent.Serializer.class)
+public class TextContent {
+
+    private final Object value;
+
+    public TextContent(Object value) {
+        this.value = value;
+    }
+
+    public String getType() {
+        return "text";
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    static class Serializer extends JsonSerializer<TextContent> {
+
+        private static final JsonFactory NESTED_FACTORY = new JsonFactory();
+
+        @Override
+        public void serialize(TextContent content, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("type", content.getType());
+            gen.writeFieldName("text");
+            Object value = content.getValue();
+            if (value instanceof String) {
+                gen.writeString((String) value);
+            } else {
+                // Opening quote as a raw value keeps the generator's field/value state consistent
+                gen.writeRawValue("\"");
+                try (JsonStringEscapingWriter writer = new JsonStringEscapingWriter(gen);
+                     JsonGenerator nested = NESTED_FACTORY.createGenerator(writer)) {
+                    provider.defaultSerializeValue(value, nested);
+                }
+                gen.writeRaw('"');
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Writer that escapes characters for use inside a JSON string literal and forwards
+     * them to a generator as raw output. A high surrogate at the end of a chunk is held
+     * back until its low surrogate arrives, so pairs are never split across raw writes.
+     */
+    static class JsonStringEscapingWriter extends Writer {
+
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private final JsonGenerator target;
+        private final char[] escape = {'\\', 'u', '0', '0', '0', '0'};
+        private final char[] pair = new char[2];
+        private char pendingHighSurrogate;
+
+        JsonStringEscapingWriter(JsonGenerator target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            int end = off + len;
+            if (pendingHighSurrogate != 0) {
+                pair[0] = pendingHighSurrogate;
+                pair[1] = cbuf[off];
+                pendingHighSurrogate = 0;
+                target.writeRaw(pair, 0, 2);
+                off++;
+            }
+            if (off < end && Character.isHighSurrogate(cbuf[end - 1])) {
+                pendingHighSurrogate = cbuf[end - 1];
+                end--;
+            }
+            int runStart = off;
+            for (int i = off; i < end; i++) {
+                char c = cbuf[i];
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    if (i > runStart) {
+                        target.writeRaw(cbuf, runStart, i - runStart);
+                    }
+                    writeEscaped(c);
+                    runStart = i + 1;
+                }
+            }
+            if (end > runStart) {
+                target.writeRaw(cbuf, runStart, end - runStart);
+            }
+        }
+
+        private void writeEscaped(char c) throws IOException {
+            switch (c) {
+                case '"':
+                    target.writeRaw("\\\"");
+                    break;
+                case '\\':
+                    target.writeRaw("\\\\");
+                    break;
+                case '\n':
+                    target.writeRaw("\\n");
+                    break;
+                case '\r':
+                    target.writeRaw("\\r");
+                    break;
+                case '\t':
+                    target.writeRaw("\\t");
+                    break;
+                default:
+                    escape[4] = HEX[(c >> 4) & 0xF];
+                    escape[5] = HEX[c & 0xF];
+                    target.writeRaw(escape, 0, escape.length);
+            }
+        }
+
+        @Override
+        public void flush() {
+            // Output is flushed together with the enclosing generator
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (pendingHighSurrogate != 0) {
+                // Unpaired surrogate at the very end; write it escaped rather than dropping it
+                char c = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                target.writeRaw(new char[] {'\\', 'u', HEX[(c >> 12) & 0xF], HEX[(c >> 8) & 0xF],
+                        HEX[(c >> 4) & 0xF], HEX[c & 0xF]}, 0, 6);
+            }
+        }
+    }
+}
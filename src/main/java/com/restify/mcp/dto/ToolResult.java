@@ -0,0 +1,29 @@
+package com.restify.mcp.dto;
+
+import com.fasterxml.jackson.annotation.JsonGetter;
+
+import java.util.List;
+
+/**
+ * Result of an MCP tools/call: {"content": [...]}
+ */
+public class ToolResult {
+
+    private final List<TextContent> content;
+
+    public ToolResult(List<TextContent> content) {
+        this.content = content;
+    }
+
+    /**
+     * Result with a single text content item for the tool's return value
+     */
+    public static ToolResult of(Object value) {
+        return new ToolResult(List.of(new TextContent(value)));
+    }
+
+    @JsonGetter("content")
+    public List<TextContent> getContent() {
+        return content;
+    }
+}
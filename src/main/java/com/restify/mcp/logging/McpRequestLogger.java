@@ -0,0 +1,210 @@
+package com.restify.mcp.logging;
+
+import com.restify.mcp.config.McpRequestLogProperties;
+import com.restify.mcp.dto.McpRequest;
+import com.restify.mcp.dto.McpResponse;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sampled, rate-limited log of MCP requests, one key=value line per logged request.
+ * Requests are sampled per tool (errors are always kept unless disabled), at most
+ * maxPerSecond lines are written, and payloads are cut off at payloadMaxChars while
+ * they are serialized, so a large mailbox result is never formatted in full.
+ * Lines go to the "com.restify.mcp.requests" logger, which can be routed and leveled separately.
+ */
+@Component
+public class McpRequestLogger {
+
+    private static final Logger requestLog = LoggerFactory.getLogger("com.restify.mcp.requests");
+
+    private final McpRequestLogProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong windowSecond = new AtomicLong();
+    private final AtomicInteger windowCount = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public McpRequestLogger(McpRequestLogProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Log a handled request if it is sampled and within the rate limit
+     *
+     * @param response   the response produced, or null if handling failed before one was built
+     * @param startNanos System.nanoTime() at the start of handling
+     */
+    public void log(McpRequest request, McpResponse response, long startNanos) {
+        if (!properties.isEnabled() || !requestLog.isInfoEnabled()) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        String tool = "tools/call".equals(request.getMethod()) ? toolName(request.getParams()) : null;
+        McpResponse.Error error = response != null ? response.getError() : null;
+
+        if (error == null || !properties.isLogErrors()) {
+            double sampleRate = properties.sampleRateFor(tool);
+            if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+                return;
+            }
+        }
+        if (!tryAcquire()) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        StringBuilder line = new StringBuilder(128);
+        line.append("method=").append(request.getMethod());
+        if (tool != null) {
+            line.append(" tool=").append(tool);
+        }
+        line.append(" id=").append(request.getId());
+        line.append(" status=").append(error != null ? Integer.toString(error.getCode()) : response != null ? "ok" : "failed");
+        line.append(" durationMs=").append(durationNanos / 1_000_000).append('.')
+            .append((durationNanos / 100_000) % 10);
+
+        int payloadMaxChars = properties.payloadMaxCharsFor(tool);
+        if (payloadMaxChars > 0) {
+            line.append(" params=").append(truncatedJson(request.getParams(), payloadMaxChars));
+            if (response != null) {
+                Object payload = error != null ? error.getData() : response.getResult();
+                line.append(error != null ? " error=" : " result=").append(truncatedJson(payload, payloadMaxChars));
+            }
+        }
+        long droppedLines = dropped.getAndSet(0);
+        if (droppedLines > 0) {
+            line.append(" dropped=").append(droppedLines);
+        }
+        requestLog.info(line.toString());
+    }
+
+    /**
+     * Allow at most maxPerSecond lines per wall-clock second
+     */
+    private boolean tryAcquire() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = windowSecond.get();
+        if (second != current && windowSecond.compareAndSet(current, second)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= properties.getMaxPerSecond();
+    }
+
+    /**
+     * Read params.name without decoding the rest of the params
+     */
+    private String toolName(TokenBuffer params) {
+        if (params == null) {
+            return null;
+        }
+        try (JsonParser parser = params.asParser(objectMapper)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("name".equals(field)) {
+                    return value.isScalarValue() ? parser.getValueAsString() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Serialize a value to JSON, stopping as soon as maxChars have been written
+     */
+    private String truncatedJson(Object value, int maxChars) {
+        TruncatingWriter writer = new TruncatingWriter(maxChars);
+        try {
+            objectMapper.writeValue(writer, value);
+        } catch (IOException e) {
+            // Either the limit was reached or the value could not be serialized; log what we have
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writer that keeps the first maxChars characters and then aborts the serialization.
+     * Writes after the limit (such as the flush on close) are ignored.
+     */
+    static final class TruncatingWriter extends Writer {
+
+        private final StringBuilder buffer;
+        private final int maxChars;
+        private boolean truncated;
+
+        TruncatingWriter(int maxChars) {
+            this.maxChars = maxChars;
+            this.buffer = new StringBuilder(Math.min(maxChars, 1024) + 3);
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            if (truncated) {
+                return;
+            }
+            int room = maxChars - buffer.length();
+            if (len > room) {
+                buffer.append(chars, off, Math.max(room, 0));
+                truncated = true;
+                throw new LimitReachedException();
+            }
+            buffer.append(chars, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            if (truncated) {
+                return;
+            }
+            int room = maxChars - buffer.length();
+            if (len > room) {
+                buffer.append(str, off, off + Math.max(room, 0));
+                truncated = true;
+                throw new LimitReachedException();
+            }
+            buffer.append(str, off, off + len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return truncated ? buffer + "..." : buffer.toString();
+        }
+    }
+
+    private static final class LimitReachedException extends IOException {
+        LimitReachedException() {
+            super("Payload limit reached");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
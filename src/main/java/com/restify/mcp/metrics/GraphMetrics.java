@@ -0,0 +1,96 @@
+package com.restify.mcp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters for outgoing Microsoft Graph requests: time spent queued by the
+ * rate limiter versus time on the wire, throttling responses and rejected requests.
+ */
+@Component
+public class GraphMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.99};
+
+    private final Timer queued;
+    private final Timer wireSuccess;
+    private final Timer wireThrottled;
+    private final Timer wireError;
+    private final Counter retries;
+    private final Counter rejected;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public GraphMetrics(MeterRegistry registry) {
+        queued = Timer.builder("graph.requests.queued")
+                .description("Time Graph requests waited for the rate limiter, including backoff")
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+        wireSuccess = wireTimer(registry, "success");
+        wireThrottled = wireTimer(registry, "throttled");
+        wireError = wireTimer(registry, "error");
+        retries = Counter.builder("graph.requests.retries")
+                .description("Graph requests retried after a 429, 503 or 504 response")
+                .register(registry);
+        rejected = Counter.builder("graph.requests.rejected")
+                .description("Graph requests rejected because the wait for the rate limiter was too long")
+                .register(registry);
+        registry.gauge("graph.requests.waiting", waiting);
+    }
+
+    /**
+     * Meters that are not exported anywhere, for components created outside Spring
+     */
+    public static GraphMetrics noop() {
+        return new GraphMetrics(new SimpleMeterRegistry());
+    }
+
+    private static Timer wireTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("graph.requests.wire")
+                .description("Time Graph requests spent on the wire by outcome")
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Mark a request as waiting for the rate limiter
+     */
+    public void waitStarted() {
+        waiting.incrementAndGet();
+    }
+
+    public void waitFinished() {
+        waiting.decrementAndGet();
+    }
+
+    /**
+     * Record the time a request spent waiting before being sent, zero if it was sent right away
+     */
+    public void recordQueued(long nanos) {
+        queued.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the time of one attempt on the wire by its HTTP status
+     */
+    public void recordWire(int status, long nanos) {
+        Timer timer = status == 429 ? wireThrottled : status >= 400 ? wireError : wireSuccess;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+}
@@ -0,0 +1,221 @@
+package com.restify.mcp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer meters for the MCP endpoint.
+ * All meters are registered up front (per method, per tool, per standard error code),
+ * so recording on the hot path is a map lookup at most and never a registry lookup.
+ */
+@Component
+public class McpMetrics {
+
+    private static final String[] METHODS = {"initialize", "notifications/initialized", "tools/call", "tools/list"};
+    private static final int[] ERROR_CODES = {-32700, -32600, -32601, -32602, -32603};
+    private static final double[] PERCENTILES = {0.5, 0.99};
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> methodTimers = new HashMap<>();
+    private final Timer otherMethodTimer;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final Map<Integer, Counter> errorCounters = new ConcurrentHashMap<>();
+    private final DistributionSummary requestSize;
+    private final DistributionSummary responseSize;
+
+    public McpMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (String method : METHODS) {
+            methodTimers.put(method, requestTimer(method));
+        }
+        otherMethodTimer = requestTimer("other");
+        registry.gauge("mcp.requests.active", activeRequests);
+        for (int code : ERROR_CODES) {
+            errorCounters.put(code, errorCounter(code));
+        }
+        requestSize = payloadSummary("mcp.request.size");
+        responseSize = payloadSummary("mcp.response.size");
+    }
+
+    private Timer requestTimer(String method) {
+        return Timer.builder("mcp.requests")
+                .description("JSON-RPC request handling time by method")
+                .tag("method", method)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter errorCounter(int code) {
+        return Counter.builder("mcp.errors")
+                .description("JSON-RPC error responses by error code")
+                .tag("code", Integer.toString(code))
+                .register(registry);
+    }
+
+    private DistributionSummary payloadSummary(String name) {
+        return DistributionSummary.builder(name)
+                .description("MCP HTTP payload size")
+                .baseUnit("bytes")
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Mark a JSON-RPC request as started; pass the returned start time to {@link #requestFinished}
+     */
+    public long requestStarted() {
+        activeRequests.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a finished JSON-RPC request. Methods outside the MCP set share the "other" tag.
+     */
+    public void requestFinished(String method, long startNanos) {
+        Timer timer = method != null ? methodTimers.getOrDefault(method, otherMethodTimer) : otherMethodTimer;
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        activeRequests.decrementAndGet();
+    }
+
+    /**
+     * Count a JSON-RPC error response
+     */
+    public void recordError(int code) {
+        errorCounters.computeIfAbsent(code, this::errorCounter).increment();
+    }
+
+    public void recordRequestSize(long bytes) {
+        requestSize.record(bytes);
+    }
+
+    public void recordResponseSize(long bytes) {
+        responseSize.record(bytes);
+    }
+
+    /**
+     * Register the meters of a tool. Called once at tool registration.
+     */
+    public ToolMeters registerTool(String toolName) {
+        AtomicInteger active = new AtomicInteger();
+        registry.gauge("mcp.tool.calls.active", Tags.of("tool", toolName), active);
+        Counter coalesced = Counter.builder("mcp.tool.calls.coalesced")
+                .description("Tool calls that joined an equal call in flight instead of invoking the tool")
+                .tag("tool", toolName)
+                .register(registry);
+        return new ToolMeters(toolCallTimer(toolName, "success"), toolCallTimer(toolName, "error"), active, coalesced);
+    }
+
+    private Timer toolCallTimer(String toolName, String outcome) {
+        return Timer.builder("mcp.tool.calls")
+                .description("Tool call time by tool and outcome")
+                .tag("tool", toolName)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Register the meters of a tool's result cache: hits, misses, evictions, and the number
+     * and serialized size of the cached results, read from the cache. Called once at tool
+     * registration.
+     */
+    public <C> CacheMeters registerToolCache(String toolName, C cache, ToDoubleFunction<C> entries,
+                                             ToDoubleFunction<C> bytes, ToDoubleFunction<C> evictions) {
+        Gauge.builder("mcp.tool.cache.entries", cache, entries)
+                .description("Results held in the tool result cache")
+                .tag("tool", toolName)
+                .register(registry);
+        Gauge.builder("mcp.tool.cache.size", cache, bytes)
+                .description("Serialized size of the results held in the tool result cache")
+                .baseUnit("bytes")
+                .tag("tool", toolName)
+                .register(registry);
+        FunctionCounter.builder("mcp.tool.cache.evictions", cache, evictions)
+                .description("Results evicted from the tool result cache to stay within its bounds")
+                .tag("tool", toolName)
+                .register(registry);
+        return new CacheMeters(cacheCounter(toolName, "hit"), cacheCounter(toolName, "miss"));
+    }
+
+    private Counter cacheCounter(String toolName, String result) {
+        return Counter.builder("mcp.tool.cache.requests")
+                .description("Tool result cache lookups by tool and result")
+                .tag("tool", toolName)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Pre-registered hit and miss counters of one tool's result cache
+     */
+    public static final class CacheMeters {
+        private final Counter hits;
+        private final Counter misses;
+
+        private CacheMeters(Counter hits, Counter misses) {
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public void hit() {
+            hits.increment();
+        }
+
+        public void miss() {
+            misses.increment();
+        }
+    }
+
+    /**
+     * Pre-registered meters of one tool
+     */
+    public static final class ToolMeters {
+        private final Timer success;
+        private final Timer error;
+        private final AtomicInteger active;
+        private final Counter coalesced;
+
+        private ToolMeters(Timer success, Timer error, AtomicInteger active, Counter coalesced) {
+            this.success = success;
+            this.error = error;
+            this.active = active;
+            this.coalesced = coalesced;
+        }
+
+        /**
+         * Mark a call as started; pass the returned start time to {@link #stop}
+         */
+        public long start() {
+            active.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        public void stop(long startNanos, boolean succeeded) {
+            (succeeded ? success : error).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            active.decrementAndGet();
+        }
+
+        /**
+         * Count a call that shares the invocation of an equal call in flight
+         */
+        public void coalesced() {
+            coalesced.increment();
+        }
+    }
+}
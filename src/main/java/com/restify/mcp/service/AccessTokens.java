@@ -0,0 +1,76 @@
+package com.restify.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Helpers for Microsoft Graph access tokens.
+ * Caches key on a hash of the token so raw tokens are not used as map keys or logged.
+ */
+public final class AccessTokens {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private AccessTokens() {
+    }
+
+    /**
+     * Extract the token from an "Authorization: Bearer ..." header, or null if there is none
+     */
+    public static String fromAuthorizationHeader(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        String token = authorization.substring(7).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    /**
+     * Return a URL-safe SHA-256 hash of the access token
+     */
+    public static String hash(String accessToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Return the expiry time from the token's "exp" claim, or null if the token is not a JWT
+     * or carries no expiry. The signature is not verified, so the result must only be used
+     * to shorten how long data fetched with the token is kept, never to trust the token.
+     */
+    public static Instant expiry(String accessToken) {
+        JsonNode exp = claims(accessToken).get("exp");
+        return exp != null && exp.canConvertToLong() ? Instant.ofEpochSecond(exp.asLong()) : null;
+    }
+
+    /**
+     * Return the claims of a JWT access token, or an empty object if the token is not a JWT.
+     * The signature is not verified; callers must not base access decisions on the claims.
+     */
+    public static JsonNode claims(String accessToken) {
+        String[] parts = accessToken.split("\\.");
+        if (parts.length == 3) {
+            try {
+                JsonNode claims = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1]));
+                if (claims != null && claims.isObject()) {
+                    return claims;
+                }
+            } catch (IllegalArgumentException | IOException e) {
+                // Not a JWT
+            }
+        }
+        return MAPPER.createObjectNode();
+    }
+}
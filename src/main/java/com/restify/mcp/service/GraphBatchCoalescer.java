@@ -0,0 +1,222 @@
+package com.restify.mcp.service;
+
+import com.microsoft.graph.content.BatchRequestContent;
+import com.microsoft.graph.content.BatchResponseContent;
+import com.microsoft.graph.content.BatchResponseStep;
+import com.microsoft.graph.http.HttpMethod;
+import com.microsoft.graph.models.Message;
+import com.microsoft.graph.requests.GraphServiceClient;
+import com.microsoft.graph.requests.MessageRequest;
+import com.google.gson.JsonElement;
+import jakarta.annotation.PreDestroy;
+import okhttp3.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent single-message fetches into Graph JSON $batch requests.
+ * Fetches for the same access token and field selection that arrive within the batch
+ * window are queued together and sent as one $batch of up to max-size sub-requests.
+ * A full batch is sent right away; a lone fetch is sent as a plain GET, since a batch
+ * envelope would only add overhead. Fetches of the same message within one window
+ * share a single sub-request.
+ */
+@Component
+public class GraphBatchCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(GraphBatchCoalescer.class);
+
+    /**
+     * Graph rejects $batch requests with more than 20 sub-requests
+     */
+    public static final int GRAPH_MAX_BATCH_SIZE = 20;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxSize;
+    private final Map<String, PendingBatch> pending = new HashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public GraphBatchCoalescer(
+            @Value("${outlook.graph.batch.enabled:true}") boolean enabled,
+            @Value("${outlook.graph.batch.window:5ms}") Duration window,
+            @Value("${outlook.graph.batch.max-size:20}") int maxSize) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxSize = Math.max(1, Math.min(maxSize, GRAPH_MAX_BATCH_SIZE));
+        this.scheduler = enabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "graph-batch");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * A coalescer that sends every fetch as its own request
+     */
+    public static GraphBatchCoalescer disabled() {
+        return new GraphBatchCoalescer(false, Duration.ZERO, GRAPH_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Fetch one message, possibly as part of a $batch with other concurrent fetches.
+     *
+     * @param accessToken The Microsoft Graph access token the client was created for
+     * @param graphClient Client for the access token
+     * @param messageId   The ID of the message to retrieve
+     * @param projection  Fields to select
+     * @return Future completed with the message, or exceptionally with the Graph error for it
+     */
+    public CompletableFuture<Message> getMessage(String accessToken, GraphServiceClient<Request> graphClient,
+                                                 String messageId, MessageProjection projection) {
+        return getMessages(accessToken, graphClient, List.of(messageId), projection).get(0);
+    }
+
+    /**
+     * Fetch several messages. They are queued like concurrent single fetches, and the
+     * last partial batch is sent without waiting for the window to close.
+     *
+     * @return One future per message ID, in the order of the IDs
+     */
+    public List<CompletableFuture<Message>> getMessages(String accessToken, GraphServiceClient<Request> graphClient,
+                                                        List<String> messageIds, MessageProjection projection) {
+        List<CompletableFuture<Message>> futures = new ArrayList<>(messageIds.size());
+        if (!enabled) {
+            for (String messageId : messageIds) {
+                futures.add(messageRequest(graphClient, messageId, projection).getAsync());
+            }
+            return futures;
+        }
+
+        String key = AccessTokens.hash(accessToken) + "|" + projection.select();
+        List<PendingBatch> ready = new ArrayList<>();
+        synchronized (pending) {
+            for (String messageId : messageIds) {
+                PendingBatch batch = pending.get(key);
+                if (batch == null) {
+                    batch = new PendingBatch(key, graphClient, projection);
+                    pending.put(key, batch);
+                    PendingBatch scheduled = batch;
+                    scheduler.schedule(() -> flushIfPending(scheduled), windowNanos, TimeUnit.NANOSECONDS);
+                }
+                futures.add(batch.add(messageId));
+                if (batch.size() >= maxSize) {
+                    pending.remove(key);
+                    ready.add(batch);
+                }
+            }
+            if (messageIds.size() > 1 && pending.containsKey(key)) {
+                ready.add(pending.remove(key));
+            }
+        }
+        ready.forEach(this::send);
+        return futures;
+    }
+
+    private void flushIfPending(PendingBatch batch) {
+        synchronized (pending) {
+            if (!pending.remove(batch.key, batch)) {
+                return;
+            }
+        }
+        send(batch);
+    }
+
+    private void send(PendingBatch batch) {
+        try {
+            if (batch.futures.size() == 1) {
+                Map.Entry<String, CompletableFuture<Message>> only = batch.futures.entrySet().iterator().next();
+                messageRequest(batch.graphClient, only.getKey(), batch.projection).getAsync()
+                        .whenComplete((message, error) -> complete(only.getValue(), message, error));
+                return;
+            }
+
+            BatchRequestContent content = new BatchRequestContent();
+            Map<String, CompletableFuture<Message>> byStep = new HashMap<>();
+            batch.futures.forEach((messageId, future) -> byStep.put(content.addBatchRequestStep(
+                    messageRequest(batch.graphClient, messageId, batch.projection), HttpMethod.GET), future));
+            log.debug("Sending Graph $batch with {} message requests", byStep.size());
+            batch.graphClient.batch().buildRequest().postAsync(content)
+                    .whenComplete((response, error) -> fanOut(byStep, response, error));
+        } catch (RuntimeException e) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static void fanOut(Map<String, CompletableFuture<Message>> byStep, BatchResponseContent response,
+                               Throwable error) {
+        byStep.forEach((stepId, future) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
+            }
+            BatchResponseStep<JsonElement> step = response != null ? response.getResponseById(stepId) : null;
+            if (step == null) {
+                future.completeExceptionally(new IllegalStateException("No $batch response for request " + stepId));
+                return;
+            }
+            try {
+                future.complete(step.getDeserializedBody(Message.class));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private static void complete(CompletableFuture<Message> future, Message message, Throwable error) {
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(message);
+        }
+    }
+
+    private static MessageRequest messageRequest(GraphServiceClient<Request> graphClient, String messageId,
+                                                 MessageProjection projection) {
+        return graphClient.me().messages(messageId).buildRequest().select(projection.select());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Fetches queued for one token and field selection. Guarded by the pending map's lock until sent.
+     */
+    private static final class PendingBatch {
+        private final String key;
+        private final GraphServiceClient<Request> graphClient;
+        private final MessageProjection projection;
+        private final Map<String, CompletableFuture<Message>> futures = new LinkedHashMap<>();
+
+        PendingBatch(String key, GraphServiceClient<Request> graphClient, MessageProjection projection) {
+            this.key = key;
+            this.graphClient = graphClient;
+            this.projection = projection;
+        }
+
+        CompletableFuture<Message> add(String messageId) {
+            return futures.computeIfAbsent(messageId, id -> new CompletableFuture<>());
+        }
+
+        int size() {
+            return futures.size();
+        }
+    }
+}
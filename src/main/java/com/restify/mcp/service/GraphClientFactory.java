@@ -1,24 +1,78 @@
 package com.restify.mcp.service;
 
+import com.restify.mcp.cache.ExpiringLruCache;
 import com.microsoft.graph.authentication.IAuthenticationProvider;
+import com.microsoft.graph.httpcore.AuthenticationHandler;
+import com.microsoft.graph.httpcore.HttpClients;
+import com.microsoft.graph.httpcore.RedirectHandler;
+import com.microsoft.graph.httpcore.RetryHandler;
 import com.microsoft.graph.requests.GraphServiceClient;
+import jakarta.annotation.PreDestroy;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Factory class for creating Microsoft Graph clients.
- * Creates stateless Graph clients on-demand using the provided access token.
+ * All clients share one OkHttp connection pool and dispatcher, so connections (and their
+ * TLS sessions) to Graph are reused across calls and users. Each client only adds an
+ * authentication interceptor bound to its access token, and the rate limiter of its
+ * tenant and mailbox; clients are cached per token in a bounded cache with a time-to-live.
  */
 @Component
 public class GraphClientFactory {
 
     private static final Logger log = LoggerFactory.getLogger(GraphClientFactory.class);
 
+    private final String graphEndpoint;
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final OkHttpClient sharedHttpClient;
+    private final ExpiringLruCache<String, GraphServiceClient<Request>> clients;
+    private final GraphThrottle throttle;
+
+    public GraphClientFactory(
+            @Value("${outlook.graph.endpoint:https://graph.microsoft.com/v1.0}") String graphEndpoint,
+            @Value("${outlook.graph.max-idle-connections:32}") int maxIdleConnections,
+            @Value("${outlook.graph.keep-alive:5m}") Duration keepAlive,
+            @Value("${outlook.graph.max-requests:256}") int maxRequests,
+            @Value("${outlook.graph.max-requests-per-host:128}") int maxRequestsPerHost,
+            @Value("${outlook.graph.client-cache.max-size:1000}") int clientCacheMaxSize,
+            @Value("${outlook.graph.client-cache.ttl:10m}") Duration clientCacheTtl,
+            GraphThrottle throttle) {
+        this.graphEndpoint = graphEndpoint;
+        this.throttle = throttle;
+        this.connectionPool = new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        this.dispatcher = new Dispatcher();
+        this.dispatcher.setMaxRequests(maxRequests);
+        this.dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        // Same middleware as HttpClients.createDefault, minus the token-specific authentication handler.
+        // With client-side throttling its interceptor does the retrying, in place of Graph's RetryHandler.
+        Interceptor[] interceptors = throttle.isEnabled()
+                ? new Interceptor[] {new RedirectHandler()}
+                : new Interceptor[] {new RetryHandler(), new RedirectHandler()};
+        this.sharedHttpClient = HttpClients.createFromInterceptors(interceptors)
+                .newBuilder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .build();
+        this.clients = new ExpiringLruCache<>(clientCacheMaxSize, clientCacheTtl);
+    }
+
     /**
-     * Creates a new GraphServiceClient instance with the provided access token.
-     * This method creates a stateless client that can be used for a single request.
+     * Returns a GraphServiceClient for the provided access token.
+     * Clients are cached per token and share the factory's connection pool and dispatcher.
      *
      * @param accessToken The Microsoft Graph access token
      * @return A configured GraphServiceClient instance
@@ -28,18 +82,47 @@ public class GraphClientFactory {
         if (accessToken == null || accessToken.isEmpty()) {
             throw new IllegalArgumentException("Access token cannot be null or empty");
         }
+        return clients.get(AccessTokens.hash(accessToken), key -> buildClient(accessToken));
+    }
 
-        final String token = accessToken;
+    private GraphServiceClient<Request> buildClient(String accessToken) {
+        log.debug("Creating Graph client for endpoint {}", graphEndpoint);
         IAuthenticationProvider authProvider = new IAuthenticationProvider() {
             @Override
-            public java.util.concurrent.CompletableFuture<String> getAuthorizationTokenAsync(java.net.URL requestUrl) {
-                return java.util.concurrent.CompletableFuture.completedFuture(token);
+            public CompletableFuture<String> getAuthorizationTokenAsync(URL requestUrl) {
+                return CompletableFuture.completedFuture(accessToken);
             }
         };
-        
-        return GraphServiceClient.builder()
-                .authenticationProvider(authProvider)
+
+        // newBuilder() keeps the shared connection pool and dispatcher; the authentication
+        // handler goes first so redirects are sent with the token
+        OkHttpClient.Builder httpClientBuilder = sharedHttpClient.newBuilder();
+        httpClientBuilder.interceptors().add(1, new AuthenticationHandler(authProvider));
+        // Last, so every request on the wire, redirects included, takes a permit of the
+        // token's tenant and mailbox, and throttled requests are retried from there
+        if (throttle.isEnabled()) {
+            httpClientBuilder.addInterceptor(throttle.interceptor(accessToken));
+        }
+        OkHttpClient httpClient = httpClientBuilder.build();
+
+        GraphServiceClient<Request> graphClient = GraphServiceClient.builder()
+                .httpClient(httpClient)
                 .buildClient();
+        graphClient.setServiceRoot(graphEndpoint);
+        return graphClient;
     }
-}
 
+    /**
+     * The base OkHttp client shared by all Graph clients, without authentication
+     */
+    public OkHttpClient getSharedHttpClient() {
+        return sharedHttpClient;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clients.invalidateAll();
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+    }
+}
@@ -0,0 +1,86 @@
+package com.restify.mcp.service;
+
+import com.microsoft.graph.http.BaseCollectionPage;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Iterates the pages of a Microsoft Graph collection, following @odata.nextLink lazily.
+ * The request for the next page is started when the current page is handed out, so it
+ * downloads while the caller processes the current one. At most two pages are held at
+ * a time, whatever the size of the collection. Iteration stops after limit items.
+ *
+ * @param <T> item type
+ * @param <P> collection page type
+ */
+public final class GraphPageIterator<T, P extends BaseCollectionPage<T, ?>> implements Iterator<List<T>>, AutoCloseable {
+
+    private final Function<P, CompletableFuture<P>> nextPageFetcher;
+    private final int limit;
+    private CompletableFuture<P> pending;
+    private int returned;
+
+    /**
+     * @param firstPage       request for the first page
+     * @param nextPageFetcher starts the request for the page after the given one, or returns null on the last page
+     * @param limit           maximum number of items to return across all pages
+     */
+    public GraphPageIterator(CompletableFuture<P> firstPage, Function<P, CompletableFuture<P>> nextPageFetcher, int limit) {
+        this.nextPageFetcher = nextPageFetcher;
+        this.limit = limit;
+        this.pending = limit > 0 ? firstPage : null;
+        if (limit <= 0) {
+            firstPage.cancel(true);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pending != null;
+    }
+
+    /**
+     * Wait for the next page and start fetching the one after it
+     */
+    @Override
+    public List<T> next() {
+        if (pending == null) {
+            throw new NoSuchElementException();
+        }
+        P page = await(pending);
+        List<T> items = page != null && page.getCurrentPage() != null ? page.getCurrentPage() : List.of();
+        if (items.size() > limit - returned) {
+            items = items.subList(0, limit - returned);
+        }
+        returned += items.size();
+        pending = page != null && returned < limit ? nextPageFetcher.apply(page) : null;
+        return items;
+    }
+
+    private P await(CompletableFuture<P> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cancel the prefetched page, if any
+     */
+    @Override
+    public void close() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.restify.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.restify.mcp.cache.ExpiringLruCache;
+import com.restify.mcp.metrics.GraphMetrics;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client-side rate limiting for Microsoft Graph, per tenant and per mailbox.
+ * Each request takes a permit from its tenant's and its mailbox's token bucket and waits
+ * until both are available, but no longer than max-wait and only while fewer than
+ * max-queued requests are waiting; otherwise it fails fast with a ThrottledException.
+ * On 429, 503 or 504 the request is retried: after the Retry-After Graph sent, or else
+ * after an exponential backoff with full jitter. A 429 also pauses both buckets until
+ * Retry-After and halves their rate, which then recovers with each success, so the
+ * request rate settles just below Graph's quota instead of oscillating around it.
+ *
+ * The limiting is an OkHttp application interceptor, so waits and retries run on the
+ * thread that executes the call: the calling thread for synchronous calls, a dispatcher
+ * thread for asynchronous ones. Waits are bounded by max-wait and max-queued, and
+ * outlook.graph.max-requests-per-host should leave room for them.
+ *
+ * Tenant and mailbox are read from the token's tid and oid claims without verifying it.
+ * That only decides which bucket a request is counted against; Graph still checks the
+ * token. Tokens without these claims get a bucket of their own.
+ */
+@Component
+public class GraphThrottle {
+
+    private static final Logger log = LoggerFactory.getLogger(GraphThrottle.class);
+
+    private final boolean enabled;
+    private final double tenantRate;
+    private final double tenantBurst;
+    private final double mailboxRate;
+    private final double mailboxBurst;
+    private final long maxWaitNanos;
+    private final int maxQueued;
+    private final int maxRetries;
+    private final long backoffBaseNanos;
+    private final long backoffMaxNanos;
+    private final GraphMetrics metrics;
+    private final ExpiringLruCache<String, TokenBucket> buckets;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public GraphThrottle(
+            @Value("${outlook.graph.throttle.enabled:true}") boolean enabled,
+            @Value("${outlook.graph.throttle.tenant-rate:100}") double tenantRate,
+            @Value("${outlook.graph.throttle.tenant-burst:200}") double tenantBurst,
+            @Value("${outlook.graph.throttle.mailbox-rate:16}") double mailboxRate,
+            @Value("${outlook.graph.throttle.mailbox-burst:20}") double mailboxBurst,
+            @Value("${outlook.graph.throttle.max-wait:10s}") Duration maxWait,
+            @Value("${outlook.graph.throttle.max-queued:1000}") int maxQueued,
+            @Value("${outlook.graph.throttle.max-retries:3}") int maxRetries,
+            @Value("${outlook.graph.throttle.backoff-base:500ms}") Duration backoffBase,
+            @Value("${outlook.graph.throttle.backoff-max:30s}") Duration backoffMax,
+            @Value("${outlook.graph.throttle.max-buckets:10000}") int maxBuckets,
+            GraphMetrics metrics) {
+        this.enabled = enabled;
+        this.tenantRate = tenantRate;
+        this.tenantBurst = tenantBurst;
+        this.mailboxRate = mailboxRate;
+        this.mailboxBurst = mailboxBurst;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.maxQueued = maxQueued;
+        this.maxRetries = maxRetries;
+        this.backoffBaseNanos = backoffBase.toNanos();
+        this.backoffMaxNanos = backoffMax.toNanos();
+        this.metrics = metrics;
+        // Idle buckets are full again after burst / rate seconds, so dropping them loses nothing
+        this.buckets = new ExpiringLruCache<>(maxBuckets, Duration.ofMinutes(10));
+    }
+
+    /**
+     * No rate limiting; Graph's own retry handler is used instead
+     */
+    public static GraphThrottle disabled() {
+        return new GraphThrottle(false, 1, 1, 1, 1, Duration.ZERO, 1, 0, Duration.ZERO, Duration.ZERO, 1,
+                GraphMetrics.noop());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Interceptor for the HTTP client of one access token, which rate limits its calls and
+     * retries them on throttling
+     */
+    public Interceptor interceptor(String accessToken) {
+        JsonNode claims = AccessTokens.claims(accessToken);
+        String tenant = claims.path("tid").asText("");
+        String mailbox = claims.path("oid").asText("");
+        String tenantKey = "tenant|" + (tenant.isEmpty() ? AccessTokens.hash(accessToken) : tenant);
+        String mailboxKey = "mailbox|" + (mailbox.isEmpty() ? AccessTokens.hash(accessToken) : tenant + "/" + mailbox);
+        return chain -> intercept(chain,
+                buckets.get(tenantKey, key -> new TokenBucket(tenantRate, tenantBurst, System.nanoTime())),
+                buckets.get(mailboxKey, key -> new TokenBucket(mailboxRate, mailboxBurst, System.nanoTime())));
+    }
+
+    /**
+     * Send the request once its permit is due, and again after each throttled answer
+     */
+    private Response intercept(Interceptor.Chain chain, TokenBucket tenantBucket, TokenBucket mailboxBucket)
+            throws IOException {
+        Request request = chain.request();
+        long backoffNanos = 0;
+        for (int attempt = 0; ; attempt++) {
+            long wait = reserve(tenantBucket, mailboxBucket, backoffNanos);
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the Graph rate limiter");
+                } finally {
+                    waitEnded(wait);
+                }
+            }
+            if (chain.call().isCanceled()) {
+                throw new IOException("Canceled");
+            }
+
+            Response response = chain.proceed(request);
+            backoffNanos = onResponse(request, response, attempt, tenantBucket, mailboxBucket);
+            if (backoffNanos < 0) {
+                return response;
+            }
+            response.close();
+        }
+    }
+
+    /**
+     * Reserve a permit from both buckets and return how long to wait for it, at least
+     * minWaitNanos. A positive wait counts against max-queued until waitEnded is called.
+     */
+    private long reserve(TokenBucket tenantBucket, TokenBucket mailboxBucket, long minWaitNanos)
+            throws ThrottledException {
+        long now = System.nanoTime();
+        long mailboxWait = mailboxBucket.reserve(now, maxWaitNanos);
+        if (mailboxWait < 0) {
+            throw reject("the mailbox rate limit would delay it more than " + maxWaitMillis());
+        }
+        long tenantWait = tenantBucket.reserve(now, maxWaitNanos);
+        if (tenantWait < 0) {
+            mailboxBucket.cancel();
+            throw reject("the tenant rate limit would delay it more than " + maxWaitMillis());
+        }
+        long wait = Math.max(minWaitNanos, Math.max(mailboxWait, tenantWait));
+        if (wait <= 0) {
+            metrics.recordQueued(0);
+            return 0;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            mailboxBucket.cancel();
+            tenantBucket.cancel();
+            throw reject(maxQueued + " requests are already waiting for a permit");
+        }
+        metrics.waitStarted();
+        return wait;
+    }
+
+    private void waitEnded(long waitNanos) {
+        queued.decrementAndGet();
+        metrics.waitFinished();
+        metrics.recordQueued(waitNanos);
+    }
+
+    /**
+     * Record Graph's answer in the buckets and return the delay before retrying it, or -1
+     * when the response is final
+     */
+    private long onResponse(Request request, Response response, int attempt, TokenBucket tenantBucket,
+                            TokenBucket mailboxBucket) {
+        long now = System.nanoTime();
+        metrics.recordWire(response.code(),
+                TimeUnit.MILLISECONDS.toNanos(response.receivedResponseAtMillis() - response.sentRequestAtMillis()));
+        if (!isRetryable(response.code())) {
+            tenantBucket.onSuccess(now);
+            mailboxBucket.onSuccess(now);
+            return -1;
+        }
+
+        Long retryAfterNanos = retryAfterNanos(response.header("Retry-After"));
+        if (response.code() == 429) {
+            long until = now + (retryAfterNanos != null ? retryAfterNanos : 0);
+            tenantBucket.onThrottled(now);
+            mailboxBucket.onThrottled(now);
+            tenantBucket.pauseUntil(now, until);
+            mailboxBucket.pauseUntil(now, until);
+        }
+        long backoffNanos = retryAfterNanos != null ? retryAfterNanos : jitteredBackoff(attempt);
+        if (attempt >= maxRetries || backoffNanos > maxWaitNanos || !isReplayable(request)) {
+            return -1;
+        }
+        log.debug("Graph answered {} to {} {}, retrying in {} ms", response.code(), request.method(),
+                request.url().encodedPath(), TimeUnit.NANOSECONDS.toMillis(backoffNanos));
+        metrics.recordRetry();
+        return backoffNanos;
+    }
+
+    private ThrottledException reject(String reason) {
+        metrics.recordRejected();
+        return new ThrottledException("Microsoft Graph request rejected before it was sent: " + reason);
+    }
+
+    private String maxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms";
+    }
+
+    private long jitteredBackoff(int attempt) {
+        long ceiling = Math.min(backoffMaxNanos, backoffBaseNanos << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 429 || code == 503 || code == 504;
+    }
+
+    private static boolean isReplayable(Request request) {
+        return request.body() == null || !request.body().isOneShot();
+    }
+
+    /**
+     * Parse a Retry-After header given in seconds or as an HTTP date
+     */
+    static Long retryAfterNanos(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return null;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Instant at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return Math.max(0, Duration.between(Instant.now(), at).toNanos());
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A Graph request was not sent because the client-side rate limit would make it wait too long
+     */
+    public static class ThrottledException extends IOException {
+        public ThrottledException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.restify.mcp.service;
+
+import com.microsoft.graph.models.Message;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Conditions on the messages of a listing, and how they are pushed down to Graph.
+ * Without keywords every condition becomes part of the $filter clause, which starts with
+ * receivedDateTime because Graph rejects a $filter that does not begin with the $orderby
+ * property. Keywords need $search, which Graph cannot combine with $filter or $orderby:
+ * the keywords and the sender then go into the KQL search, and the remaining conditions
+ * are checked on the search results as they stream in. The same happens for a sender given
+ * by name, which $filter can only compare as a whole address.
+ */
+public final class MailQuery {
+
+    /**
+     * A query without conditions
+     */
+    public static final MailQuery ALL = new MailQuery(null, null, null, false, null, null);
+
+    /**
+     * Lower bound for receivedDateTime when no earlier bound is given, so the $filter can
+     * always start with the $orderby property
+     */
+    private static final OffsetDateTime EPOCH = OffsetDateTime.of(1900, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final DateTimeFormatter ODATA_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+    private final String from;
+    private final OffsetDateTime receivedAfter;
+    private final OffsetDateTime receivedBefore;
+    private final boolean unreadOnly;
+    private final Boolean hasAttachments;
+    private final String keywords;
+
+    private final String filter;
+    private final String search;
+    private final Predicate<Message> clientFilter;
+    private final Set<String> clientProperties;
+    private final String note;
+
+    private MailQuery(String from, OffsetDateTime receivedAfter, OffsetDateTime receivedBefore, boolean unreadOnly,
+                      Boolean hasAttachments, String keywords) {
+        this.from = from;
+        this.receivedAfter = receivedAfter;
+        this.receivedBefore = receivedBefore;
+        this.unreadOnly = unreadOnly;
+        this.hasAttachments = hasAttachments;
+        this.keywords = keywords;
+
+        boolean senderIsAddress = from == null || from.indexOf('@') > 0;
+        if (keywords == null && senderIsAddress) {
+            this.filter = isEmpty() ? null : buildFilter();
+            this.search = null;
+            this.clientFilter = null;
+            this.clientProperties = Set.of();
+            this.note = null;
+        } else {
+            this.filter = null;
+            this.search = searchExpression(keywords, from);
+            List<String> clientSide = new ArrayList<>();
+            Predicate<Message> predicate = message -> true;
+            Set<String> properties = new LinkedHashSet<>();
+            if (receivedAfter != null || receivedBefore != null) {
+                clientSide.add("received date");
+                properties.add("receivedDateTime");
+                predicate = predicate.and(this::matchesReceived);
+            }
+            if (unreadOnly) {
+                clientSide.add("unreadOnly");
+                properties.add("isRead");
+                predicate = predicate.and(message -> !Boolean.TRUE.equals(message.isRead));
+            }
+            if (hasAttachments != null) {
+                clientSide.add("hasAttachments");
+                properties.add("hasAttachments");
+                predicate = predicate.and(message -> hasAttachments.equals(Boolean.TRUE.equals(message.hasAttachments)));
+            }
+            this.clientFilter = clientSide.isEmpty() ? null : predicate;
+            this.clientProperties = properties;
+            this.note = "Keyword and sender-name queries use Graph $search, which cannot be combined with $filter or "
+                    + "$orderby: results are in Graph's search order" + (clientSide.isEmpty() ? ""
+                    : "; " + String.join(", ", clientSide) + " were checked here on the search results");
+        }
+    }
+
+    /**
+     * Query from tool arguments; null or blank arguments add no condition
+     *
+     * @param from           sender address, or a name to search for
+     * @param receivedAfter  ISO-8601 date or date-time the messages were received at or after
+     * @param receivedBefore ISO-8601 date or date-time the messages were received before
+     * @param unreadOnly     only unread messages
+     * @param hasAttachments only messages with (true) or without (false) attachments
+     * @param keywords       words to search for in the messages
+     * @throws IllegalArgumentException if a date cannot be parsed or the date range is empty
+     */
+    public static MailQuery of(String from, String receivedAfter, String receivedBefore, Boolean unreadOnly,
+                               Boolean hasAttachments, String keywords) {
+        OffsetDateTime after = parseDate("receivedAfter", receivedAfter);
+        OffsetDateTime before = parseDate("receivedBefore", receivedBefore);
+        if (after != null && before != null && !after.isBefore(before)) {
+            throw new IllegalArgumentException("receivedAfter must be before receivedBefore");
+        }
+        MailQuery query = new MailQuery(blankToNull(from), after, before, Boolean.TRUE.equals(unreadOnly),
+                hasAttachments, blankToNull(keywords));
+        return query.isEmpty() ? ALL : query;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static OffsetDateTime parseDate(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            if (value.trim().length() == 10) {
+                return LocalDate.parse(value.trim()).atStartOfDay().atOffset(ZoneOffset.UTC);
+            }
+            return OffsetDateTime.parse(value.trim()).withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO-8601 date or date-time, e.g. 2024-06-01 or "
+                    + "2024-06-01T08:00:00Z, got '" + value + "'");
+        }
+    }
+
+    public boolean isEmpty() {
+        return from == null && receivedAfter == null && receivedBefore == null && !unreadOnly
+                && hasAttachments == null && keywords == null;
+    }
+
+    private String buildFilter() {
+        StringBuilder filter = new StringBuilder("receivedDateTime ge ")
+                .append(ODATA_DATE_TIME.format(receivedAfter != null ? receivedAfter : EPOCH));
+        if (receivedBefore != null) {
+            filter.append(" and receivedDateTime lt ").append(ODATA_DATE_TIME.format(receivedBefore));
+        }
+        if (from != null) {
+            filter.append(" and from/emailAddress/address eq '").append(from.replace("'", "''")).append('\'');
+        }
+        if (unreadOnly) {
+            filter.append(" and isRead eq false");
+        }
+        if (hasAttachments != null) {
+            filter.append(" and hasAttachments eq ").append(hasAttachments);
+        }
+        return filter.toString();
+    }
+
+    /**
+     * KQL for $search over keywords and a sender, quoted as Graph expects; double quotes
+     * inside cannot be escaped and are dropped
+     */
+    static String searchExpression(String keywords, String from) {
+        StringBuilder kql = new StringBuilder();
+        if (keywords != null) {
+            kql.append(keywords.replace("\"", ""));
+        }
+        if (from != null) {
+            for (String word : from.replace("\"", "").split("\\s+")) {
+                kql.append(kql.length() > 0 ? " " : "").append("from:").append(word);
+            }
+        }
+        return "\"" + kql + "\"";
+    }
+
+    private boolean matchesReceived(Message message) {
+        OffsetDateTime received = message.receivedDateTime;
+        if (received == null) {
+            return false;
+        }
+        return (receivedAfter == null || !received.isBefore(receivedAfter))
+                && (receivedBefore == null || received.isBefore(receivedBefore));
+    }
+
+    /**
+     * Graph $filter clause, or null if nothing is filtered in Graph
+     */
+    public String filter() {
+        return filter;
+    }
+
+    /**
+     * Graph $search value including its quotes, or null if the query does not search
+     */
+    public String search() {
+        return search;
+    }
+
+    /**
+     * Graph $orderby clause; searches come in Graph's own order, which cannot be changed
+     */
+    public String orderBy() {
+        return search == null ? "receivedDateTime desc" : null;
+    }
+
+    /**
+     * Conditions Graph could not apply, checked on each fetched message, or null if Graph applies them all
+     */
+    public Predicate<Message> clientFilter() {
+        return clientFilter;
+    }
+
+    /**
+     * $select clause of the projection plus the properties the client-side conditions read
+     */
+    public String select(MessageProjection projection) {
+        if (clientProperties.isEmpty()) {
+            return projection.select();
+        }
+        Set<String> properties = new LinkedHashSet<>(List.of(projection.select().split(",")));
+        properties.addAll(clientProperties);
+        return String.join(",", properties);
+    }
+
+    /**
+     * Explanation for the caller when the query could not be pushed down to Graph as a
+     * whole, or null if it was
+     */
+    public String note() {
+        return note;
+    }
+}
@@ -0,0 +1,320 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.cache.ExpiringLruCache;
+import com.microsoft.graph.http.GraphServiceException;
+import com.microsoft.graph.models.Message;
+import com.microsoft.graph.options.HeaderOption;
+import com.microsoft.graph.requests.GraphServiceClient;
+import com.microsoft.graph.requests.MessageDeltaCollectionPage;
+import com.microsoft.graph.requests.MessageDeltaCollectionRequest;
+import com.microsoft.graph.requests.MessageDeltaCollectionRequestBuilder;
+import okhttp3.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * In-memory copy of the newest messages of recently read mail folders, kept current with
+ * Graph delta queries. The first read of a folder runs a full delta sync. Later reads
+ * only fetch the changes since the stored delta link, at most once per sync interval,
+ * and serve the listing from memory.
+ *
+ * Folders are cached per access token (by hash), so a cached folder is only ever served
+ * to a token Graph has accepted for it. Memory is bounded by the number of folders (least
+ * recently used folders are evicted, and folders not read within the ttl expire) and by
+ * the number of messages kept per folder; only properties without the message body are stored.
+ * Every synced change is also applied to the MailboxSearchIndex.
+ */
+@Component
+public class MailboxCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MailboxCache.class);
+
+    /**
+     * Fields available from cached messages; projections needing more go to Graph directly
+     */
+    public static final MessageProjection CACHED_FIELDS = MessageProjection.of(List.of(
+            "id", "subject", "from", "to", "receivedDateTime", "bodyPreview", "isRead", "hasAttachments"),
+            MessageProjection.SUMMARY);
+
+    private static final Comparator<Message> NEWEST_FIRST = Comparator
+            .comparing((Message message) -> message.receivedDateTime != null
+                    ? message.receivedDateTime : OffsetDateTime.MIN, Comparator.reverseOrder())
+            .thenComparing(message -> message.id);
+
+    private final boolean enabled;
+    private final int maxMessagesPerFolder;
+    private final long syncIntervalNanos;
+    private final Duration initialSyncWindow;
+    private final int pageSize;
+    private final ExpiringLruCache<String, FolderState> folders;
+    private final MailboxSearchIndex searchIndex;
+
+    public MailboxCache(
+            @Value("${outlook.mail.cache.enabled:true}") boolean enabled,
+            @Value("${outlook.mail.cache.max-folders:200}") int maxFolders,
+            @Value("${outlook.mail.cache.max-messages-per-folder:500}") int maxMessagesPerFolder,
+            @Value("${outlook.mail.cache.ttl:30m}") Duration ttl,
+            @Value("${outlook.mail.cache.sync-interval:2s}") Duration syncInterval,
+            @Value("${outlook.mail.cache.initial-sync-window:30d}") Duration initialSyncWindow,
+            @Value("${outlook.mail.page-size:50}") int pageSize,
+            MailboxSearchIndex searchIndex) {
+        this.enabled = enabled;
+        this.maxMessagesPerFolder = maxMessagesPerFolder;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.initialSyncWindow = initialSyncWindow.isZero() ? null : initialSyncWindow;
+        this.pageSize = pageSize;
+        // Expire after access, so a folder that is read keeps its delta link instead of
+        // running a full initial sync again every ttl
+        this.folders = new ExpiringLruCache<>(maxFolders, ttl, true, System::nanoTime);
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * A cache that never serves anything
+     */
+    public static MailboxCache disabled() {
+        return new MailboxCache(false, 1, 1, Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, 50,
+                MailboxSearchIndex.disabled());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Newest messages of a folder, synced with Graph first if the sync interval has passed.
+     * Returns null when the cache cannot answer, because it is disabled or holds fewer
+     * messages than asked for while the folder may have more.
+     *
+     * @param accessToken token the folder is read with
+     * @param graphClient Graph client for that token
+     * @param folderId    mail folder ID or well-known name
+     * @param limit       number of messages wanted
+     * @return up to limit messages, newest first, or null
+     */
+    public List<Message> read(String accessToken, GraphServiceClient<Request> graphClient, String folderId, int limit) {
+        try {
+            return readAsync(accessToken, graphClient, folderId, limit).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Like {@link #read}, without blocking the calling thread: a due sync runs with
+     * asynchronous Graph requests, and the folder is only locked to apply each page as it
+     * arrives, never while a request is pending. Concurrent reads of a folder share one sync.
+     *
+     * @return Future of up to limit messages, newest first, or of null
+     */
+    public CompletableFuture<List<Message>> readAsync(String accessToken, GraphServiceClient<Request> graphClient,
+                                                      String folderId, int limit) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        FolderState state = folders.get(AccessTokens.hash(accessToken) + "|" + folderId, key -> new FolderState());
+        CompletableFuture<Void> synced;
+        boolean start = false;
+        synchronized (state) {
+            synced = state.syncing;
+            if (synced == null
+                    && (state.deltaLink == null || System.nanoTime() - state.lastSyncNanos >= syncIntervalNanos)) {
+                synced = new CompletableFuture<>();
+                state.syncing = synced;
+                start = true;
+            }
+        }
+        if (start) {
+            sync(accessToken, graphClient, folderId, state, synced);
+        }
+        return synced == null
+                ? CompletableFuture.completedFuture(newest(state, limit))
+                : synced.thenApply(done -> newest(state, limit));
+    }
+
+    /**
+     * Newest messages held for the folder, or null if it may have more than it holds
+     */
+    private static List<Message> newest(FolderState state, int limit) {
+        synchronized (state) {
+            if (!state.complete && limit > state.messages.size()) {
+                return null;
+            }
+            List<Message> newest = new ArrayList<>(Math.min(limit, state.messages.size()));
+            for (Message message : state.messages) {
+                if (newest.size() == limit) {
+                    break;
+                }
+                newest.add(message);
+            }
+            return newest;
+        }
+    }
+
+    /**
+     * Apply the changes since the last delta link, or run a full sync for a new folder, and
+     * complete done once the folder is current. An expired delta link (410 Gone) starts over
+     * with a full sync.
+     */
+    private void sync(String accessToken, GraphServiceClient<Request> graphClient, String folderId,
+                      FolderState state, CompletableFuture<Void> done) {
+        String deltaLink;
+        synchronized (state) {
+            deltaLink = state.deltaLink;
+        }
+        CompletableFuture<Void> synced;
+        try {
+            synced = applyDelta(accessToken, graphClient, folderId, state, deltaLink);
+        } catch (RuntimeException e) {
+            synced = CompletableFuture.failedFuture(e);
+        }
+        synced.exceptionallyCompose(error -> {
+                    Throwable cause = unwrap(error);
+                    if (!(cause instanceof GraphServiceException)
+                            || ((GraphServiceException) cause).getResponseCode() != 410 || deltaLink == null) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    log.debug("Delta link for folder {} expired, resyncing", folderId);
+                    synchronized (state) {
+                        state.reset();
+                    }
+                    return applyDelta(accessToken, graphClient, folderId, state, null);
+                })
+                .whenComplete((value, error) -> {
+                    synchronized (state) {
+                        state.syncing = null;
+                    }
+                    if (error != null) {
+                        done.completeExceptionally(unwrap(error));
+                    } else {
+                        done.complete(null);
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> applyDelta(String accessToken, GraphServiceClient<Request> graphClient,
+                                               String folderId, FolderState state, String deltaLink) {
+        if (deltaLink != null) {
+            return applyPages(accessToken, state, new MessageDeltaCollectionRequestBuilder(deltaLink, graphClient, null)
+                    .buildRequest()
+                    .getAsync());
+        }
+        MessageDeltaCollectionRequest request = graphClient
+                .me()
+                .mailFolders(folderId)
+                .messages()
+                .delta()
+                .buildRequest(List.of(new HeaderOption("Prefer", "odata.maxpagesize=" + pageSize)))
+                .select(CACHED_FIELDS.select());
+        if (initialSyncWindow != null) {
+            // Older messages are never seen, so the folder is only complete without a window
+            String since = OffsetDateTime.now(ZoneOffset.UTC).minus(initialSyncWindow)
+                    .truncatedTo(ChronoUnit.SECONDS).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            request.filter("receivedDateTime ge " + since);
+            synchronized (state) {
+                state.complete = false;
+            }
+        }
+        return applyPages(accessToken, state, request.getAsync());
+    }
+
+    /**
+     * Apply each delta page as it arrives, requesting the next one after it, until the page
+     * carrying the new delta link
+     */
+    private CompletableFuture<Void> applyPages(String accessToken, FolderState state,
+                                               CompletableFuture<MessageDeltaCollectionPage> page) {
+        return page.thenCompose(current -> {
+            List<Message> messages = current != null ? current.getCurrentPage() : List.of();
+            MessageDeltaCollectionRequestBuilder next = current != null ? current.getNextPage() : null;
+            synchronized (state) {
+                for (Message message : messages) {
+                    state.apply(message, maxMessagesPerFolder);
+                }
+                if (next == null) {
+                    if (current != null) {
+                        state.deltaLink = current.deltaLink();
+                    }
+                    state.lastSyncNanos = System.nanoTime();
+                }
+            }
+            searchIndex.update(accessToken, messages);
+            return next != null
+                    ? applyPages(accessToken, state, next.buildRequest().getAsync())
+                    : CompletableFuture.<Void>completedFuture(null);
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Drop all cached folders
+     */
+    public void invalidateAll() {
+        folders.invalidateAll();
+    }
+
+    /**
+     * Cached messages of one folder, newest first. Guarded by its own monitor.
+     */
+    private static final class FolderState {
+        private final Map<String, Message> byId = new HashMap<>();
+        private final TreeSet<Message> messages = new TreeSet<>(NEWEST_FIRST);
+        private String deltaLink;
+        private long lastSyncNanos;
+        // Sync in progress, which reads of the folder wait for instead of starting their own
+        private CompletableFuture<Void> syncing;
+        // Whether every message of the folder is cached, i.e. nothing was cut off
+        private boolean complete = true;
+
+        /**
+         * Apply one delta entry: a removal, or a new or changed message
+         */
+        void apply(Message message, int maxMessages) {
+            if (message.id == null) {
+                return;
+            }
+            Message previous = byId.remove(message.id);
+            if (previous != null) {
+                messages.remove(previous);
+            }
+            if (message.additionalDataManager().containsKey("@removed")) {
+                return;
+            }
+            byId.put(message.id, message);
+            messages.add(message);
+            while (messages.size() > maxMessages) {
+                byId.remove(messages.pollLast().id);
+                complete = false;
+            }
+        }
+
+        void reset() {
+            byId.clear();
+            messages.clear();
+            deltaLink = null;
+            complete = true;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.cache.ExpiringLruCache;
+import com.microsoft.graph.models.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process inverted index over the subject, sender and body preview of the messages this
+ * server has fetched, used to answer searches without a Graph round trip.
+ * Messages are added as listings and delta syncs fetch them, and removed when a delta sync
+ * reports them deleted. Each term maps to a postings list of delta-encoded varint document
+ * numbers, so a posting usually takes one byte. Queries intersect the postings of all
+ * their terms.
+ *
+ * Like MailboxCache, mailboxes are indexed per access token (by hash) and bounded by the
+ * number of mailboxes, an idle time-to-live and the number of messages kept per mailbox.
+ * The index only covers the messages fetched so far, never provably the whole mailbox, so
+ * it only answers a search that has at least as many hits as asked for. Otherwise, and for
+ * a mailbox nothing has been fetched for yet, search returns null and the caller asks
+ * Graph instead. Results from the index are the newest matching indexed messages, so a
+ * newer match in a folder that was never listed can be missing from them.
+ */
+@Component
+public class MailboxSearchIndex {
+
+    /**
+     * Fields a message needs to be indexed and returned from the index
+     */
+    public static final MessageProjection INDEXED_FIELDS = MessageProjection.SUMMARY;
+
+    /**
+     * Prefix of the terms indexed for the sender's address and name
+     */
+    private static final String SENDER_PREFIX = "from:";
+
+    private static final Comparator<Message> NEWEST_FIRST = Comparator
+            .comparing((Message message) -> message.receivedDateTime != null
+                    ? message.receivedDateTime : OffsetDateTime.MIN, Comparator.reverseOrder())
+            .thenComparing(message -> message.id);
+
+    private final boolean enabled;
+    private final int maxMessagesPerMailbox;
+    private final ExpiringLruCache<String, MailboxIndex> mailboxes;
+
+    public MailboxSearchIndex(
+            @Value("${outlook.mail.search.enabled:true}") boolean enabled,
+            @Value("${outlook.mail.search.max-mailboxes:200}") int maxMailboxes,
+            @Value("${outlook.mail.search.max-messages-per-mailbox:5000}") int maxMessagesPerMailbox,
+            @Value("${outlook.mail.search.ttl:30m}") Duration ttl) {
+        this.enabled = enabled;
+        this.maxMessagesPerMailbox = maxMessagesPerMailbox;
+        this.mailboxes = new ExpiringLruCache<>(maxMailboxes, ttl);
+    }
+
+    /**
+     * An index that never holds anything, so every search goes to Graph
+     */
+    public static MailboxSearchIndex disabled() {
+        return new MailboxSearchIndex(false, 1, 1, Duration.ofMinutes(1));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Apply fetched messages to a mailbox's index: messages marked "@removed" by a delta
+     * query are dropped, all others are added or replace their previous version.
+     * The messages must carry the properties of {@link #INDEXED_FIELDS}.
+     *
+     * @param accessToken token the messages were fetched with
+     * @param messages    fetched messages
+     */
+    public void update(String accessToken, List<Message> messages) {
+        if (!enabled || messages.isEmpty()) {
+            return;
+        }
+        MailboxIndex index = mailboxes.get(AccessTokens.hash(accessToken), key -> new MailboxIndex());
+        synchronized (index) {
+            for (Message message : messages) {
+                if (message.id == null) {
+                    continue;
+                }
+                if (message.additionalDataManager().containsKey("@removed")) {
+                    index.remove(message.id);
+                } else {
+                    index.add(message, maxMessagesPerMailbox);
+                }
+            }
+        }
+    }
+
+    /**
+     * Newest indexed messages matching all keywords of the query and all terms of the sender.
+     * Keywords match whole words of the subject, body preview or sender; the query may also
+     * carry "from:" terms.
+     *
+     * @param accessToken token the mailbox is read with
+     * @param query       keywords, may be null
+     * @param sender      sender address or name, may be null
+     * @param limit       maximum number of messages returned
+     * @return limit messages, newest first, or null if the mailbox is cold or fewer than limit
+     *         indexed messages match
+     */
+    public List<Message> search(String accessToken, String query, String sender, int limit) {
+        if (!enabled) {
+            return null;
+        }
+        MailboxIndex index = mailboxes.getIfPresent(AccessTokens.hash(accessToken));
+        if (index == null) {
+            return null;
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        if (query != null) {
+            for (String word : query.trim().split("\\s+")) {
+                if (word.regionMatches(true, 0, SENDER_PREFIX, 0, SENDER_PREFIX.length())) {
+                    addTerms(word.substring(SENDER_PREFIX.length()), SENDER_PREFIX, terms);
+                } else {
+                    addTerms(word, "", terms);
+                }
+            }
+        }
+        addTerms(sender, SENDER_PREFIX, terms);
+        List<Message> matches;
+        synchronized (index) {
+            matches = index.search(terms, limit);
+        }
+        // With fewer hits, messages that were never fetched may match too
+        return matches.size() < limit ? null : matches;
+    }
+
+    public void invalidateAll() {
+        mailboxes.invalidateAll();
+    }
+
+    /**
+     * Add the lower-cased words of a text, split at every character that is not a letter or digit
+     */
+    static void addTerms(String text, String prefix, Set<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(prefix + text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Terms and documents of one mailbox. Document numbers only grow, so postings are appended
+     * in order; a replaced or removed message leaves a deleted document behind until the
+     * index is compacted.
+     */
+    private static final class MailboxIndex {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<String, Integer> docById = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private Message[] docs = new Message[64];
+        private int docCount;
+
+        void add(Message message, int maxMessages) {
+            remove(message.id);
+            if (docCount == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            int doc = docCount++;
+            docs[doc] = message;
+            docById.put(message.id, doc);
+
+            Set<String> terms = new LinkedHashSet<>();
+            addTerms(message.subject, "", terms);
+            addTerms(message.bodyPreview, "", terms);
+            if (message.from != null && message.from.emailAddress != null) {
+                addTerms(message.from.emailAddress.address, "", terms);
+                addTerms(message.from.emailAddress.address, SENDER_PREFIX, terms);
+                addTerms(message.from.emailAddress.name, "", terms);
+                addTerms(message.from.emailAddress.name, SENDER_PREFIX, terms);
+            }
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new Postings()).add(doc);
+            }
+
+            int removed = docCount - docById.size();
+            if (docById.size() > maxMessages || removed > Math.max(32, docById.size())) {
+                compact(maxMessages);
+            }
+        }
+
+        void remove(String messageId) {
+            Integer doc = docById.remove(messageId);
+            if (doc != null) {
+                deleted.set(doc);
+                docs[doc] = null;
+            }
+        }
+
+        /**
+         * Rebuild the index from the newest live messages, dropping deleted documents. An index
+         * over its size keeps 90% of it, so the next few additions do not rebuild it again.
+         */
+        private void compact(int maxMessages) {
+            List<Message> live = new ArrayList<>(docById.size());
+            for (int doc : docById.values()) {
+                live.add(docs[doc]);
+            }
+            live.sort(NEWEST_FIRST);
+            int keep = live.size() > maxMessages ? Math.max(1, maxMessages - maxMessages / 10) : live.size();
+            List<Message> kept = live.subList(0, keep);
+            postings.clear();
+            docById.clear();
+            deleted.clear();
+            docs = new Message[Math.max(64, kept.size() * 2)];
+            docCount = 0;
+            for (int i = kept.size() - 1; i >= 0; i--) {
+                add(kept.get(i), Integer.MAX_VALUE);
+            }
+        }
+
+        List<Message> search(Set<String> terms, int limit) {
+            List<Message> matches = new ArrayList<>();
+            if (terms.isEmpty()) {
+                matches.addAll(Arrays.asList(docs).subList(0, docCount));
+                matches.removeIf(message -> message == null);
+            } else {
+                List<Postings> lists = new ArrayList<>(terms.size());
+                for (String term : terms) {
+                    Postings list = postings.get(term);
+                    if (list == null) {
+                        return List.of();
+                    }
+                    lists.add(list);
+                }
+                lists.sort(Comparator.comparingInt(list -> list.count));
+                int[] result = lists.get(0).decode();
+                int size = result.length;
+                for (int i = 1; i < lists.size() && size > 0; i++) {
+                    size = intersect(result, size, lists.get(i).decode());
+                }
+                for (int i = 0; i < size; i++) {
+                    if (!deleted.get(result[i])) {
+                        matches.add(docs[result[i]]);
+                    }
+                }
+            }
+            matches.sort(NEWEST_FIRST);
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        }
+
+        /**
+         * Keep the first {@code size} documents of the sorted array that also occur in the
+         * other sorted array, in place, and return how many are left
+         */
+        private static int intersect(int[] docs, int size, int[] other) {
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < size && j < other.length; i++) {
+                while (j < other.length && other[j] < docs[i]) {
+                    j++;
+                }
+                if (j < other.length && other[j] == docs[i]) {
+                    docs[kept++] = docs[i];
+                }
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * Ascending document numbers, each stored as the varint-encoded gap to the previous one
+     */
+    private static final class Postings {
+        private byte[] data = new byte[4];
+        private int length;
+        private int count;
+        private int last;
+
+        void add(int doc) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            int gap = doc - last;
+            while ((gap & ~0x7F) != 0) {
+                data[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+            last = doc;
+            count++;
+        }
+
+        int[] decode() {
+            int[] docs = new int[count];
+            int doc = 0;
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += gap;
+                docs[i] = doc;
+            }
+            return docs;
+        }
+    }
+}
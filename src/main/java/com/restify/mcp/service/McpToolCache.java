@@ -0,0 +1,35 @@
+package com.restify.mcp.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the results of an @McpTool method. McpToolService keys each result on the tool,
+ * its canonicalized arguments and the caller's access token, and keeps it serialized, so a
+ * repeated call skips argument binding and invocation. Failed and streamed calls are not
+ * cached, and a result never outlives the token's "exp" claim.
+ * Settings can be overridden under "mcp.tools.per-tool.&lt;toolName&gt;.cache-*".
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface McpToolCache {
+
+    /**
+     * Time-to-live of a cached result, e.g. "10m"
+     */
+    String ttl();
+
+    /**
+     * Maximum number of results kept
+     */
+    int maxEntries() default 1000;
+
+    /**
+     * Maximum total size of the serialized results kept, e.g. "16MB"
+     */
+    String maxSize() default "16MB";
+}
@@ -1,16 +1,42 @@
 package com.restify.mcp.service;
 
+import com.restify.mcp.config.McpToolProperties;
+import com.restify.mcp.dto.ToolResult;
+import com.restify.mcp.metrics.McpMetrics;
 import com.restify.mcp.tool.HelloTool;
 import com.restify.mcp.tool.OutlookMailTool;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service to manage and invoke MCP tools.
@@ -20,13 +46,37 @@ import java.util.*;
 public class McpToolService {
 
     private static final Logger logger = LoggerFactory.getLogger(McpToolService.class);
-    private final Map<String, ToolInfo> tools = new HashMap<>();
+    private static final Map<Class<?>, String> JSON_SCHEMA_TYPES = Map.ofEntries(
+            Map.entry(String.class, "string"),
+            Map.entry(int.class, "integer"),
+            Map.entry(Integer.class, "integer"),
+            Map.entry(long.class, "integer"),
+            Map.entry(Long.class, "integer"),
+            Map.entry(double.class, "number"),
+            Map.entry(Double.class, "number"),
+            Map.entry(float.class, "number"),
+            Map.entry(Float.class, "number"),
+            Map.entry(boolean.class, "boolean"),
+            Map.entry(Boolean.class, "boolean"));
+
+    private final Map<String, ToolInfo> tools = new LinkedHashMap<>();
+    private final ConcurrentHashMap<String, InFlightCall> inFlightCalls = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper;
+    private final ToolExecutor toolExecutor;
+    private final McpMetrics metrics;
+    private final McpToolProperties properties;
+    private RawValue toolsList;
+    private String toolsListEtag;
 
-    public McpToolService(HelloTool helloTool, OutlookMailTool outlookMailTool, ObjectMapper objectMapper) {
+    public McpToolService(HelloTool helloTool, OutlookMailTool outlookMailTool, ObjectMapper objectMapper,
+                          ToolExecutor toolExecutor, McpMetrics metrics, McpToolProperties properties) {
         this.objectMapper = objectMapper;
+        this.toolExecutor = toolExecutor;
+        this.metrics = metrics;
+        this.properties = properties;
         registerTool(helloTool);
         registerTool(outlookMailTool);
+        cacheToolsList();
         logger.info("Registered {} MCP tools", tools.size());
     }
 
@@ -51,24 +101,50 @@ public class McpToolService {
                 toolInfo.setDescription(description);
                 toolInfo.setInstance(toolInstance);
                 toolInfo.setMethod(method);
+                toolInfo.setInvoker(createInvoker(toolInstance, method));
+                toolInfo.setLimits(toolExecutor.createLimits(toolName));
+                toolInfo.setMeters(metrics.registerTool(toolName));
+                McpToolProperties.ToolSettings settings = this.properties.forTool(toolName);
+                toolInfo.setResultCache(ToolResultCache.create(toolName, method.getAnnotation(McpToolCache.class),
+                        settings, metrics));
+                toolInfo.setCoalesced(settings.getCoalesce());
                 
-                // Extract parameter information
-                List<Map<String, Object>> parameters = new ArrayList<>();
+                // Extract parameter information into the inputSchema
+                Map<String, Object> properties = new LinkedHashMap<>();
+                List<String> required = new ArrayList<>();
                 Parameter[] params = method.getParameters();
-                for (Parameter param : params) {
-                    Map<String, Object> paramInfo = new HashMap<>();
-                    paramInfo.put("name", param.getName());
-                    paramInfo.put("type", param.getType().getSimpleName());
-                    
+                Map<String, ArgumentBinder> binders = new HashMap<>();
+                List<ArgumentBinder> requiredBinders = new ArrayList<>();
+                int contextIndex = -1;
+                for (int i = 0; i < params.length; i++) {
+                    Parameter param = params[i];
+                    if (param.getType() == ToolContext.class) {
+                        // Injected per call, not part of the inputSchema
+                        contextIndex = i;
+                        continue;
+                    }
+                    ArgumentBinder binder = createBinder(i, param);
+                    binders.put(param.getName(), binder);
+                    // Only primitives have no null to stand for a missing argument; boxed types are optional
+                    if (param.getType().isPrimitive()) {
+                        requiredBinders.add(binder);
+                        required.add(param.getName());
+                    }
+
+                    Map<String, Object> property = new LinkedHashMap<>();
+                    addSchemaType(property, param);
                     if (param.isAnnotationPresent(org.springaicommunity.mcp.annotation.McpToolParam.class)) {
                         org.springaicommunity.mcp.annotation.McpToolParam paramAnnotation = 
                             param.getAnnotation(org.springaicommunity.mcp.annotation.McpToolParam.class);
-                        paramInfo.put("description", paramAnnotation.description());
+                        property.put("description", paramAnnotation.description());
                     }
-                    
-                    parameters.add(paramInfo);
+                    properties.put(param.getName(), Collections.unmodifiableMap(property));
                 }
-                toolInfo.setParameters(parameters);
+                toolInfo.setParameterCount(params.length);
+                toolInfo.setContextIndex(contextIndex);
+                toolInfo.setBinders(binders);
+                toolInfo.setRequiredBinders(requiredBinders.toArray(new ArgumentBinder[0]));
+                toolInfo.setDescriptor(createToolDescriptor(toolName, description, properties, required));
                 
                 tools.put(toolName, toolInfo);
                 logger.debug("Registered tool: {} - {}", toolName, description);
@@ -76,186 +152,445 @@ public class McpToolService {
         }
     }
 
+    /**
+     * Put the JSON schema type of a parameter into its property. Collections and arrays
+     * become "array" with the schema type of their elements; anything unknown is a string.
+     */
+    private void addSchemaType(Map<String, Object> property, Parameter param) {
+        JavaType type = objectMapper.getTypeFactory().constructType(param.getParameterizedType());
+        if (type.isCollectionLikeType() || type.isArrayType()) {
+            Class<?> elementType = type.getContentType().getRawClass();
+            property.put("type", "array");
+            property.put("items", Map.of("type", JSON_SCHEMA_TYPES.getOrDefault(elementType, "string")));
+        } else {
+            property.put("type", JSON_SCHEMA_TYPES.getOrDefault(param.getType(), "string"));
+        }
+    }
+
+    /**
+     * Compile a tool method into a MethodHandle invoker bound to its instance.
+     * The handle is adapted to (Object[]) -> Object so every tool shares the same call shape.
+     */
+    private MethodHandle createInvoker(Object toolInstance, Method method) {
+        try {
+            return MethodHandles.publicLookup()
+                    .unreflect(method)
+                    .bindTo(toolInstance)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Tool method '" + method.getName() + "' is not accessible", e);
+        }
+    }
+
+    /**
+     * Create the argument binder for a single tool parameter.
+     * Type dispatch happens once here, so binding a call only runs the selected reader.
+     */
+    private ArgumentBinder createBinder(int index, Parameter param) {
+        return new ArgumentBinder(index, param.getName(), createReader(param));
+    }
+
+    /**
+     * Select the streaming reader for the parameter type. Scalars are read straight from
+     * the current token; everything else is bound by a pre-resolved ObjectReader for the
+     * full generic parameter type, without building a JsonNode tree.
+     */
+    private ArgumentReader createReader(Parameter param) {
+        Class<?> targetType = param.getType();
+        String paramName = param.getName();
+        if (targetType == String.class) {
+            return scalarReader(paramName, JsonParser::getValueAsString);
+        } else if (targetType == Integer.class || targetType == int.class) {
+            return scalarReader(paramName, JsonParser::getValueAsInt);
+        } else if (targetType == Long.class || targetType == long.class) {
+            return scalarReader(paramName, JsonParser::getValueAsLong);
+        } else if (targetType == Double.class || targetType == double.class) {
+            return scalarReader(paramName, JsonParser::getValueAsDouble);
+        } else if (targetType == Boolean.class || targetType == boolean.class) {
+            return scalarReader(paramName, JsonParser::getValueAsBoolean);
+        } else {
+            // Bind using Jackson, e.g. List<String>, Map or a POJO
+            JavaType javaType = objectMapper.getTypeFactory().constructType(param.getParameterizedType());
+            ObjectReader reader = objectMapper.readerFor(javaType);
+            return parser -> {
+                try {
+                    return reader.readValue(parser);
+                } catch (JsonMappingException e) {
+                    throw new IllegalArgumentException(
+                        "Invalid value for parameter '" + paramName + "': " + e.getOriginalMessage(), e);
+                }
+            };
+        }
+    }
+
+    private ArgumentReader scalarReader(String paramName, ArgumentReader reader) {
+        return parser -> {
+            if (!parser.currentToken().isScalarValue()) {
+                throw new IllegalArgumentException("Parameter '" + paramName + "' must be a scalar value");
+            }
+            return reader.read(parser);
+        };
+    }
+
     /**
      * Call a tool by name with arguments
      */
     public Object callTool(String toolName, JsonNode arguments) throws Exception {
+        return callTool(toolName, arguments, ToolContext.NONE);
+    }
+
+    /**
+     * Call a tool by name with an arguments tree, passing the context to tools that declare it
+     */
+    public Object callTool(String toolName, JsonNode arguments, ToolContext context) throws Exception {
+        try (JsonParser parser = arguments.traverse(objectMapper)) {
+            parser.nextToken();
+            return callTool(toolName, parser, context);
+        }
+    }
+
+    /**
+     * Call a tool by name, binding its arguments straight from a JSON parser.
+     * Each argument is read into its parameter type as it is encountered; unknown
+     * fields are skipped without being materialized.
+     *
+     * @param toolName  name of the registered tool
+     * @param arguments parser positioned on the arguments object, or null for no arguments
+     * @param context   context injected into tools that declare a ToolContext parameter
+     */
+    public Object callTool(String toolName, JsonParser arguments, ToolContext context) throws Exception {
+        try {
+            return callToolAsync(toolName, arguments, context).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Call a tool by name without waiting for its result. Arguments are bound before this
+     * method returns, so the parser may be closed right after; invalid arguments are thrown
+     * as IllegalArgumentException. Tools may return a CompletionStage or a reactive-streams
+     * Publisher, which are completed without holding a thread while the tool waits.
+     *
+     * @param toolName  name of the registered tool
+     * @param arguments parser positioned on the arguments object, or null for no arguments
+     * @param context   context injected into tools that declare a ToolContext parameter
+     * @return future completed with the MCP tool result
+     */
+    public CompletableFuture<Object> callToolAsync(String toolName, JsonParser arguments, ToolContext context)
+            throws Exception {
         ToolInfo toolInfo = tools.get(toolName);
         if (toolInfo == null) {
             throw new IllegalArgumentException("Tool '" + toolName + "' not found");
         }
 
-        Method method = toolInfo.getMethod();
-        Parameter[] parameters = method.getParameters();
-        Object[] args = new Object[parameters.length];
+        McpMetrics.ToolMeters meters = toolInfo.getMeters();
+        long start = meters.start();
+        CompletableFuture<Object> result;
+        try {
+            // Streamed calls send their content as notifications to one client, which a shared
+            // or cached result cannot replay
+            boolean shared = (toolInfo.getResultCache() != null || toolInfo.isCoalesced())
+                    && (context == null || !context.isStreaming());
+            result = shared ? callShared(toolInfo, arguments, context) : bindAndInvoke(toolInfo, arguments, context);
+        } catch (Exception | Error e) {
+            meters.stop(start, false);
+            throw e;
+        }
+        return result.whenComplete((value, error) -> meters.stop(start, error == null));
+    }
 
-        // Map JSON arguments to method parameters
-        for (int i = 0; i < parameters.length; i++) {
-            Parameter param = parameters[i];
-            String paramName = param.getName();
-            Class<?> paramType = param.getType();
+    /**
+     * Answer a call from the tool's result cache, or join an equal call that is in flight, or
+     * invoke the tool. Calls are equal when their ToolCallKey is. The arguments are read into
+     * a tree once, to compute the key and to bind them when the tool is invoked. Calls sharing
+     * an invocation share its result, serialized once, and its failure.
+     * The in-flight map is only touched to claim and release a key, never while the tool runs.
+     */
+    private CompletableFuture<Object> callShared(ToolInfo toolInfo, JsonParser arguments, ToolContext context)
+            throws Exception {
+        JsonNode tree = arguments != null && arguments.currentToken() != null ? objectMapper.readTree(arguments) : null;
+        if (tree != null && !tree.isObject() && !tree.isNull()) {
+            throw new IllegalArgumentException("Tool arguments must be a JSON object");
+        }
+        String accessToken = context != null ? context.getAccessToken() : null;
+        String key = ToolCallKey.of(toolInfo.getName(), tree, toolInfo.getBinders().keySet(), accessToken, objectMapper);
+        ToolResultCache resultCache = toolInfo.getResultCache();
+        if (resultCache != null) {
+            RawValue cached = resultCache.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        if (!toolInfo.isCoalesced()) {
+            return invokeWithTree(toolInfo, tree, context)
+                    .thenApply(value -> serialize(value, resultCache, key, accessToken));
+        }
+
+        // Joining counts in the same atomic step as the lookup, so an owner that has removed
+        // its call from the map sees every call that joined it
+        InFlightCall call = new InFlightCall();
+        InFlightCall inFlight = inFlightCalls.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return call;
+            }
+            existing.joined.incrementAndGet();
+            return existing;
+        });
+        if (inFlight != call) {
+            toolInfo.getMeters().coalesced();
+            // A copy, so a caller cancelling its future does not cancel the shared call
+            return inFlight.result.copy();
+        }
+        CompletableFuture<Object> result;
+        try {
+            result = invokeWithTree(toolInfo, tree, context);
+        } catch (Exception | Error e) {
+            inFlightCalls.remove(key, call);
+            call.result.completeExceptionally(e);
+            throw e;
+        }
+        result.whenComplete((value, error) -> {
+            inFlightCalls.remove(key, call);
+            if (error != null) {
+                call.result.completeExceptionally(error);
+            } else if (resultCache != null || call.joined.get() > 0) {
+                call.result.complete(serialize(value, resultCache, key, accessToken));
+            } else {
+                call.result.complete(value);
+            }
+        });
+        return call.result.copy();
+    }
+
+    private CompletableFuture<Object> invokeWithTree(ToolInfo toolInfo, JsonNode arguments, ToolContext context)
+            throws Exception {
+        try (JsonParser parser = arguments != null ? arguments.traverse(objectMapper) : null) {
+            if (parser != null) {
+                parser.nextToken();
+            }
+            return bindAndInvoke(toolInfo, parser, context);
+        }
+    }
 
-            JsonNode argValue = arguments.has(paramName) ? arguments.get(paramName) : null;
+    /**
+     * Serialize a result once for every caller sharing it, and cache it if the tool has a
+     * result cache. Returns the result itself if it cannot be serialized.
+     */
+    private Object serialize(Object result, ToolResultCache resultCache, String key, String accessToken) {
+        SerializedString json;
+        try {
+            json = new SerializedString(objectMapper.writeValueAsString(result));
+        } catch (JsonProcessingException e) {
+            // Left to the response writer, which reports the failure
+            return result;
+        }
+        RawValue serialized = new RawValue(json);
+        if (resultCache != null) {
+            // The UTF-8 bytes are kept by the SerializedString and copied straight into responses
+            resultCache.put(key, accessToken, serialized, json.asUnquotedUTF8().length);
+        }
+        return serialized;
+    }
 
-            if (argValue == null || argValue.isNull()) {
-                // Handle optional parameters - use default value if primitive, null otherwise
-                if (paramType.isPrimitive()) {
-                    throw new IllegalArgumentException("Required parameter '" + paramName + "' is missing");
+    private CompletableFuture<Object> bindAndInvoke(ToolInfo toolInfo, JsonParser arguments, ToolContext context)
+            throws Exception {
+        // Map JSON arguments to method parameters
+        Object[] args = new Object[toolInfo.getParameterCount()];
+        if (toolInfo.getContextIndex() >= 0) {
+            args[toolInfo.getContextIndex()] = context;
+        }
+        JsonToken token = arguments != null ? arguments.currentToken() : null;
+        if (token == JsonToken.START_OBJECT) {
+            Map<String, ArgumentBinder> binders = toolInfo.getBinders();
+            while (arguments.nextToken() == JsonToken.FIELD_NAME) {
+                ArgumentBinder binder = binders.get(arguments.currentName());
+                JsonToken valueToken = arguments.nextToken();
+                if (binder == null) {
+                    arguments.skipChildren();
+                } else if (valueToken != JsonToken.VALUE_NULL) {
+                    args[binder.index] = binder.reader.read(arguments);
                 }
-                args[i] = null;
-            } else {
-                args[i] = convertJsonNodeToType(argValue, paramType);
+            }
+        } else if (token != null && token != JsonToken.VALUE_NULL) {
+            throw new IllegalArgumentException("Tool arguments must be a JSON object");
+        }
+        // Handle optional parameters - primitives are required, everything else may stay null
+        for (ArgumentBinder binder : toolInfo.getRequiredBinders()) {
+            if (args[binder.index] == null) {
+                throw new IllegalArgumentException("Required parameter '" + binder.name + "' is missing");
             }
         }
 
-        // Invoke the method
-        Object result = method.invoke(toolInfo.getInstance(), args);
-        
-        // Format result according to MCP protocol
-        return formatToolResult(result);
+        // Invoke the method within the tool's concurrency limit and timeout
+        MethodHandle invoker = toolInfo.getInvoker();
+        return toolExecutor.executeAsync(toolInfo.getLimits(), () -> toStage(invoke(invoker, args), context))
+                // Format result according to MCP protocol
+                .thenApply(this::formatToolResult);
     }
 
     /**
-     * Convert JsonNode to the required parameter type
+     * Adapt a tool's return value to a completion stage. A CompletionStage is used as is;
+     * the items of a Publisher are collected into a list, or sent as content notifications
+     * when the call is streamed, in which case the result only reports their count.
      */
-    private Object convertJsonNodeToType(JsonNode node, Class<?> targetType) {
-        if (node.isNull()) {
-            return null;
+    private static CompletionStage<?> toStage(Object result, ToolContext context) {
+        if (result instanceof CompletionStage) {
+            return (CompletionStage<?>) result;
         }
+        if (result instanceof Publisher) {
+            return collect((Publisher<?>) result, context);
+        }
+        return CompletableFuture.completedFuture(result);
+    }
 
-        if (targetType == String.class) {
-            return node.asText();
-        } else if (targetType == Integer.class || targetType == int.class) {
-            return node.asInt();
-        } else if (targetType == Long.class || targetType == long.class) {
-            return node.asLong();
-        } else if (targetType == Double.class || targetType == double.class) {
-            return node.asDouble();
-        } else if (targetType == Boolean.class || targetType == boolean.class) {
-            return node.asBoolean();
-        } else if (List.class.isAssignableFrom(targetType)) {
-            return objectMapper.convertValue(node, List.class);
-        } else if (Map.class.isAssignableFrom(targetType)) {
-            return objectMapper.convertValue(node, Map.class);
-        } else {
-            // Try to convert using Jackson
-            return objectMapper.convertValue(node, targetType);
+    private static CompletableFuture<Object> collect(Publisher<?> publisher, ToolContext context) {
+        CompletableFuture<Object> collected = new CompletableFuture<>();
+        boolean streaming = context != null && context.isStreaming();
+        publisher.subscribe(new Subscriber<Object>() {
+            private final List<Object> items = new ArrayList<>();
+            private long count;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Object item) {
+                count++;
+                if (streaming) {
+                    context.sendContent(item);
+                } else {
+                    items.add(item);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                collected.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                collected.complete(streaming ? Map.of("count", count, "streamed", true) : items);
+            }
+        });
+        return collected;
+    }
+
+    /**
+     * Invoke a compiled tool handle, rethrowing tool exceptions unwrapped
+     */
+    private Object invoke(MethodHandle invoker, Object[] args) throws Exception {
+        try {
+            return (Object) invoker.invokeExact(args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
         }
     }
 
     /**
      * Format tool result according to MCP protocol
-     * MCP expects result.content array with text items
+     * MCP expects result.content array with text items. Non-string results are serialized
+     * to their JSON text only when the response is written.
      */
     private Object formatToolResult(Object result) {
-        Map<String, Object> mcpResult = new HashMap<>();
-        List<Map<String, Object>> content = new ArrayList<>();
-        
-        Map<String, Object> contentItem = new HashMap<>();
-        contentItem.put("type", "text");
-        
-        if (result instanceof String) {
-            contentItem.put("text", result);
-        } else {
-            // Convert complex objects to JSON string
-            try {
-                contentItem.put("text", objectMapper.writeValueAsString(result));
-            } catch (Exception e) {
-                contentItem.put("text", result.toString());
-            }
+        return ToolResult.of(result);
+    }
+
+    /**
+     * Build the immutable tools/list entry for a tool. Computed once at registration.
+     */
+    private Map<String, Object> createToolDescriptor(String name, String description,
+                                                     Map<String, Object> properties, List<String> required) {
+        // Always include inputSchema, even if empty
+        Map<String, Object> inputSchema = new LinkedHashMap<>();
+        inputSchema.put("type", "object");
+        inputSchema.put("properties", Collections.unmodifiableMap(properties));
+        if (!required.isEmpty()) {
+            inputSchema.put("required", List.copyOf(required));
         }
-        
-        content.add(contentItem);
-        mcpResult.put("content", content);
-        
-        return mcpResult;
+
+        Map<String, Object> tool = new LinkedHashMap<>();
+        tool.put("name", name);
+        tool.put("description", description);
+        tool.put("inputSchema", Collections.unmodifiableMap(inputSchema));
+        return Collections.unmodifiableMap(tool);
     }
 
     /**
-     * List all available tools
+     * Serialize the tools/list result once. The UTF-8 bytes are kept in a SerializedString,
+     * which Jackson copies straight into the response, and its hash is used as the ETag.
      */
-    public Object listTools() {
+    private void cacheToolsList() {
         List<Map<String, Object>> toolsList = new ArrayList<>();
-        
         for (ToolInfo toolInfo : tools.values()) {
-            Map<String, Object> tool = new HashMap<>();
-            tool.put("name", toolInfo.getName());
-            tool.put("description", toolInfo.getDescription());
-            
-            // Always include inputSchema, even if empty
-            Map<String, Object> inputSchema = new HashMap<>();
-            inputSchema.put("type", "object");
-            
-            if (toolInfo.getParameters() != null && !toolInfo.getParameters().isEmpty()) {
-                inputSchema.put("properties", createPropertiesFromParameters(toolInfo.getParameters()));
-                // Add required array for non-nullable parameters
-                List<String> required = new ArrayList<>();
-                for (Map<String, Object> param : toolInfo.getParameters()) {
-                    String paramName = (String) param.get("name");
-                    String paramType = (String) param.get("type");
-                    // Primitive types are required
-                    if (paramType != null && (paramType.equals("int") || paramType.equals("Integer") ||
-                            paramType.equals("long") || paramType.equals("Long") ||
-                            paramType.equals("double") || paramType.equals("Double") ||
-                            paramType.equals("float") || paramType.equals("Float") ||
-                            paramType.equals("boolean") || paramType.equals("Boolean"))) {
-                        required.add(paramName);
-                    }
-                }
-                if (!required.isEmpty()) {
-                    inputSchema.put("required", required);
-                }
-            } else {
-                inputSchema.put("properties", new HashMap<>());
-            }
-            
-            tool.put("inputSchema", inputSchema);
-            toolsList.add(tool);
-        }
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("tools", toolsList);
-        return result;
+            toolsList.add(toolInfo.getDescriptor());
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(Map.of("tools", toolsList));
+            SerializedString serialized = new SerializedString(new String(json, StandardCharsets.UTF_8));
+            this.toolsList = new RawValue(serialized);
+            this.toolsListEtag = "\"" + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(MessageDigest.getInstance("SHA-256").digest(json)) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to serialize tools list", e);
+        }
     }
 
     /**
-     * Create properties map from parameter list for inputSchema
+     * List all available tools.
+     * Returns the pre-serialized result, which serializes as raw JSON without rebuilding anything.
      */
-    private Map<String, Object> createPropertiesFromParameters(List<Map<String, Object>> parameters) {
-        Map<String, Object> properties = new HashMap<>();
-        for (Map<String, Object> param : parameters) {
-            Map<String, Object> prop = new HashMap<>();
-            prop.put("type", mapJavaTypeToJsonType((String) param.get("type")));
-            if (param.containsKey("description")) {
-                prop.put("description", param.get("description"));
-            }
-            properties.put((String) param.get("name"), prop);
-        }
-        return properties;
+    public Object listTools() {
+        return toolsList;
+    }
+
+    /**
+     * Strong ETag of the tools/list result, stable for the lifetime of the registered tools
+     */
+    public String getToolsListEtag() {
+        return toolsListEtag;
+    }
+
+    /**
+     * Reads one argument value from the parser's current token
+     */
+    @FunctionalInterface
+    private interface ArgumentReader {
+        Object read(JsonParser parser) throws IOException;
     }
 
     /**
-     * Map Java type to JSON schema type
+     * Binds a named JSON argument to a method parameter position
      */
-    private String mapJavaTypeToJsonType(String javaType) {
-        switch (javaType.toLowerCase()) {
-            case "string":
-                return "string";
-            case "integer":
-            case "int":
-                return "integer";
-            case "long":
-                return "integer";
-            case "double":
-            case "float":
-                return "number";
-            case "boolean":
-                return "boolean";
-            default:
-                return "string";
+    private static final class ArgumentBinder {
+        private final int index;
+        private final String name;
+        private final ArgumentReader reader;
+
+        private ArgumentBinder(int index, String name, ArgumentReader reader) {
+            this.index = index;
+            this.name = name;
+            this.reader = reader;
         }
     }
 
+    /**
+     * Invocation shared by equal calls, and how many calls joined it after it started
+     */
+    private static final class InFlightCall {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicInteger joined = new AtomicInteger();
+    }
+
     /**
      * Internal class to store tool information
      */
@@ -264,7 +599,16 @@ public class McpToolService {
         private String description;
         private Object instance;
         private Method method;
-        private List<Map<String, Object>> parameters;
+        private MethodHandle invoker;
+        private ToolExecutor.ToolLimits limits;
+        private McpMetrics.ToolMeters meters;
+        private ToolResultCache resultCache;
+        private boolean coalesced;
+        private int parameterCount;
+        private int contextIndex;
+        private Map<String, ArgumentBinder> binders;
+        private ArgumentBinder[] requiredBinders;
+        private Map<String, Object> descriptor;
 
         public String getName() {
             return name;
@@ -298,12 +642,84 @@ public class McpToolService {
             this.method = method;
         }
 
-        public List<Map<String, Object>> getParameters() {
-            return parameters;
+        public MethodHandle getInvoker() {
+            return invoker;
+        }
+
+        public void setInvoker(MethodHandle invoker) {
+            this.invoker = invoker;
+        }
+
+        public ToolExecutor.ToolLimits getLimits() {
+            return limits;
+        }
+
+        public void setLimits(ToolExecutor.ToolLimits limits) {
+            this.limits = limits;
+        }
+
+        public McpMetrics.ToolMeters getMeters() {
+            return meters;
+        }
+
+        public void setMeters(McpMetrics.ToolMeters meters) {
+            this.meters = meters;
+        }
+
+        public ToolResultCache getResultCache() {
+            return resultCache;
+        }
+
+        public void setResultCache(ToolResultCache resultCache) {
+            this.resultCache = resultCache;
+        }
+
+        public boolean isCoalesced() {
+            return coalesced;
+        }
+
+        public void setCoalesced(boolean coalesced) {
+            this.coalesced = coalesced;
+        }
+
+        public int getParameterCount() {
+            return parameterCount;
+        }
+
+        public void setParameterCount(int parameterCount) {
+            this.parameterCount = parameterCount;
+        }
+
+        public int getContextIndex() {
+            return contextIndex;
+        }
+
+        public void setContextIndex(int contextIndex) {
+            this.contextIndex = contextIndex;
+        }
+
+        public Map<String, ArgumentBinder> getBinders() {
+            return binders;
+        }
+
+        public void setBinders(Map<String, ArgumentBinder> binders) {
+            this.binders = binders;
+        }
+
+        public ArgumentBinder[] getRequiredBinders() {
+            return requiredBinders;
+        }
+
+        public void setRequiredBinders(ArgumentBinder[] requiredBinders) {
+            this.requiredBinders = requiredBinders;
+        }
+
+        public Map<String, Object> getDescriptor() {
+            return descriptor;
         }
 
-        public void setParameters(List<Map<String, Object>> parameters) {
-            this.parameters = parameters;
+        public void setDescriptor(Map<String, Object> descriptor) {
+            this.descriptor = descriptor;
         }
     }
 }
@@ -0,0 +1,430 @@
+package com.restify.mcp.service;
+
+/**
+ * Processing applied to a message body before it is returned: HTML-to-text extraction,
+ * quoted-reply stripping and truncation.
+ * The conversion runs in a single pass over the content without building a DOM. Tags are
+ * dropped, block elements become line breaks, entities are decoded and whitespace is
+ * collapsed. Once the quoted thread of a reply starts, or the text reaches the maximum
+ * length, the rest of the content is not even looked at.
+ */
+public final class MessageBodyFilter {
+
+    /**
+     * The body exactly as Graph returned it
+     */
+    public static final MessageBodyFilter ORIGINAL = new MessageBodyFilter(false, true, 0);
+
+    /**
+     * Appended to a body that was cut at the maximum length
+     */
+    static final String TRUNCATED_MARKER = "\n[truncated]";
+
+    /**
+     * Attribute values marking the start of a quoted thread in HTML replies from Outlook,
+     * Gmail, Yahoo and Thunderbird
+     */
+    private static final String[] QUOTE_MARKERS = {
+            "divRplyFwdMsg", "appendonsend", "gmail_quote", "yahoo_quoted", "moz-cite-prefix", "type=\"cite\""};
+
+    private final boolean text;
+    private final boolean includeQuotedReplies;
+    private final int maxLength;
+
+    private MessageBodyFilter(boolean text, boolean includeQuotedReplies, int maxLength) {
+        this.text = text;
+        this.includeQuotedReplies = includeQuotedReplies;
+        this.maxLength = Math.max(0, maxLength);
+    }
+
+    /**
+     * Filter for a body format and options
+     *
+     * @param format               "text" for plain text extracted from the body, or "original"
+     *                             for the body as Graph returned it
+     * @param includeQuotedReplies Whether to keep the quoted thread of a reply; only applies to "text"
+     * @param maxLength            Maximum number of characters of the body, or 0 for no limit
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    public static MessageBodyFilter of(String format, boolean includeQuotedReplies, int maxLength) {
+        if ("text".equalsIgnoreCase(format)) {
+            return new MessageBodyFilter(true, includeQuotedReplies, maxLength);
+        }
+        if ("original".equalsIgnoreCase(format)) {
+            return maxLength <= 0 ? ORIGINAL : new MessageBodyFilter(false, true, maxLength);
+        }
+        throw new IllegalArgumentException("Unknown body format '" + format + "'; available formats: text, original");
+    }
+
+    /**
+     * Process a message body
+     *
+     * @param content The body content, may be null
+     * @param html    Whether the content is HTML rather than plain text
+     * @return The processed body, or an empty string if there is none
+     */
+    public String apply(String content, boolean html) {
+        if (content == null || content.isEmpty()) {
+            return "";
+        }
+        if (!text) {
+            if (maxLength <= 0 || content.length() <= maxLength) {
+                return content;
+            }
+            // Never cut between the two halves of a surrogate pair
+            int end = Character.isHighSurrogate(content.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+            return content.substring(0, end) + TRUNCATED_MARKER;
+        }
+        TextSink sink = new TextSink(!includeQuotedReplies, maxLength,
+                Math.min(content.length(), maxLength > 0 ? maxLength : Integer.MAX_VALUE));
+        if (html) {
+            extractHtml(content, sink);
+        } else {
+            extractText(content, sink);
+        }
+        return sink.finish();
+    }
+
+    private static void extractText(String content, TextSink sink) {
+        for (int i = 0; i < content.length() && !sink.isDone(); i++) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                sink.newline();
+            } else if (c != '\r') {
+                sink.append(c);
+            }
+        }
+    }
+
+    private void extractHtml(String content, TextSink sink) {
+        int length = content.length();
+        int i = 0;
+        while (i < length && !sink.isDone()) {
+            char c = content.charAt(i);
+            if (c == '&') {
+                i = decodeEntity(content, i, sink);
+            } else if (c == '<' && i + 1 < length && isTagStart(content.charAt(i + 1))) {
+                i = handleTag(content, i, sink);
+            } else {
+                sink.append(c);
+                i++;
+            }
+        }
+    }
+
+    private static boolean isTagStart(char c) {
+        return Character.isLetter(c) || c == '/' || c == '!' || c == '?';
+    }
+
+    /**
+     * Act on the tag starting at {@code start} and return the index after it
+     */
+    private int handleTag(String content, int start, TextSink sink) {
+        if (content.startsWith("<!--", start)) {
+            int end = content.indexOf("-->", start + 4);
+            return end < 0 ? content.length() : end + 3;
+        }
+        int end = tagEnd(content, start + 1);
+        boolean closing = content.charAt(start + 1) == '/';
+        int nameStart = closing ? start + 2 : start + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < end && Character.isLetterOrDigit(content.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        String name = content.substring(nameStart, nameEnd).toLowerCase();
+
+        if (!closing && !includeQuotedReplies && isQuoteStart(content, start, end)) {
+            sink.stop();
+            return content.length();
+        }
+        switch (name) {
+            case "script", "style", "head", "title" -> {
+                if (closing) {
+                    break;
+                }
+                int close = indexOfIgnoreCase(content, "</" + name, end);
+                return close < 0 ? content.length() : tagEnd(content, close + 2) + 1;
+            }
+            case "br" -> sink.newline();
+            case "p", "h1", "h2", "h3", "h4", "h5", "h6", "table", "ul", "ol", "blockquote", "pre" -> sink.paragraph();
+            case "div", "tr", "hr", "dt", "dd", "section", "article", "header", "footer" -> sink.lineBreak();
+            case "li" -> {
+                sink.lineBreak();
+                if (!closing) {
+                    sink.append('-');
+                    sink.append(' ');
+                }
+            }
+            case "td", "th" -> sink.append(' ');
+            default -> {
+            }
+        }
+        return end < content.length() ? end + 1 : end;
+    }
+
+    /**
+     * Index of the '>' closing a tag, skipping quoted attribute values, or the content length
+     */
+    private static int tagEnd(String content, int from) {
+        char quote = 0;
+        for (int i = from; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return content.length();
+    }
+
+    private static boolean isQuoteStart(String content, int start, int end) {
+        for (String marker : QUOTE_MARKERS) {
+            if (indexOfIgnoreCase(content, marker, start, end) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOfIgnoreCase(String content, String needle, int from) {
+        return indexOfIgnoreCase(content, needle, from, content.length());
+    }
+
+    private static int indexOfIgnoreCase(String content, String needle, int from, int to) {
+        for (int i = from; i <= to - needle.length(); i++) {
+            if (content.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decode the character reference starting at {@code start} and return the index after it.
+     * Anything that is not a known reference is kept as a literal '&'.
+     */
+    private static int decodeEntity(String content, int start, TextSink sink) {
+        int semicolon = -1;
+        for (int i = start + 1; i < Math.min(content.length(), start + 12); i++) {
+            char c = content.charAt(i);
+            if (c == ';') {
+                semicolon = i;
+                break;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '#') {
+                break;
+            }
+        }
+        int codePoint = semicolon > start + 1 ? entityCodePoint(content.substring(start + 1, semicolon)) : -1;
+        if (codePoint < 0) {
+            sink.append('&');
+            return start + 1;
+        }
+        if (Character.isBmpCodePoint(codePoint)) {
+            sink.append((char) codePoint);
+        } else {
+            sink.append(Character.highSurrogate(codePoint));
+            sink.append(Character.lowSurrogate(codePoint));
+        }
+        return semicolon + 1;
+    }
+
+    private static int entityCodePoint(String entity) {
+        if (entity.charAt(0) == '#') {
+            try {
+                int codePoint = entity.length() > 1 && (entity.charAt(1) == 'x' || entity.charAt(1) == 'X')
+                        ? Integer.parseInt(entity.substring(2), 16) : Integer.parseInt(entity.substring(1));
+                return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return switch (entity) {
+            case "amp" -> '&';
+            case "lt" -> '<';
+            case "gt" -> '>';
+            case "quot" -> '"';
+            case "apos" -> '\'';
+            case "nbsp" -> '\u00a0';
+            case "ndash" -> '\u2013';
+            case "mdash" -> '\u2014';
+            case "lsquo" -> '\u2018';
+            case "rsquo" -> '\u2019';
+            case "ldquo" -> '\u201c';
+            case "rdquo" -> '\u201d';
+            case "hellip" -> '\u2026';
+            case "bull" -> '\u2022';
+            case "copy" -> '\u00a9';
+            case "reg" -> '\u00ae';
+            case "euro" -> '\u20ac';
+            default -> -1;
+        };
+    }
+
+    /**
+     * Collects the extracted text: collapses whitespace, keeps at most one blank line,
+     * detects the header lines that introduce a quoted reply and stops at the maximum length.
+     */
+    private static final class TextSink {
+        private final boolean stripQuotedReplies;
+        private final int maxLength;
+        private final StringBuilder out;
+        private int lineStart;
+        private int fromLineStart = -1;
+        private boolean pendingSpace;
+        private boolean done;
+        private boolean truncated;
+
+        private TextSink(boolean stripQuotedReplies, int maxLength, int capacity) {
+            this.stripQuotedReplies = stripQuotedReplies;
+            this.maxLength = maxLength;
+            this.out = new StringBuilder(capacity);
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        void stop() {
+            done = true;
+        }
+
+        void append(char c) {
+            if (done) {
+                return;
+            }
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                pendingSpace = out.length() > lineStart;
+                return;
+            }
+            if (pendingSpace) {
+                pendingSpace = false;
+                put(' ');
+            }
+            put(c);
+        }
+
+        private void put(char c) {
+            if (maxLength > 0 && out.length() >= maxLength) {
+                // Never cut between the two halves of a surrogate pair
+                if (Character.isHighSurrogate(out.charAt(out.length() - 1))) {
+                    out.setLength(out.length() - 1);
+                }
+                truncated = true;
+                done = true;
+                return;
+            }
+            out.append(c);
+        }
+
+        /**
+         * End the current line, keeping at most one blank line in a row
+         */
+        void newline() {
+            if (done) {
+                return;
+            }
+            pendingSpace = false;
+            if (stripQuotedReplies && endsQuotedReplyHeader()) {
+                done = true;
+                return;
+            }
+            int length = out.length();
+            if (length == lineStart) {
+                fromLineStart = -1;
+            }
+            boolean blankLineBefore = length >= 2 && out.charAt(length - 1) == '\n' && out.charAt(length - 2) == '\n';
+            if (length == 0 || blankLineBefore || (maxLength > 0 && length >= maxLength)) {
+                return;
+            }
+            put('\n');
+            lineStart = out.length();
+        }
+
+        /**
+         * End the current line unless it is empty
+         */
+        void lineBreak() {
+            if (out.length() > lineStart) {
+                newline();
+            }
+        }
+
+        /**
+         * End the current line and leave a blank line after it
+         */
+        void paragraph() {
+            lineBreak();
+            newline();
+        }
+
+        /**
+         * Whether the line just finished starts a quoted reply. The text from the start of
+         * that reply header on is dropped.
+         */
+        private boolean endsQuotedReplyHeader() {
+            int length = out.length();
+            if (length == lineStart) {
+                return false;
+            }
+            if (out.charAt(lineStart) == '>'
+                    || startsWith("-----Original Message-----")
+                    || (startsWith("On ") && endsWith("wrote:"))
+                    || isSeparator()) {
+                out.setLength(lineStart);
+                return true;
+            }
+            if (fromLineStart >= 0 && (startsWith("Sent:") || startsWith("Date:"))) {
+                out.setLength(fromLineStart);
+                return true;
+            }
+            fromLineStart = startsWith("From:") ? lineStart : -1;
+            return false;
+        }
+
+        private boolean startsWith(String prefix) {
+            return out.length() - lineStart >= prefix.length()
+                    && out.substring(lineStart, lineStart + prefix.length()).equalsIgnoreCase(prefix);
+        }
+
+        private boolean endsWith(String suffix) {
+            return out.length() - lineStart >= suffix.length()
+                    && out.substring(out.length() - suffix.length()).equalsIgnoreCase(suffix);
+        }
+
+        /**
+         * Outlook's plain-text reply separator, a line of underscores
+         */
+        private boolean isSeparator() {
+            if (out.length() - lineStart < 10) {
+                return false;
+            }
+            for (int i = lineStart; i < out.length(); i++) {
+                if (out.charAt(i) != '_') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String finish() {
+            if (!done && stripQuotedReplies) {
+                endsQuotedReplyHeader();
+            }
+            int end = out.length();
+            while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+                end--;
+            }
+            out.setLength(end);
+            if (truncated) {
+                out.append(TRUNCATED_MARKER);
+            }
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.dto.Email;
+import com.restify.mcp.dto.EmailDetail;
+import com.restify.mcp.dto.EmailSummary;
+import com.restify.mcp.dto.PartialEmail;
+import com.microsoft.graph.models.BodyType;
+import com.microsoft.graph.models.Message;
+import com.microsoft.graph.models.Recipient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The set of fields returned for a message, and the Graph $select clause that fetches
+ * exactly the properties those fields are built from. Graph then leaves out everything
+ * else, such as headers and HTML bodies that would only be discarded.
+ * The default projections build EmailSummary and EmailDetail records; other field subsets
+ * build a PartialEmail. The body is passed through a MessageBodyFilter.
+ */
+public final class MessageProjection {
+
+    private static final Map<String, Field> FIELDS = new LinkedHashMap<>();
+
+    static {
+        field("id", "id", message -> text(message.id));
+        field("subject", "subject", message -> text(message.subject));
+        field("from", "from", MessageProjection::from);
+        field("to", "toRecipients", MessageProjection::to);
+        field("receivedDateTime", "receivedDateTime", message -> message.receivedDateTime != null
+                ? message.receivedDateTime.toString() : "");
+        FIELDS.put("body", new Field("body", "body", MessageProjection::body));
+        field("bodyPreview", "bodyPreview", message -> text(message.bodyPreview));
+        field("isRead", "isRead", message -> Boolean.TRUE.equals(message.isRead));
+        field("hasAttachments", "hasAttachments", message -> Boolean.TRUE.equals(message.hasAttachments));
+    }
+
+    /**
+     * Fields returned for each message of a listing
+     */
+    public static final MessageProjection SUMMARY = new MessageProjection(List.of(
+            "id", "subject", "from", "receivedDateTime", "bodyPreview", "isRead", "hasAttachments"),
+            (message, bodyFilter) -> new EmailSummary(text(message.id), text(message.subject), from(message),
+                    message.receivedDateTime, text(message.bodyPreview),
+                    Boolean.TRUE.equals(message.isRead), Boolean.TRUE.equals(message.hasAttachments)));
+
+    /**
+     * Fields returned for a single message
+     */
+    public static final MessageProjection DETAIL = new MessageProjection(List.of(
+            "id", "subject", "from", "to", "receivedDateTime", "body", "bodyPreview", "isRead", "hasAttachments"),
+            (message, bodyFilter) -> new EmailDetail(text(message.id), text(message.subject), from(message), to(message),
+                    message.receivedDateTime, body(message, bodyFilter),
+                    text(message.bodyPreview),
+                    Boolean.TRUE.equals(message.isRead), Boolean.TRUE.equals(message.hasAttachments)));
+
+    private final List<String> names;
+    private final List<Field> fields;
+    private final Set<String> graphProperties;
+    private final String select;
+    private final BiFunction<Message, MessageBodyFilter, Email> factory;
+
+    private MessageProjection(List<String> names, BiFunction<Message, MessageBodyFilter, Email> factory) {
+        this.names = List.copyOf(names);
+        this.fields = new ArrayList<>(names.size());
+        for (String name : names) {
+            Field field = FIELDS.get(name);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'; available fields: "
+                        + String.join(", ", FIELDS.keySet()));
+            }
+            fields.add(field);
+        }
+        this.graphProperties = fields.stream().map(field -> field.graphProperty).collect(Collectors.toCollection(LinkedHashSet::new));
+        this.select = String.join(",", graphProperties);
+        this.factory = factory != null ? factory : this::partial;
+    }
+
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String from(Message message) {
+        return message.from != null && message.from.emailAddress != null
+                ? text(message.from.emailAddress.address) : "";
+    }
+
+    private static String to(Message message) {
+        if (message.toRecipients == null || message.toRecipients.isEmpty()) {
+            return "";
+        }
+        if (message.toRecipients.size() == 1) {
+            return recipient(message.toRecipients.get(0));
+        }
+        StringBuilder to = new StringBuilder();
+        for (Recipient recipient : message.toRecipients) {
+            if (to.length() > 0) {
+                to.append(", ");
+            }
+            to.append(recipient(recipient));
+        }
+        return to.toString();
+    }
+
+    private static String body(Message message, MessageBodyFilter bodyFilter) {
+        return message.body != null
+                ? bodyFilter.apply(message.body.content, message.body.contentType != BodyType.TEXT) : "";
+    }
+
+    private static String recipient(Recipient recipient) {
+        return recipient.emailAddress != null ? text(recipient.emailAddress.address) : "";
+    }
+
+    private static void field(String name, String graphProperty, Function<Message, Object> extractor) {
+        FIELDS.put(name, new Field(name, graphProperty, (message, bodyFilter) -> extractor.apply(message)));
+    }
+
+    /**
+     * Projection for the fields a caller asked for, or the default when none were given
+     *
+     * @throws IllegalArgumentException if a field name is unknown
+     */
+    public static MessageProjection of(List<String> fieldNames, MessageProjection defaultProjection) {
+        if (fieldNames == null || fieldNames.isEmpty() || fieldNames.equals(defaultProjection.names)) {
+            return defaultProjection;
+        }
+        if (fieldNames.equals(SUMMARY.names)) {
+            return SUMMARY;
+        }
+        if (fieldNames.equals(DETAIL.names)) {
+            return DETAIL;
+        }
+        return new MessageProjection(fieldNames.stream().distinct().collect(Collectors.toList()), null);
+    }
+
+    /**
+     * Graph $select clause covering all fields of the projection
+     */
+    public String select() {
+        return select;
+    }
+
+    public List<String> fieldNames() {
+        return names;
+    }
+
+    /**
+     * Whether messages fetched with the other projection's $select have every property this one needs
+     */
+    public boolean isCoveredBy(MessageProjection other) {
+        return other.graphProperties.containsAll(graphProperties);
+    }
+
+    /**
+     * Build the output of a message with its body as Graph returned it
+     *
+     * @see #apply(Message, MessageBodyFilter)
+     */
+    public Email apply(Message message) {
+        return apply(message, MessageBodyFilter.ORIGINAL);
+    }
+
+    /**
+     * Build the output of a message: a record for the default projections, otherwise the
+     * fields in projection order
+     *
+     * @param bodyFilter Processing applied to the body, if the projection has one
+     */
+    public Email apply(Message message, MessageBodyFilter bodyFilter) {
+        return factory.apply(message, bodyFilter);
+    }
+
+    private Email partial(Message message, MessageBodyFilter bodyFilter) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Field field : fields) {
+            result.put(field.name, field.extractor.apply(message, bodyFilter));
+        }
+        return new PartialEmail(result);
+    }
+
+    private static final class Field {
+        private final String name;
+        private final String graphProperty;
+        private final BiFunction<Message, MessageBodyFilter, Object> extractor;
+
+        private Field(String name, String graphProperty, BiFunction<Message, MessageBodyFilter, Object> extractor) {
+            this.name = name;
+            this.graphProperty = graphProperty;
+            this.extractor = extractor;
+        }
+    }
+}
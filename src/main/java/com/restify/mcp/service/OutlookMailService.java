@@ -1,18 +1,37 @@
 package com.restify.mcp.service;
 
+import com.restify.mcp.dto.Email;
+import com.restify.mcp.dto.PartialEmail;
+import com.microsoft.graph.core.CustomRequestBuilder;
+import com.microsoft.graph.models.Attachment;
 import com.microsoft.graph.models.Message;
-import com.microsoft.graph.models.User;
+import com.microsoft.graph.options.QueryOption;
+import com.microsoft.graph.requests.AttachmentCollectionPage;
+import com.microsoft.graph.requests.AttachmentCollectionRequestBuilder;
 import com.microsoft.graph.requests.GraphServiceClient;
 import com.microsoft.graph.requests.MessageCollectionPage;
+import com.microsoft.graph.requests.MessageCollectionRequest;
+import com.microsoft.graph.requests.MessageCollectionRequestBuilder;
 import okhttp3.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -26,6 +45,11 @@ public class OutlookMailService {
 
     private static final Logger log = LoggerFactory.getLogger(OutlookMailService.class);
 
+    /**
+     * Attachment metadata; contentBytes is left out so listings never carry attachment content
+     */
+    private static final String ATTACHMENT_FIELDS = "id,name,contentType,size,isInline";
+
     @Value("${outlook.client-id:}")
     private String clientId;
 
@@ -35,10 +59,38 @@ public class OutlookMailService {
     @Value("${outlook.tenant-id:}")
     private String tenantId;
 
+    @Value("${outlook.mail.page-size:50}")
+    private int pageSize = 50;
+
+    @Value("${outlook.mail.query.max-scanned:1000}")
+    private int maxScanned = 1000;
+
+    @Value("${outlook.mail.attachment.chunk-size:48KB}")
+    private DataSize attachmentChunkSize = DataSize.ofKilobytes(48);
+
+    @Value("${outlook.mail.body.format:text}")
+    private String bodyFormat = "text";
+
+    @Value("${outlook.mail.body.include-quoted-replies:false}")
+    private boolean includeQuotedReplies = false;
+
+    @Value("${outlook.mail.body.max-length:20000}")
+    private int bodyMaxLength = 20000;
+
     private final GraphClientFactory graphClientFactory;
+    private final MailboxCache mailboxCache;
+    private final GraphBatchCoalescer batchCoalescer;
+    private final UserProfileCache userProfileCache;
+    private final MailboxSearchIndex searchIndex;
 
-    public OutlookMailService(GraphClientFactory graphClientFactory) {
+    public OutlookMailService(GraphClientFactory graphClientFactory, MailboxCache mailboxCache,
+                              GraphBatchCoalescer batchCoalescer, UserProfileCache userProfileCache,
+                              MailboxSearchIndex searchIndex) {
         this.graphClientFactory = graphClientFactory;
+        this.mailboxCache = mailboxCache;
+        this.batchCoalescer = batchCoalescer;
+        this.userProfileCache = userProfileCache;
+        this.searchIndex = searchIndex;
     }
 
     /**
@@ -51,51 +103,356 @@ public class OutlookMailService {
      * @throws IllegalArgumentException if access token is null or empty
      * @throws RuntimeException         if email retrieval fails
      */
-    public List<Map<String, Object>> readEmails(String accessToken, Integer maxResults, String folderId) {
+    public List<Email> readEmails(String accessToken, Integer maxResults, String folderId) {
+        return readEmails(accessToken, maxResults, folderId, MessageProjection.SUMMARY);
+    }
+
+    /**
+     * Read emails from Outlook mailbox, fetching and returning only the projected fields.
+     *
+     * @param accessToken The Microsoft Graph access token
+     * @param maxResults  Maximum number of emails to retrieve (default: 10)
+     * @param folderId    Optional folder ID (default: inbox)
+     * @param projection  Fields to return for each email
+     * @return List of email messages
+     * @throws IllegalArgumentException if access token is null or empty
+     * @throws RuntimeException         if email retrieval fails
+     */
+    public List<Email> readEmails(String accessToken, Integer maxResults, String folderId,
+                                  MessageProjection projection) {
+        return readEmails(accessToken, maxResults, folderId, projection, MailQuery.ALL);
+    }
+
+    /**
+     * Read the emails of a mailbox folder that match a query, fetching and returning only the projected fields.
+     *
+     * @param accessToken The Microsoft Graph access token
+     * @param maxResults  Maximum number of emails to retrieve (default: 10)
+     * @param folderId    Optional folder ID (default: inbox)
+     * @param projection  Fields to return for each email
+     * @param query       Conditions the emails must meet
+     * @return List of email messages
+     * @throws IllegalArgumentException if access token is null or empty
+     * @throws RuntimeException         if email retrieval fails
+     */
+    public List<Email> readEmails(String accessToken, Integer maxResults, String folderId,
+                                  MessageProjection projection, MailQuery query) {
+        return await(readEmailsAsync(accessToken, maxResults, folderId, projection, query));
+    }
+
+    /**
+     * Read the emails of a mailbox folder that match a query without blocking the calling
+     * thread while Graph answers. Pages are requested one after the other as each arrives.
+     * When the mailbox cache serves the folder, its delta sync is requested asynchronously too.
+     *
+     * @return Future of the email messages, failing with a RuntimeException if email retrieval fails
+     * @throws IllegalArgumentException if access token is null or empty
+     * @see #readEmails(String, Integer, String, MessageProjection, MailQuery)
+     */
+    public CompletableFuture<List<Email>> readEmailsAsync(String accessToken, Integer maxResults, String folderId,
+                                                          MessageProjection projection, MailQuery query) {
         if (accessToken == null || accessToken.isEmpty()) {
             throw new IllegalArgumentException("Access token is required");
         }
 
+        int limit = maxResults != null ? maxResults : 10;
+        String mailFolder = folderId != null ? folderId : "inbox";
+        CompletableFuture<List<Email>> done;
         try {
             GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
-            int limit = maxResults != null ? maxResults : 10;
-            String mailFolder = folderId != null ? folderId : "inbox";
+            done = readCached(accessToken, graphClient, mailFolder, limit, projection, query)
+                    .thenCompose(cached -> {
+                        if (cached == null) {
+                            return listFromGraph(accessToken, graphClient, mailFolder, limit, projection, query);
+                        }
+                        List<Email> emails = new ArrayList<>(cached.size());
+                        for (Message message : cached) {
+                            emails.add(projection.apply(message));
+                        }
+                        return CompletableFuture.completedFuture(emails);
+                    });
+        } catch (Exception e) {
+            log.error("Error reading emails: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to read emails: " + e.getMessage(), e);
+        }
+        return done
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    log.error("Error reading emails: {}", cause.getMessage(), cause);
+                    throw new CompletionException(
+                            new RuntimeException("Failed to read emails: " + cause.getMessage(), cause));
+                });
+    }
 
-            MessageCollectionPage messages = graphClient
-                    .me()
-                    .mailFolders(mailFolder)
-                    .messages()
-                    .buildRequest()
-                    .top(limit)
-                    .orderBy("receivedDateTime desc")
-                    .get();
-
-            List<Map<String, Object>> emailList = new ArrayList<>();
-            
-            if (messages != null && messages.getCurrentPage() != null) {
-                for (Message message : messages.getCurrentPage()) {
-                    Map<String, Object> email = Map.of(
-                            "id", message.id != null ? message.id : "",
-                            "subject", message.subject != null ? message.subject : "",
-                            "from", message.from != null && message.from.emailAddress != null 
-                                    ? message.from.emailAddress.address : "",
-                            "receivedDateTime", message.receivedDateTime != null 
-                                    ? message.receivedDateTime.toString() : "",
-                            "bodyPreview", message.bodyPreview != null ? message.bodyPreview : "",
-                            "isRead", message.isRead != null ? message.isRead : false,
-                            "hasAttachments", message.hasAttachments != null ? message.hasAttachments : false
-                    );
-                    emailList.add(email);
+    /**
+     * Folder listing from Graph, page after page until limit emails match
+     */
+    private CompletableFuture<List<Email>> listFromGraph(String accessToken, GraphServiceClient<Request> graphClient,
+                                                         String mailFolder, int limit, MessageProjection projection,
+                                                         MailQuery query) {
+        List<Email> emails = new ArrayList<>();
+        Predicate<Message> clientFilter = query.clientFilter();
+        boolean indexed = searchIndex.isEnabled() && MailboxSearchIndex.INDEXED_FIELDS.isCoveredBy(projection);
+        return forEachMessagePage(listRequest(graphClient, mailFolder, limit, projection, query).getAsync(),
+                clientFilter != null ? maxScanned : limit, messages -> {
+                    if (indexed) {
+                        searchIndex.update(accessToken, messages);
+                    }
+                    addMatching(messages, clientFilter, projection, limit, emails);
+                    return emails.size() < limit;
+                })
+                .thenApply(finished -> emails);
+    }
+
+    /**
+     * Read emails page by page, following @odata.nextLink until maxResults emails were read.
+     * Each page is handed to the consumer as soon as it arrives while the next page is
+     * already being fetched, so no more than two pages are held in memory.
+     * When the mailbox cache can answer, the emails come from memory instead. Pages fetched
+     * from Graph with all indexed fields are added to the search index.
+     *
+     * @param accessToken  The Microsoft Graph access token
+     * @param maxResults   Maximum number of emails to retrieve (default: 10)
+     * @param folderId     Optional folder ID (default: inbox)
+     * @param projection   Fields to fetch and return for each email
+     * @param pageConsumer Receives each page of email messages
+     * @return Number of emails read
+     * @throws IllegalArgumentException if access token is null or empty
+     * @throws RuntimeException         if email retrieval fails
+     */
+    public int forEachEmailPage(String accessToken, Integer maxResults, String folderId, MessageProjection projection,
+                                Consumer<List<Email>> pageConsumer) {
+        return forEachEmailPage(accessToken, maxResults, folderId, projection, MailQuery.ALL, pageConsumer);
+    }
+
+    /**
+     * Read the emails matching a query page by page. The query is pushed down to Graph as far
+     * as Graph allows; conditions it cannot apply are checked on each page as it arrives, and
+     * at most {@code outlook.mail.query.max-scanned} messages are then looked at.
+     * Only listings without conditions are served by the mailbox cache.
+     *
+     * @param query        Conditions the emails must meet
+     * @see #forEachEmailPage(String, Integer, String, MessageProjection, Consumer)
+     */
+    public int forEachEmailPage(String accessToken, Integer maxResults, String folderId, MessageProjection projection,
+                                MailQuery query, Consumer<List<Email>> pageConsumer) {
+        if (accessToken == null || accessToken.isEmpty()) {
+            throw new IllegalArgumentException("Access token is required");
+        }
+
+        int limit = maxResults != null ? maxResults : 10;
+        String mailFolder = folderId != null ? folderId : "inbox";
+        try {
+            GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
+            List<Message> cached = await(readCached(accessToken, graphClient, mailFolder, limit, projection, query));
+            if (cached != null) {
+                for (int from = 0; from < cached.size(); from += pageSize) {
+                    List<Email> emails = new ArrayList<>();
+                    for (Message message : cached.subList(from, Math.min(from + pageSize, cached.size()))) {
+                        emails.add(projection.apply(message));
+                    }
+                    pageConsumer.accept(emails);
                 }
+                return cached.size();
             }
 
-            return emailList;
+            Predicate<Message> clientFilter = query.clientFilter();
+            CompletableFuture<MessageCollectionPage> firstPage =
+                    listRequest(graphClient, mailFolder, limit, projection, query).getAsync();
+
+            boolean indexed = searchIndex.isEnabled() && MailboxSearchIndex.INDEXED_FIELDS.isCoveredBy(projection);
+            int count = 0;
+            try (GraphPageIterator<Message, MessageCollectionPage> pages = new GraphPageIterator<>(firstPage,
+                    OutlookMailService::fetchNextPage, clientFilter != null ? maxScanned : limit)) {
+                while (pages.hasNext() && count < limit) {
+                    List<Message> messages = pages.next();
+                    if (indexed) {
+                        searchIndex.update(accessToken, messages);
+                    }
+                    List<Email> emails = new ArrayList<>(messages.size());
+                    addMatching(messages, clientFilter, projection, limit - count, emails);
+                    if (!emails.isEmpty()) {
+                        pageConsumer.accept(emails);
+                        count += emails.size();
+                    }
+                }
+            }
+            return count;
         } catch (Exception e) {
             log.error("Error reading emails: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to read emails: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Future of the newest messages of the folder from the mailbox cache, or of null when the
+     * cache cannot answer. Only listings without conditions whose fields the cache holds are served.
+     */
+    private CompletableFuture<List<Message>> readCached(String accessToken, GraphServiceClient<Request> graphClient,
+                                                        String mailFolder, int limit, MessageProjection projection,
+                                                        MailQuery query) {
+        if (query.isEmpty() && mailboxCache.isEnabled() && projection.isCoveredBy(MailboxCache.CACHED_FIELDS)) {
+            return mailboxCache.readAsync(accessToken, graphClient, mailFolder, limit);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Request for the first page of a folder listing, with the query pushed down as far as Graph allows
+     */
+    private MessageCollectionRequest listRequest(GraphServiceClient<Request> graphClient, String mailFolder, int limit,
+                                                 MessageProjection projection, MailQuery query) {
+        List<QueryOption> options = query.search() != null
+                ? List.of(new QueryOption("$search", query.search())) : List.of();
+        MessageCollectionRequest request = graphClient
+                .me()
+                .mailFolders(mailFolder)
+                .messages()
+                .buildRequest(options)
+                .select(query.select(projection))
+                .top(Math.max(1, Math.min(query.clientFilter() != null ? maxScanned : limit, pageSize)));
+        if (query.filter() != null) {
+            request.filter(query.filter());
+        }
+        if (query.orderBy() != null) {
+            request.orderBy(query.orderBy());
+        }
+        return request;
+    }
+
+    /**
+     * Project the messages passing the client-side filter into emails, until it holds limit emails
+     */
+    private static void addMatching(List<Message> messages, Predicate<Message> clientFilter,
+                                    MessageProjection projection, int limit, List<Email> emails) {
+        for (Message message : messages) {
+            if (emails.size() >= limit) {
+                break;
+            }
+            if (clientFilter == null || clientFilter.test(message)) {
+                emails.add(projection.apply(message));
+            }
+        }
+    }
+
+    /**
+     * Search the mailbox for emails matching keywords and a sender.
+     * Searches are answered from the local search index, built from the messages listings
+     * have fetched, when it has at least maxResults hits. For a mailbox with a cold index, or
+     * fewer indexed hits, Graph's $search runs the query instead.
+     *
+     * @param accessToken The Microsoft Graph access token
+     * @param query       Keywords, all of which must occur in the subject, sender or body preview
+     * @param sender      Optional sender address or name
+     * @param maxResults  Maximum number of emails to return (default: 10)
+     * @return Matching emails, newest first when they come from the index
+     * @throws IllegalArgumentException if access token is null or empty, or neither query nor sender is given
+     * @throws RuntimeException         if the Graph search fails
+     */
+    public List<Email> searchEmails(String accessToken, String query, String sender, Integer maxResults) {
+        return await(searchEmailsAsync(accessToken, query, sender, maxResults));
+    }
+
+    /**
+     * Search the mailbox without blocking the calling thread while Graph answers.
+     *
+     * @return Future of the matching emails, failing with a RuntimeException if the Graph search fails
+     * @throws IllegalArgumentException if access token is null or empty, or neither query nor sender is given
+     * @see #searchEmails(String, String, String, Integer)
+     */
+    public CompletableFuture<List<Email>> searchEmailsAsync(String accessToken, String query, String sender,
+                                                            Integer maxResults) {
+        if (accessToken == null || accessToken.isEmpty()) {
+            throw new IllegalArgumentException("Access token is required");
+        }
+        boolean hasQuery = query != null && !query.isBlank();
+        boolean hasSender = sender != null && !sender.isBlank();
+        if (!hasQuery && !hasSender) {
+            throw new IllegalArgumentException("A query or sender is required");
+        }
+
+        int limit = maxResults != null ? maxResults : 10;
+        List<Message> indexed = searchIndex.search(accessToken, query, sender, limit);
+        CompletableFuture<List<Message>> messages = indexed != null ? CompletableFuture.completedFuture(indexed)
+                : searchGraph(accessToken, hasQuery ? query.trim() : null, hasSender ? sender.trim() : null, limit);
+        return messages.thenApply(found -> {
+            List<Email> emails = new ArrayList<>(found.size());
+            for (Message message : found) {
+                emails.add(MailboxSearchIndex.INDEXED_FIELDS.apply(message));
+            }
+            return emails;
+        });
+    }
+
+    private CompletableFuture<List<Message>> searchGraph(String accessToken, String query, String sender, int limit) {
+        String search = MailQuery.searchExpression(query, sender);
+        List<Message> messages = new ArrayList<>();
+        CompletableFuture<Void> done;
+        try {
+            GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
+            CompletableFuture<MessageCollectionPage> firstPage = graphClient
+                    .me()
+                    .messages()
+                    .buildRequest(List.of(new QueryOption("$search", search)))
+                    .select(MailboxSearchIndex.INDEXED_FIELDS.select())
+                    .top(Math.max(1, Math.min(limit, pageSize)))
+                    .getAsync();
+            done = forEachMessagePage(firstPage, limit, page -> {
+                messages.addAll(page);
+                return true;
+            });
+        } catch (Exception e) {
+            log.error("Error searching emails: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to search emails: " + e.getMessage(), e);
+        }
+        return done
+                .thenApply(finished -> messages)
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    log.error("Error searching emails: {}", cause.getMessage(), cause);
+                    throw new CompletionException(
+                            new RuntimeException("Failed to search emails: " + cause.getMessage(), cause));
+                });
+    }
+
+    /**
+     * Walk the pages of a message collection without blocking, following @odata.nextLink.
+     * The next page is requested before the current one is handed to the consumer, so it
+     * downloads while the page is processed. Stops after limit messages, or once the
+     * consumer returns false.
+     */
+    private static CompletableFuture<Void> forEachMessagePage(CompletableFuture<MessageCollectionPage> page,
+                                                              int limit, Predicate<List<Message>> pageConsumer) {
+        if (limit <= 0) {
+            page.cancel(true);
+            return CompletableFuture.completedFuture(null);
+        }
+        return page.thenCompose(current -> {
+            List<Message> messages = current != null && current.getCurrentPage() != null
+                    ? current.getCurrentPage() : List.of();
+            if (messages.size() > limit) {
+                messages = messages.subList(0, limit);
+            }
+            int remaining = limit - messages.size();
+            CompletableFuture<MessageCollectionPage> next = current != null && remaining > 0
+                    ? fetchNextPage(current) : null;
+            if (!pageConsumer.test(messages)) {
+                if (next != null) {
+                    next.cancel(true);
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+            return next != null
+                    ? forEachMessagePage(next, remaining, pageConsumer)
+                    : CompletableFuture.<Void>completedFuture(null);
+        });
+    }
+
+    private static CompletableFuture<MessageCollectionPage> fetchNextPage(MessageCollectionPage page) {
+        MessageCollectionRequestBuilder nextPage = page.getNextPage();
+        return nextPage != null ? nextPage.buildRequest().getAsync() : null;
+    }
+
     /**
      * Read a specific email from Outlook by its message ID.
      *
@@ -105,49 +462,127 @@ public class OutlookMailService {
      * @throws IllegalArgumentException if access token is null or empty
      * @throws RuntimeException         if email retrieval fails or message not found
      */
-    public Map<String, Object> readEmailById(String accessToken, String messageId) {
+    public Email readEmailById(String accessToken, String messageId) {
+        return readEmailById(accessToken, messageId, MessageProjection.DETAIL);
+    }
+
+    /**
+     * Read a specific email from Outlook by its message ID, fetching and returning only the projected fields.
+     * Concurrent reads for the same token are coalesced into Graph $batch requests. The body is
+     * processed with the configured defaults, see {@link #bodyFilter(String, Boolean, Integer)}.
+     *
+     * @param accessToken The Microsoft Graph access token
+     * @param messageId   The ID of the message to retrieve
+     * @param projection  Fields to return
+     * @return Email message details
+     * @throws IllegalArgumentException if access token is null or empty
+     * @throws RuntimeException         if email retrieval fails or message not found
+     */
+    public Email readEmailById(String accessToken, String messageId, MessageProjection projection) {
+        return await(readEmailByIdAsync(accessToken, messageId, projection, bodyFilter(null, null, null)));
+    }
+
+    /**
+     * Body processing for a call: each option the caller left out takes its configured default
+     *
+     * @param format               "text" or "original", see {@link MessageBodyFilter#of(String, boolean, int)}
+     * @param includeQuotedReplies Whether to keep the quoted thread of a reply
+     * @param maxLength            Maximum number of characters of the body, or 0 for no limit
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    public MessageBodyFilter bodyFilter(String format, Boolean includeQuotedReplies, Integer maxLength) {
+        return MessageBodyFilter.of(format != null ? format : bodyFormat,
+                includeQuotedReplies != null ? includeQuotedReplies : this.includeQuotedReplies,
+                maxLength != null ? maxLength : bodyMaxLength);
+    }
+
+    /**
+     * Read a specific email from Outlook by its message ID without blocking the calling thread.
+     * Concurrent reads for the same token are coalesced into Graph $batch requests.
+     *
+     * @param accessToken The Microsoft Graph access token
+     * @param messageId   The ID of the message to retrieve
+     * @param projection  Fields to return
+     * @param bodyFilter  Processing applied to the body
+     * @return Future of the email message details, failing with a RuntimeException if email
+     *         retrieval fails or the message is not found
+     * @throws IllegalArgumentException if access token is null or empty
+     */
+    public CompletableFuture<Email> readEmailByIdAsync(String accessToken, String messageId,
+                                                       MessageProjection projection, MessageBodyFilter bodyFilter) {
         if (accessToken == null || accessToken.isEmpty()) {
             throw new IllegalArgumentException("Access token is required");
         }
 
-        try {
-            GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
-            Message message = graphClient
-                    .me()
-                    .messages(messageId)
-                    .buildRequest()
-                    .get();
+        GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
+        return batchCoalescer.getMessage(accessToken, graphClient, messageId, projection)
+                .handle((message, error) -> {
+                    if (error == null && message == null) {
+                        error = new RuntimeException("Message not found: " + messageId);
+                    }
+                    if (error != null) {
+                        Throwable cause = unwrap(error);
+                        log.error("Error reading email by ID: {}", cause.getMessage(), cause);
+                        throw new CompletionException(
+                                new RuntimeException("Failed to read email: " + cause.getMessage(), cause));
+                    }
+                    return projection.apply(message, bodyFilter);
+                });
+    }
 
-            if (message == null) {
-                throw new RuntimeException("Message not found: " + messageId);
-            }
+    /**
+     * Read several emails by their message IDs with as few Graph round trips as possible:
+     * the reads are sent as Graph $batch requests of up to 20 messages each.
+     * A message that cannot be read does not fail the others; its entry carries the
+     * message ID and an error instead.
+     *
+     * @param accessToken The Microsoft Graph access token
+     * @param messageIds  The IDs of the messages to retrieve
+     * @param projection  Fields to return for each email
+     * @return Email message details, in the order of the IDs
+     * @throws IllegalArgumentException if access token is null or empty
+     */
+    public List<Email> readEmailsByIds(String accessToken, List<String> messageIds,
+                                       MessageProjection projection) {
+        return await(readEmailsByIdsAsync(accessToken, messageIds, projection, bodyFilter(null, null, null)));
+    }
 
-            return Map.of(
-                    "id", message.id != null ? message.id : "",
-                    "subject", message.subject != null ? message.subject : "",
-                    "from", message.from != null && message.from.emailAddress != null 
-                            ? message.from.emailAddress.address : "",
-                    "to", message.toRecipients != null && !message.toRecipients.isEmpty()
-                            ? message.toRecipients.stream()
-                                    .map(r -> r.emailAddress != null ? r.emailAddress.address : "")
-                                    .collect(Collectors.joining(", "))
-                            : "",
-                    "receivedDateTime", message.receivedDateTime != null 
-                            ? message.receivedDateTime.toString() : "",
-                    "body", message.body != null && message.body.content != null 
-                            ? message.body.content : "",
-                    "bodyPreview", message.bodyPreview != null ? message.bodyPreview : "",
-                    "isRead", message.isRead != null ? message.isRead : false,
-                    "hasAttachments", message.hasAttachments != null ? message.hasAttachments : false
-            );
-        } catch (Exception e) {
-            log.error("Error reading email by ID: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to read email: " + e.getMessage(), e);
+    /**
+     * Read several emails by their message IDs without blocking the calling thread.
+     *
+     * @param bodyFilter Processing applied to each body
+     * @see #readEmailsByIds(String, List, MessageProjection)
+     */
+    public CompletableFuture<List<Email>> readEmailsByIdsAsync(String accessToken, List<String> messageIds,
+                                                               MessageProjection projection,
+                                                               MessageBodyFilter bodyFilter) {
+        if (accessToken == null || accessToken.isEmpty()) {
+            throw new IllegalArgumentException("Access token is required");
+        }
+
+        GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
+        List<CompletableFuture<Message>> futures = batchCoalescer.getMessages(accessToken, graphClient,
+                messageIds, projection);
+        List<CompletableFuture<Email>> emails = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            String messageId = messageIds.get(i);
+            emails.add(futures.get(i).handle((message, error) -> {
+                if (error == null) {
+                    return projection.apply(message, bodyFilter);
+                }
+                Throwable cause = unwrap(error);
+                log.warn("Error reading email {}: {}", messageId, cause.getMessage());
+                return PartialEmail.failed(messageId, cause.getMessage());
+            }));
         }
+        return CompletableFuture.allOf(emails.toArray(new CompletableFuture[0]))
+                .thenApply(done -> emails.stream().map(CompletableFuture::join).collect(Collectors.toList()));
     }
 
     /**
      * Get user profile information from Microsoft Graph.
+     * Profiles are cached per token until the token expires, and concurrent calls for the
+     * same token share one Graph request.
      *
      * @param accessToken The Microsoft Graph access token
      * @return User profile information including id, displayName, mail, and userPrincipalName
@@ -155,23 +590,208 @@ public class OutlookMailService {
      * @throws RuntimeException         if user profile retrieval fails
      */
     public Map<String, Object> getUserProfile(String accessToken) {
+        return await(getUserProfileAsync(accessToken));
+    }
+
+    /**
+     * Get user profile information from Microsoft Graph without blocking the calling thread.
+     *
+     * @see #getUserProfile(String)
+     */
+    public CompletableFuture<Map<String, Object>> getUserProfileAsync(String accessToken) {
+        if (accessToken == null || accessToken.isEmpty()) {
+            throw new IllegalArgumentException("Access token is required");
+        }
+
+        return userProfileCache.get(accessToken, () -> fetchUserProfile(accessToken))
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    log.error("Error getting user profile: {}", cause.getMessage(), cause);
+                    throw new CompletionException(
+                            new RuntimeException("Failed to get user profile: " + cause.getMessage(), cause));
+                });
+    }
+
+    private CompletableFuture<Map<String, Object>> fetchUserProfile(String accessToken) {
+        GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
+        return graphClient.me().buildRequest()
+                .select("id,displayName,mail,userPrincipalName")
+                .getAsync()
+                .thenApply(user -> Map.of(
+                        "id", user.id != null ? user.id : "",
+                        "displayName", user.displayName != null ? user.displayName : "",
+                        "mail", user.mail != null ? user.mail : "",
+                        "userPrincipalName", user.userPrincipalName != null ? user.userPrincipalName : ""
+                ));
+    }
+
+    /**
+     * List the attachments of a message without their content.
+     *
+     * @param accessToken The Microsoft Graph access token
+     * @param messageId   The ID of the message
+     * @return Future of the attachments' id, name, contentType, size and isInline, failing with a
+     *         RuntimeException if the message cannot be read
+     * @throws IllegalArgumentException if access token is null or empty
+     */
+    public CompletableFuture<List<Map<String, Object>>> listAttachmentsAsync(String accessToken, String messageId) {
         if (accessToken == null || accessToken.isEmpty()) {
             throw new IllegalArgumentException("Access token is required");
         }
 
+        GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
+        List<Map<String, Object>> attachments = new ArrayList<>();
+        return collectAttachments(graphClient.me().messages(messageId).attachments().buildRequest()
+                .select(ATTACHMENT_FIELDS).getAsync(), attachments)
+                .thenApply(done -> attachments)
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    log.error("Error listing attachments: {}", cause.getMessage(), cause);
+                    throw new CompletionException(
+                            new RuntimeException("Failed to list attachments: " + cause.getMessage(), cause));
+                });
+    }
+
+    private static CompletableFuture<Void> collectAttachments(CompletableFuture<AttachmentCollectionPage> page,
+                                                              List<Map<String, Object>> attachments) {
+        return page.thenCompose(current -> {
+            for (Attachment attachment : current.getCurrentPage()) {
+                attachments.add(attachmentToMap(attachment));
+            }
+            AttachmentCollectionRequestBuilder nextPage = current.getNextPage();
+            return nextPage != null
+                    ? collectAttachments(nextPage.buildRequest().getAsync(), attachments)
+                    : CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Get the metadata of one attachment without its content.
+     *
+     * @param accessToken  The Microsoft Graph access token
+     * @param messageId    The ID of the message
+     * @param attachmentId The ID of the attachment
+     * @return Attachment id, name, contentType, size and isInline
+     * @throws IllegalArgumentException if access token is null or empty
+     * @throws RuntimeException         if the attachment cannot be read
+     */
+    public Map<String, Object> getAttachment(String accessToken, String messageId, String attachmentId) {
+        return await(getAttachmentAsync(accessToken, messageId, attachmentId));
+    }
+
+    /**
+     * Get the metadata of one attachment without blocking the calling thread.
+     *
+     * @see #getAttachment(String, String, String)
+     */
+    public CompletableFuture<Map<String, Object>> getAttachmentAsync(String accessToken, String messageId,
+                                                                     String attachmentId) {
+        if (accessToken == null || accessToken.isEmpty()) {
+            throw new IllegalArgumentException("Access token is required");
+        }
+
+        GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
+        return graphClient.me().messages(messageId).attachments(attachmentId).buildRequest()
+                .select(ATTACHMENT_FIELDS)
+                .getAsync()
+                .handle((attachment, error) -> {
+                    if (error != null) {
+                        Throwable cause = unwrap(error);
+                        log.error("Error reading attachment: {}", cause.getMessage(), cause);
+                        throw new CompletionException(
+                                new RuntimeException("Failed to read attachment: " + cause.getMessage(), cause));
+                    }
+                    return attachmentToMap(attachment);
+                });
+    }
+
+    /**
+     * Open the raw content of an attachment from Graph's $value endpoint.
+     * The stream reads straight from the HTTP response, so the attachment is never held in
+     * memory as a whole; the caller must close it to release the connection.
+     *
+     * @param accessToken  The Microsoft Graph access token
+     * @param messageId    The ID of the message
+     * @param attachmentId The ID of the attachment
+     * @return Stream of the attachment bytes
+     * @throws IllegalArgumentException if access token is null or empty
+     * @throws RuntimeException         if the attachment cannot be read
+     */
+    public InputStream openAttachmentContent(String accessToken, String messageId, String attachmentId) {
+        if (accessToken == null || accessToken.isEmpty()) {
+            throw new IllegalArgumentException("Access token is required");
+        }
+
+        GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
+        String url = graphClient.me().messages(messageId).attachments(attachmentId)
+                .getRequestUrlWithAdditionalSegment("$value");
         try {
-            GraphServiceClient<Request> graphClient = graphClientFactory.createClient(accessToken);
-            User user = graphClient.me().buildRequest().get();
-            return Map.of(
-                    "id", user.id != null ? user.id : "",
-                    "displayName", user.displayName != null ? user.displayName : "",
-                    "mail", user.mail != null ? user.mail : "",
-                    "userPrincipalName", user.userPrincipalName != null ? user.userPrincipalName : ""
-            );
+            return new CustomRequestBuilder<>(url, graphClient, null, InputStream.class).buildRequest().get();
         } catch (Exception e) {
-            log.error("Error getting user profile: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to get user profile: " + e.getMessage(), e);
+            log.error("Error reading attachment content: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to read attachment content: " + e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * Stream the content of an attachment as base64 text, one chunk at a time.
+     * Every chunk but the last encodes a whole multiple of 3 bytes, so the chunks carry no
+     * padding and concatenate to the base64 of the whole attachment. At most one chunk is
+     * held in memory.
+     *
+     * @param accessToken   The Microsoft Graph access token
+     * @param messageId     The ID of the message
+     * @param attachmentId  The ID of the attachment
+     * @param chunkConsumer Receives the byte offset and base64 text of each chunk
+     * @return Number of attachment bytes read
+     * @throws IllegalArgumentException if access token is null or empty
+     * @throws RuntimeException         if the attachment cannot be read
+     */
+    public long forEachAttachmentChunk(String accessToken, String messageId, String attachmentId,
+                                       BiConsumer<Long, String> chunkConsumer) {
+        int chunkSize = (int) Math.max(3, Math.min(attachmentChunkSize.toBytes(), 16 * 1024 * 1024)) / 3 * 3;
+        Base64.Encoder encoder = Base64.getEncoder();
+        byte[] buffer = new byte[chunkSize];
+        long offset = 0;
+        try (InputStream content = openAttachmentContent(accessToken, messageId, attachmentId)) {
+            int read;
+            while ((read = content.readNBytes(buffer, 0, chunkSize)) > 0) {
+                chunkConsumer.accept(offset, encoder.encodeToString(read == chunkSize ? buffer
+                        : Arrays.copyOf(buffer, read)));
+                offset += read;
+            }
+        } catch (IOException e) {
+            log.error("Error reading attachment content: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to read attachment content: " + e.getMessage(), e);
+        }
+        return offset;
+    }
+
+    private static Map<String, Object> attachmentToMap(Attachment attachment) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", attachment.id);
+        map.put("name", attachment.name);
+        map.put("contentType", attachment.contentType);
+        map.put("size", attachment.size);
+        map.put("isInline", attachment.isInline);
+        return map;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Wait for an asynchronous result, rethrowing its failure unwrapped
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
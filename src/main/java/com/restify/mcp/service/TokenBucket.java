@@ -0,0 +1,95 @@
+package com.restify.mcp.service;
+
+/**
+ * Token bucket with reservations and an adaptive rate.
+ * A reservation takes a permit immediately and tells the caller how long to wait before
+ * using it, so waiting callers are served in order without a queue. The rate halves when
+ * Graph throttles and recovers additively with each success, down to a floor and up to
+ * the configured rate. A Retry-After pauses the bucket: no permits accrue before then.
+ * Times are System.nanoTime() values passed in by the caller.
+ */
+final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private double rate;
+    // Permits available; negative when reservations are waiting for permits to accrue
+    private double permits;
+    // Permits accrue from this time on; in the future while the bucket is paused
+    private long refillFromNanos;
+
+    /**
+     * @param rate  permits per second
+     * @param burst permits that can be used at once after a quiet period
+     */
+    TokenBucket(double rate, double burst, long nowNanos) {
+        this.maxRate = rate;
+        this.minRate = Math.max(rate / 20, 0.1);
+        this.burst = Math.max(1, burst);
+        this.rate = rate;
+        this.permits = this.burst;
+        this.refillFromNanos = nowNanos;
+    }
+
+    /**
+     * Reserve a permit
+     *
+     * @return nanoseconds to wait before the permit may be used, or -1 if that would be
+     *         longer than maxWaitNanos, in which case nothing is reserved
+     */
+    synchronized long reserve(long nowNanos, long maxWaitNanos) {
+        refill(nowNanos);
+        permits -= 1;
+        long wait = Math.max(0, refillFromNanos - nowNanos)
+                + (permits < 0 ? (long) (-permits / rate * NANOS_PER_SECOND) : 0);
+        if (wait > maxWaitNanos) {
+            permits += 1;
+            return -1;
+        }
+        return wait;
+    }
+
+    /**
+     * Give back a reserved permit that will not be used
+     */
+    synchronized void cancel() {
+        permits = Math.min(burst, permits + 1);
+    }
+
+    /**
+     * Stop permits from accruing until the given time and drop any saved-up burst
+     */
+    synchronized void pauseUntil(long nowNanos, long untilNanos) {
+        refill(nowNanos);
+        if (untilNanos > refillFromNanos) {
+            refillFromNanos = untilNanos;
+            permits = Math.min(permits, 0);
+        }
+    }
+
+    synchronized void onThrottled(long nowNanos) {
+        refill(nowNanos);
+        rate = Math.max(minRate, rate / 2);
+    }
+
+    synchronized void onSuccess(long nowNanos) {
+        if (rate < maxRate) {
+            refill(nowNanos);
+            rate = Math.min(maxRate, rate + (maxRate - minRate) / 50);
+        }
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill(long nowNanos) {
+        if (nowNanos > refillFromNanos) {
+            permits = Math.min(burst, permits + (nowNanos - refillFromNanos) / NANOS_PER_SECOND * rate);
+            refillFromNanos = nowNanos;
+        }
+    }
+}
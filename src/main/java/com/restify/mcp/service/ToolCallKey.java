@@ -0,0 +1,67 @@
+package com.restify.mcp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Identity of a tool call: the tool, its canonicalized arguments and the caller's access
+ * token (by hash). Arguments are canonicalized by sorting object fields and leaving out
+ * nulls and fields the tool does not declare, so arguments that bind to the same call get
+ * the same key. Used to share results between equal calls.
+ */
+final class ToolCallKey {
+
+    private ToolCallKey() {
+    }
+
+    /**
+     * Key of a call
+     *
+     * @param toolName       name of the called tool
+     * @param arguments      arguments object, or null for none
+     * @param parameterNames names of the tool's parameters
+     * @param accessToken    caller's access token, or null
+     */
+    static String of(String toolName, JsonNode arguments, Set<String> parameterNames, String accessToken,
+                     ObjectMapper objectMapper) throws JsonProcessingException {
+        Map<String, JsonNode> canonical = new TreeMap<>();
+        if (arguments != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = arguments.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (parameterNames.contains(field.getKey()) && !field.getValue().isNull()) {
+                    canonical.put(field.getKey(), canonicalize(field.getValue(), objectMapper));
+                }
+            }
+        }
+        return toolName + "\n" + (accessToken != null ? AccessTokens.hash(accessToken) : "-") + "\n"
+                + objectMapper.writeValueAsString(canonical);
+    }
+
+    private static JsonNode canonicalize(JsonNode value, ObjectMapper objectMapper) {
+        if (value.isObject()) {
+            Set<String> names = new TreeSet<>();
+            value.fieldNames().forEachRemaining(names::add);
+            ObjectNode sorted = objectMapper.createObjectNode();
+            for (String name : names) {
+                sorted.set(name, canonicalize(value.get(name), objectMapper));
+            }
+            return sorted;
+        }
+        if (value.isArray()) {
+            ArrayNode array = objectMapper.createArrayNode();
+            value.forEach(element -> array.add(canonicalize(element, objectMapper)));
+            return array;
+        }
+        return value;
+    }
+}
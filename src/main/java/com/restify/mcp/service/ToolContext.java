@@ -0,0 +1,86 @@
+package com.restify.mcp.service;
+
+/**
+ * Per-call context handed to MCP tools that declare a ToolContext parameter.
+ * Lets a running tool stream progress notifications and partial content items
+ * to the client before its final result. The parameter is injected by
+ * McpToolService and never appears in the tool's inputSchema.
+ */
+public interface ToolContext {
+
+    /**
+     * Context for calls that are not streamed; all notifications are dropped
+     */
+    ToolContext NONE = new ToolContext() {
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+
+        @Override
+        public void sendProgress(long progress, Long total, String message) {
+        }
+
+        @Override
+        public void sendContent(Object value) {
+        }
+    };
+
+    /**
+     * Context for calls that are not streamed, carrying the caller's access token
+     *
+     * @param accessToken bearer token of the MCP request, or null
+     */
+    static ToolContext of(String accessToken) {
+        if (accessToken == null) {
+            return NONE;
+        }
+        return new ToolContext() {
+            @Override
+            public boolean isStreaming() {
+                return false;
+            }
+
+            @Override
+            public String getAccessToken() {
+                return accessToken;
+            }
+
+            @Override
+            public void sendProgress(long progress, Long total, String message) {
+            }
+
+            @Override
+            public void sendContent(Object value) {
+            }
+        };
+    }
+
+    /**
+     * Bearer token from the Authorization header of the MCP request, or null if none was sent.
+     * Tools pass it on to Microsoft Graph.
+     */
+    default String getAccessToken() {
+        return null;
+    }
+
+    /**
+     * Whether notifications reach the client while the tool runs.
+     * Tools can use this to return only a summary when their content was already streamed.
+     */
+    boolean isStreaming();
+
+    /**
+     * Send a progress notification
+     *
+     * @param progress work done so far
+     * @param total    total amount of work, or null if unknown
+     * @param message  optional human-readable message
+     */
+    void sendProgress(long progress, Long total, String message);
+
+    /**
+     * Send a partial content item. Strings are sent as text, other values as their JSON text.
+     */
+    void sendContent(Object value);
+}
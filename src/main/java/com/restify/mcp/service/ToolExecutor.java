@@ -0,0 +1,324 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.config.McpToolProperties;
+import com.restify.mcp.config.McpToolProperties.ExecutionMode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tool invocations according to the configured execution mode.
+ * Every tool has its own concurrency limit and timeout. A call waits for a permit
+ * within its timeout and holds it until the invocation really finishes, so even
+ * timed-out calls keep counting against the limit while they unwind. Invocations
+ * may complete asynchronously, in which case the permit is held until their
+ * result stage completes. No thread waits for a permit: a call at the limit is queued
+ * and started by the call that releases the permit.
+ */
+@Component
+public class ToolExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolExecutor.class);
+
+    private final McpToolProperties properties;
+    private final ExecutorService executorService;
+    private final ExecutorService queuedExecutorService;
+    private final ScheduledThreadPoolExecutor timer;
+
+    public ToolExecutor(McpToolProperties properties) {
+        this.properties = properties;
+        this.executorService = createExecutorService(properties.getExecution());
+        // A queued call no longer has a caller to run on, so in caller mode it gets a pool thread
+        this.queuedExecutorService = executorService != null ? executorService
+                : platformThreadPool(properties.getExecution().getPlatformThreads());
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "mcp-tool-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Timeouts of calls that complete in time are dropped at once rather than held until they expire
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private static ExecutorService createExecutorService(McpToolProperties.Execution execution) {
+        if (execution.getMode() == ExecutionMode.VIRTUAL) {
+            try {
+                // Resolved reflectively so the baseline Java 17 build still compiles
+                ExecutorService virtual = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+                logger.info("Running MCP tools on virtual threads");
+                return virtual;
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Virtual threads require Java 21; running MCP tools on platform threads instead");
+            }
+        }
+        if (execution.getMode() == ExecutionMode.CALLER) {
+            return null;
+        }
+        return platformThreadPool(execution.getPlatformThreads());
+    }
+
+    private static ExecutorService platformThreadPool(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mcp-tool-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create the concurrency limit and timeout for a tool. Called once at registration.
+     */
+    public ToolLimits createLimits(String toolName) {
+        McpToolProperties.ToolSettings settings = properties.forTool(toolName);
+        return new ToolLimits(toolName, settings.getMaxConcurrency(), settings.getTimeout());
+    }
+
+    /**
+     * Run a tool invocation within its limits
+     *
+     * @throws RejectedExecutionException if no permit became available within the timeout
+     * @throws TimeoutException           if the invocation did not finish within the timeout
+     */
+    public Object execute(ToolLimits limits, Callable<Object> invocation) throws Exception {
+        CompletableFuture<Object> result = executeAsync(limits,
+                () -> CompletableFuture.completedFuture(invocation.call()));
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Run an asynchronous tool invocation within its limits. The invocation only starts the
+     * work and returns a stage for its result; no thread waits while the stage is pending.
+     * The permit is held until that stage completes. The returned future fails with a
+     * RejectedExecutionException if no permit became available within the tool's timeout,
+     * and with a TimeoutException if the invocation did not complete within it; the thread
+     * still running the invocation is then interrupted, the request thread included in
+     * caller mode. A call that had to wait for a permit no longer has a caller to run on,
+     * so in caller mode it starts on a platform tool thread.
+     */
+    public CompletableFuture<Object> executeAsync(ToolLimits limits,
+                                                  Callable<? extends CompletionStage<?>> invocation) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Call call = new Call(limits, invocation, result);
+        ScheduledFuture<?> timeout = timer.schedule(call::timeOut, limits.timeout.toNanos(), TimeUnit.NANOSECONDS);
+        result.whenComplete((value, error) -> timeout.cancel(false));
+
+        if (limits.acquireOrQueue(call)) {
+            if (executorService == null) {
+                call.runInline();
+            } else {
+                call.submitTo(executorService);
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        queuedExecutorService.shutdownNow();
+    }
+
+    /**
+     * One tool call, from waiting for a permit until its result stage completes
+     */
+    private final class Call implements Runnable {
+        private final ToolLimits limits;
+        private final Callable<? extends CompletionStage<?>> invocation;
+        private final CompletableFuture<Object> result;
+        private Future<?> submitted;
+        private Thread runner;
+        private boolean timedOut;
+
+        private Call(ToolLimits limits, Callable<? extends CompletionStage<?>> invocation,
+                     CompletableFuture<Object> result) {
+            this.limits = limits;
+            this.invocation = invocation;
+            this.result = result;
+        }
+
+        /**
+         * Start the invocation with the permit this call holds
+         */
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                // Timed out or cancelled before it could start
+                limits.release();
+                return;
+            }
+            CompletionStage<?> stage;
+            try {
+                stage = invocation.call();
+            } catch (Throwable t) {
+                limits.release();
+                result.completeExceptionally(t);
+                return;
+            }
+            stage.whenComplete((value, error) -> {
+                limits.release();
+                if (error != null) {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+
+        /**
+         * Start on the calling thread, which the timeout interrupts if the invocation is still running
+         */
+        private void runInline() {
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            try {
+                run();
+            } finally {
+                boolean interrupted;
+                synchronized (this) {
+                    runner = null;
+                    interrupted = timedOut;
+                }
+                if (interrupted) {
+                    // The interrupt was meant for the invocation, not for the rest of the request
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private void submitTo(ExecutorService executor) {
+            Future<?> future;
+            try {
+                future = executor.submit(this);
+            } catch (RejectedExecutionException e) {
+                limits.release();
+                result.completeExceptionally(e);
+                return;
+            }
+            synchronized (this) {
+                submitted = future;
+                if (timedOut) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        /**
+         * Start with a permit released by another call
+         */
+        private void startQueued() {
+            submitTo(queuedExecutorService);
+        }
+
+        private void timeOut() {
+            if (limits.dequeue(this)) {
+                result.completeExceptionally(new RejectedExecutionException(
+                        "Tool '" + limits.toolName + "' is at its concurrency limit"));
+                return;
+            }
+            if (!result.completeExceptionally(new TimeoutException(
+                    "Tool '" + limits.toolName + "' timed out after " + limits.timeout))) {
+                return;
+            }
+            synchronized (this) {
+                timedOut = true;
+                if (submitted != null) {
+                    submitted.cancel(true);
+                } else if (runner != null) {
+                    runner.interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Concurrency limit and timeout of one tool. Calls at the limit wait in arrival order and
+     * are handed the permit of the call that finishes.
+     */
+    public static final class ToolLimits {
+        private final String toolName;
+        private final Duration timeout;
+        private final ArrayDeque<Call> waiting = new ArrayDeque<>();
+        private int availablePermits;
+
+        private ToolLimits(String toolName, int maxConcurrency, Duration timeout) {
+            this.toolName = toolName;
+            this.availablePermits = maxConcurrency;
+            this.timeout = timeout;
+        }
+
+        /**
+         * Take a permit, or queue the call to be started once one is released
+         */
+        private synchronized boolean acquireOrQueue(Call call) {
+            if (availablePermits > 0) {
+                availablePermits--;
+                return true;
+            }
+            waiting.add(call);
+            return false;
+        }
+
+        private synchronized boolean dequeue(Call call) {
+            return waiting.remove(call);
+        }
+
+        private void release() {
+            Call next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    availablePermits++;
+                }
+            }
+            if (next != null) {
+                next.startQueued();
+            }
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public synchronized int getAvailablePermits() {
+            return availablePermits;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.cache.SegmentedLruCache;
+import com.restify.mcp.config.McpToolProperties;
+import com.restify.mcp.metrics.McpMetrics;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Serialized results of one tool, keyed by ToolCallKey. Results are kept as their JSON
+ * text, which is written into responses as is, and bounded by count and total size in a
+ * SegmentedLruCache.
+ * Like UserProfileCache, an entry never outlives the "exp" claim of the token it was
+ * fetched with.
+ */
+final class ToolResultCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+    private static final DataSize DEFAULT_MAX_SIZE = DataSize.ofMegabytes(16);
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final SegmentedLruCache<String, RawValue> results;
+    private final McpMetrics.CacheMeters meters;
+
+    ToolResultCache(String toolName, McpMetrics metrics, Duration ttl, int maxEntries, DataSize maxSize, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        this.results = new SegmentedLruCache<>(maxEntries, maxSize.toBytes(), ttl);
+        this.meters = metrics.registerToolCache(toolName, results, SegmentedLruCache::size,
+                SegmentedLruCache::weight, SegmentedLruCache::evictionCount);
+    }
+
+    /**
+     * Result cache of a tool from its annotation and configured overrides, or null if the
+     * tool's results are not cached
+     */
+    static ToolResultCache create(String toolName, McpToolCache annotation, McpToolProperties.ToolSettings settings,
+                                  McpMetrics metrics) {
+        Duration ttl = settings.getCacheTtl() != null ? settings.getCacheTtl()
+                : annotation != null ? DurationStyle.detectAndParse(annotation.ttl()) : Duration.ZERO;
+        if (ttl.isNegative() || ttl.isZero()) {
+            return null;
+        }
+        int maxEntries = settings.getCacheMaxEntries() != null ? settings.getCacheMaxEntries()
+                : annotation != null ? annotation.maxEntries() : DEFAULT_MAX_ENTRIES;
+        DataSize maxSize = settings.getCacheMaxSize() != null ? settings.getCacheMaxSize()
+                : annotation != null ? DataSize.parse(annotation.maxSize()) : DEFAULT_MAX_SIZE;
+        return new ToolResultCache(toolName, metrics, ttl, maxEntries, maxSize, Clock.systemUTC());
+    }
+
+    /**
+     * Cached result of a call, ready to be written into the response, or null
+     */
+    RawValue get(String key) {
+        RawValue result = results.getIfPresent(key);
+        if (result != null) {
+            meters.hit();
+        } else {
+            meters.miss();
+        }
+        return result;
+    }
+
+    /**
+     * Cache the serialized result of a call
+     *
+     * @param accessToken token the result was fetched with, or null
+     */
+    void put(String key, String accessToken, RawValue result, int size) {
+        Duration entryTtl = ttl;
+        Instant expiry = accessToken != null ? AccessTokens.expiry(accessToken) : null;
+        if (expiry != null) {
+            Duration untilExpiry = Duration.between(clock.instant(), expiry);
+            entryTtl = untilExpiry.compareTo(ttl) < 0 ? untilExpiry : ttl;
+        }
+        if (!entryTtl.isNegative() && !entryTtl.isZero()) {
+            results.put(key, result, size, entryTtl);
+        }
+    }
+}
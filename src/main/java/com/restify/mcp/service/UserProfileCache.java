@@ -0,0 +1,125 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.cache.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches the Graph user profile per access token (by hash).
+ * An entry lives until the token expires according to its "exp" claim, at most for the
+ * configured time-to-live; tokens that are not JWTs get the full time-to-live. Concurrent
+ * lookups for a token that is not cached yet share a single load, so a burst of calls
+ * results in one Graph request. Failed loads are not cached.
+ */
+@Component
+public class UserProfileCache {
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Clock clock;
+    private final ExpiringLruCache<String, Map<String, Object>> profiles;
+    private final ConcurrentHashMap<String, CompletableFuture<Map<String, Object>>> loading = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserProfileCache(
+            @Value("${outlook.graph.profile-cache.enabled:true}") boolean enabled,
+            @Value("${outlook.graph.profile-cache.max-size:1000}") int maxSize,
+            @Value("${outlook.graph.profile-cache.ttl:1h}") Duration ttl) {
+        this(enabled, maxSize, ttl, Clock.systemUTC(), System::nanoTime);
+    }
+
+    /**
+     * @param clock     wall clock the token expiry is compared with, replaceable in tests
+     * @param nanoClock monotonic clock of the underlying cache, replaceable in tests
+     */
+    UserProfileCache(boolean enabled, int maxSize, Duration ttl, Clock clock, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.profiles = new ExpiringLruCache<>(maxSize, ttl, nanoClock);
+    }
+
+    /**
+     * A cache that loads the profile on every call
+     */
+    public static UserProfileCache disabled() {
+        return new UserProfileCache(false, 1, Duration.ZERO);
+    }
+
+    /**
+     * Return the cached profile for the token, loading it at most once across concurrent callers
+     *
+     * @param accessToken The Microsoft Graph access token
+     * @param loader      Starts fetching the profile from Graph
+     * @return Future of the user profile
+     */
+    public CompletableFuture<Map<String, Object>> get(String accessToken,
+                                                      Supplier<CompletableFuture<Map<String, Object>>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = AccessTokens.hash(accessToken);
+        Map<String, Object> profile = profiles.getIfPresent(key);
+        if (profile != null) {
+            return CompletableFuture.completedFuture(profile);
+        }
+
+        CompletableFuture<Map<String, Object>> load = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            // A copy, so a caller cancelling its future does not cancel the shared load
+            return inFlight.copy();
+        }
+        // Another caller may have finished loading between the lookup and claiming the load
+        profile = profiles.getIfPresent(key);
+        if (profile != null) {
+            loading.remove(key, load);
+            load.complete(profile);
+            return load.copy();
+        }
+        CompletableFuture<Map<String, Object>> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, error) -> {
+            if (error == null) {
+                Duration entryTtl = ttlFor(accessToken);
+                if (!entryTtl.isNegative() && !entryTtl.isZero()) {
+                    profiles.put(key, value, entryTtl);
+                }
+            }
+            loading.remove(key, load);
+            if (error != null) {
+                load.completeExceptionally(error);
+            } else {
+                load.complete(value);
+            }
+        });
+        return load.copy();
+    }
+
+    private Duration ttlFor(String accessToken) {
+        Instant expiry = AccessTokens.expiry(accessToken);
+        return expiry != null ? Duration.between(clock.instant(), expiry) : ttl;
+    }
+
+    public void invalidateAll() {
+        profiles.invalidateAll();
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+}
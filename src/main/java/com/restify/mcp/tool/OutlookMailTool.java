@@ -1,27 +1,47 @@
 package com.restify.mcp.tool;
 
+import com.restify.mcp.dto.Email;
+import com.restify.mcp.service.MailQuery;
+import com.restify.mcp.service.McpToolCache;
+import com.restify.mcp.service.MessageBodyFilter;
+import com.restify.mcp.service.MessageProjection;
 import com.restify.mcp.service.OutlookMailService;
+import com.restify.mcp.service.ToolContext;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * MCP Tool class for Outlook mail operations.
  * This class exposes Outlook mail functionality as MCP tools,
  * delegating the actual business logic to OutlookMailService.
- * Note: These tools require Microsoft Graph API credentials to be configured.
+ * Note: These tools call Microsoft Graph with the bearer token sent in the MCP request's
+ * Authorization header; without one they return placeholder results. Tools return a
+ * CompletableFuture, so no thread waits on Graph. Streamed calls of readOutlookEmails and
+ * readOutlookAttachment are the exception: they send each page or chunk from the tool's
+ * thread as it is read.
  */
 @Component
 public class OutlookMailTool {
 
     private static final Logger log = LoggerFactory.getLogger(OutlookMailTool.class);
+
+    private static final String BODY_FORMAT_DESCRIPTION = "Body format: 'text' for plain text extracted from the HTML, "
+            + "'original' for the body as stored (default: text)";
+    private static final String INCLUDE_QUOTED_REPLIES_DESCRIPTION = "Keep the quoted thread of a reply in a text body (default: false)";
+    private static final String MAX_BODY_LENGTH_DESCRIPTION = "Maximum number of body characters, 0 for no limit (default: 20000)";
     private final OutlookMailService outlookMailService;
 
     public OutlookMailTool(OutlookMailService outlookMailService) {
@@ -30,37 +50,268 @@ public class OutlookMailTool {
 
     /**
      * Read emails from Outlook mailbox. Can retrieve a list of emails with optional filtering.
+     * When the call is streamed, each page of emails is sent as a content notification as soon
+     * as it arrives and the result only reports the count; otherwise the emails are returned
+     * once Graph has answered.
+     * The filters are applied by Graph where it can; when part of them had to be applied to
+     * the fetched emails instead, the result carries the emails with a note saying so.
      *
-     * @param maxResults Maximum number of emails to retrieve (default: 10)
-     * @param folderId  Optional folder ID (default: inbox)
-     * @return List of email messages
+     * @param maxResults     Maximum number of emails to retrieve (default: 10)
+     * @param folderId       Optional folder ID (default: inbox)
+     * @param fields         Optional subset of fields to return for each email
+     * @param from           Optional sender address, or name to search for
+     * @param receivedAfter  Optional ISO-8601 date or date-time the emails were received at or after
+     * @param receivedBefore Optional ISO-8601 date or date-time the emails were received before
+     * @param unreadOnly     Optional flag to return unread emails only
+     * @param hasAttachments Optional flag to return emails with (true) or without (false) attachments only
+     * @param keywords       Optional words to search for
+     * @param context        Call context carrying the caller's access token
+     * @return List of email messages or the emails with a note, completed once Graph has answered,
+     *         or a summary when the emails were streamed
      */
     @McpTool(name = "readOutlookEmails", description = "Read emails from Outlook mailbox. Can retrieve a list of emails with optional filtering.")
-    public List<Map<String, Object>> readOutlookEmails(
+    public Object readOutlookEmails(
             @McpToolParam(description = "Maximum number of emails to retrieve (default: 10)") Integer maxResults,
-            @McpToolParam(description = "Mail folder ID (default: 'inbox')") String folderId) {
+            @McpToolParam(description = "Mail folder ID (default: 'inbox')") String folderId,
+            @McpToolParam(description = "Fields to return for each email (default: id, subject, from, receivedDateTime, bodyPreview, isRead, hasAttachments)") List<String> fields,
+            @McpToolParam(description = "Sender email address, or sender name to search for") String from,
+            @McpToolParam(description = "Only emails received at or after this ISO-8601 date or date-time, e.g. 2024-06-01") String receivedAfter,
+            @McpToolParam(description = "Only emails received before this ISO-8601 date or date-time") String receivedBefore,
+            @McpToolParam(description = "Only unread emails (default: false)") Boolean unreadOnly,
+            @McpToolParam(description = "Only emails with (true) or without (false) attachments") Boolean hasAttachments,
+            @McpToolParam(description = "Words to search for in the emails") String keywords,
+            ToolContext context) {
         log.debug("Reading Outlook emails - maxResults: {}, folderId: {}", maxResults, folderId);
-        // Return empty list as authentication is not required
-        // To enable Outlook mail functionality, configure Microsoft Graph API credentials
-        return Collections.emptyList();
+        MessageProjection projection = MessageProjection.of(fields, MessageProjection.SUMMARY);
+        MailQuery query = MailQuery.of(from, receivedAfter, receivedBefore, unreadOnly, hasAttachments, keywords);
+        String accessToken = context != null ? context.getAccessToken() : null;
+        if (accessToken == null) {
+            // Return empty list when the request carries no Microsoft Graph access token
+            return Collections.emptyList();
+        }
+        if (!context.isStreaming()) {
+            return outlookMailService.readEmailsAsync(accessToken, maxResults, folderId, projection, query)
+                    .thenApply(emails -> {
+                        if (query.note() == null) {
+                            return emails;
+                        }
+                        Map<String, Object> result = new LinkedHashMap<>();
+                        result.put("emails", emails);
+                        result.put("note", query.note());
+                        return result;
+                    });
+        }
+
+        long total = maxResults != null ? maxResults : 10;
+        AtomicLong sent = new AtomicLong();
+        int count = outlookMailService.forEachEmailPage(accessToken, maxResults, folderId, projection, query, page -> {
+            context.sendContent(page);
+            context.sendProgress(sent.addAndGet(page.size()), total, null);
+        });
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("count", count);
+        summary.put("streamed", true);
+        if (query.note() != null) {
+            summary.put("note", query.note());
+        }
+        return summary;
+    }
+
+    /**
+     * Search the mailbox for emails by keywords and sender. Answered from the local search
+     * index of fetched messages when it has maxResults hits, otherwise by Graph.
+     *
+     * @param query      Keywords that must all occur in the subject, sender or body preview
+     * @param from       Optional sender address or name
+     * @param maxResults Maximum number of emails to return (default: 10)
+     * @param context    Call context carrying the caller's access token
+     * @return Matching emails, completed once the index or Graph has answered
+     */
+    @McpTool(name = "searchOutlookEmails", description = "Search Outlook emails by keywords in the subject, sender or preview, and by sender.")
+    public CompletableFuture<List<Email>> searchOutlookEmails(
+            @McpToolParam(description = "Keywords that must all match; 'from:name' terms match the sender") String query,
+            @McpToolParam(description = "Sender email address or name") String from,
+            @McpToolParam(description = "Maximum number of emails to return (default: 10)") Integer maxResults,
+            ToolContext context) {
+        log.debug("Searching Outlook emails - query: {}, from: {}", query, from);
+        String accessToken = context != null ? context.getAccessToken() : null;
+        if (accessToken == null) {
+            // Return empty list when the request carries no Microsoft Graph access token
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return outlookMailService.searchEmailsAsync(accessToken, query, from, maxResults);
     }
 
     /**
      * Read a specific email from Outlook by its message ID.
+     * Results are cached per caller for five minutes: a message's content does not change,
+     * only its isRead flag may lag behind by that much.
      *
      * @param messageId The ID of the message to retrieve
-     * @return Email message details
+     * @param fields    Optional subset of fields to return, e.g. without "body"
+     * @param bodyFormat            Optional body format, "text" or "original"
+     * @param includeQuotedReplies  Optional flag to keep the quoted thread of a reply in a text body
+     * @param maxBodyLength         Optional maximum number of body characters, 0 for no limit
+     * @param context   Call context carrying the caller's access token
+     * @return Email message details, completed once Graph has answered
      */
+    @McpToolCache(ttl = "5m")
     @McpTool(name = "readOutlookEmailById", description = "Read a specific email from Outlook by its message ID.")
-    public Map<String, Object> readOutlookEmailById(
-            @McpToolParam(description = "The ID of the message to retrieve") String messageId) {
+    public CompletableFuture<?> readOutlookEmailById(
+            @McpToolParam(description = "The ID of the message to retrieve") String messageId,
+            @McpToolParam(description = "Fields to return (default: id, subject, from, to, receivedDateTime, body, bodyPreview, isRead, hasAttachments)") List<String> fields,
+            @McpToolParam(description = BODY_FORMAT_DESCRIPTION) String bodyFormat,
+            @McpToolParam(description = INCLUDE_QUOTED_REPLIES_DESCRIPTION) Boolean includeQuotedReplies,
+            @McpToolParam(description = MAX_BODY_LENGTH_DESCRIPTION) Integer maxBodyLength,
+            ToolContext context) {
         log.debug("Reading Outlook email by ID: {}", messageId);
-        // Return empty map as authentication is not required
-        // To enable Outlook mail functionality, configure Microsoft Graph API credentials
+        MessageProjection projection = MessageProjection.of(fields, MessageProjection.DETAIL);
+        MessageBodyFilter bodyFilter = outlookMailService.bodyFilter(bodyFormat, includeQuotedReplies, maxBodyLength);
+        String accessToken = context != null ? context.getAccessToken() : null;
+        if (accessToken != null) {
+            return outlookMailService.readEmailByIdAsync(accessToken, messageId, projection, bodyFilter);
+        }
+        // Without a Microsoft Graph access token only a placeholder is returned
         Map<String, Object> result = new HashMap<>();
-        result.put("message", "Outlook mail functionality requires Microsoft Graph API configuration");
+        result.put("message", "Outlook mail functionality requires a Microsoft Graph access token");
         result.put("messageId", messageId);
-        return result;
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Read several emails from Outlook by their message IDs in as few Graph round trips as possible.
+     *
+     * @param messageIds The IDs of the messages to retrieve
+     * @param fields     Optional subset of fields to return for each email, e.g. without "body"
+     * @param bodyFormat            Optional body format, "text" or "original"
+     * @param includeQuotedReplies  Optional flag to keep the quoted thread of a reply in a text body
+     * @param maxBodyLength         Optional maximum number of body characters, 0 for no limit
+     * @param context    Call context carrying the caller's access token
+     * @return Email message details in the order of the IDs, completed once Graph has answered;
+     *         unreadable messages carry an error
+     */
+    @McpTool(name = "readOutlookEmailsByIds", description = "Read several emails from Outlook by their message IDs.")
+    public CompletableFuture<List<Email>> readOutlookEmailsByIds(
+            @McpToolParam(description = "The IDs of the messages to retrieve") List<String> messageIds,
+            @McpToolParam(description = "Fields to return for each email (default: id, subject, from, to, receivedDateTime, body, bodyPreview, isRead, hasAttachments)") List<String> fields,
+            @McpToolParam(description = BODY_FORMAT_DESCRIPTION) String bodyFormat,
+            @McpToolParam(description = INCLUDE_QUOTED_REPLIES_DESCRIPTION) Boolean includeQuotedReplies,
+            @McpToolParam(description = MAX_BODY_LENGTH_DESCRIPTION) Integer maxBodyLength,
+            ToolContext context) {
+        log.debug("Reading {} Outlook emails by ID", messageIds != null ? messageIds.size() : 0);
+        MessageProjection projection = MessageProjection.of(fields, MessageProjection.DETAIL);
+        MessageBodyFilter bodyFilter = outlookMailService.bodyFilter(bodyFormat, includeQuotedReplies, maxBodyLength);
+        String accessToken = context != null ? context.getAccessToken() : null;
+        if (accessToken == null || messageIds == null || messageIds.isEmpty()) {
+            // Return empty list when there is nothing to read or no Microsoft Graph access token
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return outlookMailService.readEmailsByIdsAsync(accessToken, messageIds, projection, bodyFilter);
     }
-}
 
+    /**
+     * Get the profile of the user the access token belongs to.
+     * Not annotated with @McpToolCache: UserProfileCache already keeps the profile per token.
+     *
+     * @param context Call context carrying the caller's access token
+     * @return User profile with id, displayName, mail and userPrincipalName, completed once Graph has answered
+     */
+    @McpTool(name = "getOutlookUserProfile", description = "Get the profile of the signed-in Outlook user.")
+    public CompletableFuture<Map<String, Object>> getOutlookUserProfile(ToolContext context) {
+        String accessToken = context != null ? context.getAccessToken() : null;
+        if (accessToken != null) {
+            return outlookMailService.getUserProfileAsync(accessToken);
+        }
+        // Without a Microsoft Graph access token only a placeholder is returned
+        Map<String, Object> result = new HashMap<>();
+        result.put("message", "Outlook mail functionality requires a Microsoft Graph access token");
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * List the attachments of an email without their content.
+     *
+     * @param messageId The ID of the message
+     * @param context   Call context carrying the caller's access token
+     * @return Attachment id, name, contentType, size and isInline, completed once Graph has answered
+     */
+    @McpTool(name = "listOutlookAttachments", description = "List the attachments of an Outlook email without their content.")
+    public CompletableFuture<List<Map<String, Object>>> listOutlookAttachments(
+            @McpToolParam(description = "The ID of the message") String messageId,
+            ToolContext context) {
+        log.debug("Listing attachments of Outlook email: {}", messageId);
+        String accessToken = context != null ? context.getAccessToken() : null;
+        if (accessToken == null) {
+            // Return empty list when the request carries no Microsoft Graph access token
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return outlookMailService.listAttachmentsAsync(accessToken, messageId);
+    }
+
+    /**
+     * Read the content of an email attachment. When the call is streamed, the content is sent
+     * as base64 content notifications of one chunk each, read from Graph as they are sent, and
+     * the result only reports the attachment and its size. Otherwise the result carries a
+     * download link ("uri", relative to the MCP endpoint's origin) that streams the raw bytes;
+     * it takes the same Authorization header as the MCP request.
+     * The attachment is never held in memory as a whole.
+     *
+     * @param messageId    The ID of the message
+     * @param attachmentId The ID of the attachment
+     * @param context      Call context carrying the caller's access token
+     * @return Attachment metadata with either the streamed size or a download link, completed once
+     *         Graph has answered
+     */
+    @McpTool(name = "readOutlookAttachment", description = "Read the content of an Outlook email attachment. Streamed calls receive the content as base64 chunks; other calls receive a download link.")
+    public CompletableFuture<Map<String, Object>> readOutlookAttachment(
+            @McpToolParam(description = "The ID of the message") String messageId,
+            @McpToolParam(description = "The ID of the attachment") String attachmentId,
+            ToolContext context) {
+        log.debug("Reading attachment {} of Outlook email: {}", attachmentId, messageId);
+        String accessToken = context != null ? context.getAccessToken() : null;
+        if (accessToken == null) {
+            // Without a Microsoft Graph access token only a placeholder is returned
+            Map<String, Object> result = new HashMap<>();
+            result.put("message", "Outlook mail functionality requires a Microsoft Graph access token");
+            result.put("messageId", messageId);
+            result.put("attachmentId", attachmentId);
+            return CompletableFuture.completedFuture(result);
+        }
+        if (!context.isStreaming()) {
+            return outlookMailService.getAttachmentAsync(accessToken, messageId, attachmentId)
+                    .thenApply(attachment -> {
+                        Map<String, Object> result = new LinkedHashMap<>(attachment);
+                        result.put("uri", downloadPath(messageId, attachmentId));
+                        return result;
+                    });
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>(
+                outlookMailService.getAttachment(accessToken, messageId, attachmentId));
+
+        Object size = result.get("size");
+        Long total = size instanceof Number ? ((Number) size).longValue() : null;
+        long bytes = outlookMailService.forEachAttachmentChunk(accessToken, messageId, attachmentId,
+                (offset, base64) -> {
+                    Map<String, Object> chunk = new LinkedHashMap<>();
+                    chunk.put("attachmentId", attachmentId);
+                    chunk.put("offset", offset);
+                    chunk.put("encoding", "base64");
+                    chunk.put("data", base64);
+                    context.sendContent(chunk);
+                    int padding = base64.endsWith("==") ? 2 : base64.endsWith("=") ? 1 : 0;
+                    context.sendProgress(offset + base64.length() / 4 * 3 - padding, total, null);
+                });
+        result.put("bytes", bytes);
+        result.put("streamed", true);
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Path of the attachment download endpoint served by AttachmentController
+     */
+    static String downloadPath(String messageId, String attachmentId) {
+        return "/mcp/attachments/" + UriUtils.encodePathSegment(messageId, StandardCharsets.UTF_8)
+                + "/" + UriUtils.encodePathSegment(attachmentId, StandardCharsets.UTF_8);
+    }
+}
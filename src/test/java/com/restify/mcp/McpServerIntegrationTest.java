@@ -14,6 +14,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -150,5 +151,32 @@ class McpServerIntegrationTest {
             throw e;
         }
     }
-}
 
+    @Test
+    void testMcpBatchRequest() throws Exception {
+        String url = "http://localhost:" + port + "/mcp";
+
+        String requestBody = "["
+            + "{\"jsonrpc\":\"2.0\",\"id\":\"a\",\"method\":\"tools/call\",\"params\":{\"name\":\"hello\",\"arguments\":{}}},"
+            + "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"},"
+            + "{\"jsonrpc\":\"2.0\",\"id\":\"b\",\"method\":\"tools/list\"}"
+            + "]";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+            url, HttpMethod.POST, entity, String.class);
+
+        assertTrue(response.getStatusCode().is2xxSuccessful(),
+            "Status should be 2xx. Actual: " + response.getStatusCode());
+
+        List<Map<String, Object>> responses = objectMapper.readValue(response.getBody(), List.class);
+        assertEquals(2, responses.size(), "Notification should not produce a response entry");
+        assertEquals("a", responses.get(0).get("id"));
+        assertEquals("b", responses.get(1).get("id"));
+        assertNotNull(responses.get(0).get("result"));
+        assertNotNull(responses.get(1).get("result"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.restify.mcp.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedLruCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void keepsEntriesReadAgainOverNewOnes() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(5, 1000, Duration.ofMinutes(1), now::get);
+        cache.put("hot", "h", 1, Duration.ofMinutes(1));
+        cache.getIfPresent("hot");
+        for (int i = 0; i < 20; i++) {
+            cache.put("cold-" + i, "c", 1, Duration.ofMinutes(1));
+        }
+
+        assertEquals("h", cache.getIfPresent("hot"));
+        assertNull(cache.getIfPresent("cold-0"));
+        assertEquals("c", cache.getIfPresent("cold-19"));
+        assertEquals(5, cache.size());
+        assertEquals(16, cache.evictionCount());
+    }
+
+    @Test
+    void boundsTotalWeight() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(100, 10, Duration.ofMinutes(1), now::get);
+        cache.put("a", "a", 4, Duration.ofMinutes(1));
+        cache.put("b", "b", 4, Duration.ofMinutes(1));
+        cache.put("c", "c", 4, Duration.ofMinutes(1));
+        cache.put("huge", "h", 11, Duration.ofMinutes(1));
+
+        assertNull(cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("huge"), "Entries heavier than the cache are not kept");
+        assertEquals(8, cache.weight());
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTtl() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10, 100, Duration.ofMinutes(1), now::get);
+        cache.put("short", "s", 1, Duration.ofSeconds(1));
+        cache.put("capped", "c", 1, Duration.ofHours(1));
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(cache.getIfPresent("short"));
+        assertEquals("c", cache.getIfPresent("capped"));
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertNull(cache.getIfPresent("capped"), "Time-to-live is capped at the cache default");
+        assertEquals(0, cache.weight());
+    }
+}
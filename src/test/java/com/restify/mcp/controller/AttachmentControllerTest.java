@@ -0,0 +1,84 @@
+package com.restify.mcp.controller;
+
+import com.restify.mcp.service.OutlookMailService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Attachment downloads with Graph played by a mocked OutlookMailService
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AttachmentControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OutlookMailService outlookMailService;
+
+    private void attachment(String name, String contentType) {
+        Map<String, Object> attachment = new HashMap<>();
+        attachment.put("id", "att-1");
+        attachment.put("name", name);
+        attachment.put("contentType", contentType);
+        when(outlookMailService.getAttachment("token", "msg-1", "att-1")).thenReturn(attachment);
+        when(outlookMailService.openAttachmentContent("token", "msg-1", "att-1"))
+                .thenReturn(new ByteArrayInputStream("<script>alert(1)</script>".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private MvcResult download() throws Exception {
+        MvcResult started = mockMvc.perform(get("/mcp/attachments/msg-1/att-1")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+    }
+
+    @Test
+    void servesNamedAttachmentAsDownload() throws Exception {
+        attachment("report.html", "text/html");
+
+        MvcResult result = download();
+
+        String disposition = result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION);
+        assertTrue(disposition.startsWith("attachment;"), disposition);
+        assertTrue(disposition.contains("filename*=UTF-8''report.html"), disposition);
+        assertEquals("nosniff", result.getResponse().getHeader("X-Content-Type-Options"));
+        assertEquals("<script>alert(1)</script>", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void servesUnnamedAttachmentAsDownloadToo() throws Exception {
+        attachment(null, "text/html");
+
+        MvcResult result = download();
+
+        assertEquals("attachment", result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals("nosniff", result.getResponse().getHeader("X-Content-Type-Options"));
+    }
+
+    @Test
+    void requiresBearerToken() throws Exception {
+        mockMvc.perform(get("/mcp/attachments/msg-1/att-1").header(HttpHeaders.AUTHORIZATION, "Basic abc"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION));
+    }
+}
@@ -0,0 +1,87 @@
+package com.restify.mcp.controller;
+
+import com.restify.mcp.service.McpToolService;
+import com.restify.mcp.service.ToolContext;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Streamed tools/call while the single stream thread is busy
+ */
+@SpringBootTest(properties = "mcp.sse.max-concurrency=1")
+@AutoConfigureMockMvc
+class McpControllerStreamSaturationTest {
+
+    private static final String STREAM_ACCEPT = "application/json, text/event-stream";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private McpToolService mcpToolService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MvcResult streamedCall(int id, String tool) throws Exception {
+        return mockMvc.perform(post("/mcp")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Accept", STREAM_ACCEPT)
+                        .content("{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"tools/call\",\"params\":{\"name\":\""
+                                + tool + "\",\"arguments\":{}}}"))
+                .andReturn();
+    }
+
+    @Test
+    void answersAsJsonWhenStreamThreadsAreBusy() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            running.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return CompletableFuture.completedFuture(Map.of("tool", "slow"));
+        }).when(mcpToolService).callToolAsync(eq("slow"), any(JsonParser.class), any(ToolContext.class));
+        doAnswer(invocation -> {
+            ToolContext context = invocation.getArgument(2);
+            assertFalse(context.isStreaming());
+            return CompletableFuture.completedFuture(Map.of("tool", "fast"));
+        }).when(mcpToolService).callToolAsync(eq("fast"), any(JsonParser.class), any(ToolContext.class));
+
+        MvcResult slow = streamedCall(1, "slow");
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        try {
+            MvcResult fast = streamedCall(2, "fast");
+
+            assertTrue(fast.getResponse().getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE),
+                    fast.getResponse().getContentType());
+            JsonNode response = objectMapper.readTree(fast.getResponse().getContentAsString());
+            assertEquals(2, response.path("id").asInt());
+            assertEquals("fast", response.path("result").path("tool").asText());
+        } finally {
+            release.countDown();
+        }
+
+        slow.getAsyncResult(10_000);
+        assertTrue(slow.getResponse().getContentAsString().contains("\"tool\":\"slow\""),
+                slow.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,173 @@
+package com.restify.mcp.controller;
+
+import com.restify.mcp.service.McpToolService;
+import com.restify.mcp.service.ToolContext;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * tools/call answered as Server-Sent Events, with the tool played by a mocked McpToolService
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class McpControllerStreamingTest {
+
+    private static final String STREAM_ACCEPT = "application/json, text/event-stream";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private McpToolService mcpToolService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static String toolCall(String meta) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{\"name\":\"pages\","
+                + "\"arguments\":{}" + meta + "}}";
+    }
+
+    /**
+     * Answer calls of the "pages" tool by sending two pages through the context, then completing with result
+     */
+    private void toolSendsPagesThen(CompletableFuture<Object> result) throws Exception {
+        doAnswer(invocation -> {
+            ToolContext context = invocation.getArgument(2);
+            assertTrue(context.isStreaming());
+            context.sendProgress(1, 2L, "page 1");
+            context.sendContent("first page");
+            context.sendProgress(2, 2L, "page 2");
+            context.sendContent(Map.of("page", 2));
+            return result;
+        }).when(mcpToolService).callToolAsync(eq("pages"), any(JsonParser.class), any(ToolContext.class));
+    }
+
+    /**
+     * Run a streamed request and return the JSON-RPC message of each SSE frame, in order
+     */
+    private List<JsonNode> stream(String body) throws Exception {
+        MvcResult started = mockMvc.perform(post("/mcp")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Accept", STREAM_ACCEPT)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.getAsyncResult(10_000);
+        assertTrue(started.getResponse().getContentType().startsWith(MediaType.TEXT_EVENT_STREAM_VALUE),
+                started.getResponse().getContentType());
+
+        List<JsonNode> messages = new ArrayList<>();
+        for (String frame : started.getResponse().getContentAsString().split("\n\n")) {
+            String[] lines = frame.split("\n");
+            assertEquals("event:message", lines[0], frame);
+            assertTrue(lines[1].startsWith("data:"), frame);
+            messages.add(objectMapper.readTree(lines[1].substring("data:".length())));
+        }
+        return messages;
+    }
+
+    @Test
+    void streamsProgressAndContentBeforeTheFinalResult() throws Exception {
+        toolSendsPagesThen(CompletableFuture.completedFuture(Map.of("count", 2)));
+
+        List<JsonNode> messages = stream(toolCall(",\"_meta\":{\"progressToken\":\"p1\"}"));
+
+        assertEquals(5, messages.size(), messages.toString());
+        JsonNode progress = messages.get(0);
+        assertEquals("notifications/progress", progress.path("method").asText());
+        assertFalse(progress.has("id"));
+        assertEquals("p1", progress.path("params").path("progressToken").asText());
+        assertEquals(1, progress.path("params").path("progress").asLong());
+        assertEquals(2, progress.path("params").path("total").asLong());
+        assertEquals("page 1", progress.path("params").path("message").asText());
+
+        JsonNode content = messages.get(1);
+        assertEquals("notifications/message", content.path("method").asText());
+        assertEquals("info", content.path("params").path("level").asText());
+        JsonNode data = content.path("params").path("data");
+        assertEquals(7, data.path("requestId").asInt());
+        assertEquals("p1", data.path("progressToken").asText());
+        assertEquals("text", data.path("content").get(0).path("type").asText());
+        assertEquals("first page", data.path("content").get(0).path("text").asText());
+        assertEquals("{\"page\":2}", messages.get(3).path("params").path("data").path("content").get(0)
+                .path("text").asText());
+
+        JsonNode response = messages.get(4);
+        assertEquals(7, response.path("id").asInt());
+        assertEquals(2, response.path("result").path("count").asInt());
+        assertFalse(response.has("error"));
+    }
+
+    @Test
+    void omitsProgressWithoutProgressToken() throws Exception {
+        toolSendsPagesThen(CompletableFuture.completedFuture(Map.of("count", 2)));
+
+        List<JsonNode> messages = stream(toolCall(""));
+
+        assertEquals(3, messages.size(), messages.toString());
+        assertEquals("notifications/message", messages.get(0).path("method").asText());
+        assertFalse(messages.get(0).path("params").path("data").has("progressToken"));
+        assertEquals("notifications/message", messages.get(1).path("method").asText());
+        assertEquals(7, messages.get(2).path("id").asInt());
+    }
+
+    @Test
+    void endsStreamWithErrorResponseWhenToolFailsMidStream() throws Exception {
+        toolSendsPagesThen(CompletableFuture.failedFuture(new IllegalStateException("Graph unavailable")));
+
+        List<JsonNode> messages = stream(toolCall(""));
+
+        assertEquals(3, messages.size(), messages.toString());
+        assertEquals("first page", messages.get(0).path("params").path("data").path("content").get(0)
+                .path("text").asText());
+        JsonNode response = messages.get(2);
+        assertEquals(7, response.path("id").asInt());
+        assertFalse(response.has("result") && !response.get("result").isNull());
+        assertEquals(-32603, response.path("error").path("code").asInt());
+        assertTrue(response.path("error").path("data").asText().contains("Graph unavailable"),
+                response.toString());
+    }
+
+    @Test
+    void endsStreamWithInvalidParamsWhenToolNameIsMissing() throws Exception {
+        List<JsonNode> messages = stream("{\"jsonrpc\":\"2.0\",\"id\":8,\"method\":\"tools/call\",\"params\":{}}");
+
+        assertEquals(1, messages.size(), messages.toString());
+        assertEquals(8, messages.get(0).path("id").asInt());
+        assertEquals(-32602, messages.get(0).path("error").path("code").asInt());
+    }
+
+    @Test
+    void answersOtherMethodsAsJsonEvenWhenStreamIsAccepted() throws Exception {
+        MvcResult result = mockMvc.perform(post("/mcp")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Accept", STREAM_ACCEPT)
+                        .content("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}"))
+                .andReturn();
+
+        assertTrue(result.getResponse().getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+        JsonNode response = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertTrue(response.path("result").path("capabilities").has("logging"), response.toString());
+    }
+}
@@ -0,0 +1,171 @@
+package com.restify.mcp.controller;
+
+import com.restify.mcp.service.McpToolService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * McpController request handling with the real tool service
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class McpControllerTest {
+
+    private static final String TOOLS_LIST = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/list\",\"params\":{}}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private McpToolService mcpToolService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${mcp.batch.max-size}")
+    private int maxBatchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ResultActions toolsList(String ifNoneMatch) throws Exception {
+        var request = post("/mcp").contentType(MediaType.APPLICATION_JSON).content(TOOLS_LIST);
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private static String helloBatch(int size) {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            batch.append(i > 0 ? "," : "").append("{\"jsonrpc\":\"2.0\",\"id\":").append(i)
+                    .append(",\"method\":\"tools/call\",\"params\":{\"name\":\"hello\",\"arguments\":{}}}");
+        }
+        return batch.append("]").toString();
+    }
+
+    private long helloCalls() {
+        return meterRegistry.get("mcp.tool.calls").tags("tool", "hello", "outcome", "success").timer().count();
+    }
+
+    @Test
+    void rejectsOversizedBatchWithoutRunningAnyEntry() throws Exception {
+        long callsBefore = helloCalls();
+
+        MvcResult result = mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON)
+                        .content(helloBatch(maxBatchSize + 1)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode response = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertTrue(response.isObject(), response.toString());
+        assertEquals(-32600, response.path("error").path("code").asInt());
+        assertTrue(response.path("error").path("data").asText().contains(String.valueOf(maxBatchSize)));
+        // Give any wrongly dispatched entry time to run before checking that none did
+        Thread.sleep(200);
+        assertEquals(callsBefore, helloCalls());
+    }
+
+    @Test
+    void runsBatchAtTheSizeLimit() throws Exception {
+        long callsBefore = helloCalls();
+
+        MvcResult started = mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON)
+                        .content(helloBatch(maxBatchSize)))
+                .andReturn();
+        MvcResult result = started.getRequest().isAsyncStarted()
+                ? mockMvc.perform(asyncDispatch(started)).andReturn()
+                : started;
+
+        JsonNode responses = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertEquals(maxBatchSize, responses.size());
+        assertEquals(maxBatchSize - 1, responses.get(maxBatchSize - 1).path("id").asInt());
+        assertEquals(callsBefore + maxBatchSize, helloCalls());
+    }
+
+    @Test
+    void acceptsInitializedNotificationWithoutCountingAnError() throws Exception {
+        double methodNotFoundBefore = meterRegistry.get("mcp.errors").tag("code", "-32601").counter().count();
+        long initializedBefore = meterRegistry.get("mcp.requests").tag("method", "notifications/initialized").timer()
+                .count();
+
+        MvcResult result = mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+
+        assertEquals("", result.getResponse().getContentAsString());
+        assertEquals(methodNotFoundBefore, meterRegistry.get("mcp.errors").tag("code", "-32601").counter().count());
+        assertEquals(initializedBefore + 1,
+                meterRegistry.get("mcp.requests").tag("method", "notifications/initialized").timer().count());
+    }
+
+    @Test
+    void servesToolsListWithStableStrongEtag() throws Exception {
+        String etag = mcpToolService.getToolsListEtag();
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""), etag);
+
+        MvcResult first = toolsList(null).andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+        toolsList(null).andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        JsonNode response = objectMapper.readTree(first.getResponse().getContentAsString());
+        assertEquals(1, response.path("id").asInt());
+        assertTrue(response.path("result").path("tools").isArray());
+        assertTrue(response.path("result").path("tools").size() > 0);
+    }
+
+    @Test
+    void answersNotModifiedForMatchingEtag() throws Exception {
+        String etag = mcpToolService.getToolsListEtag();
+
+        MvcResult result = toolsList(etag)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+
+        assertEquals("", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void matchesWeakEtagsWildcardAndEtagLists() throws Exception {
+        String etag = mcpToolService.getToolsListEtag();
+
+        toolsList("W/" + etag).andExpect(status().isNotModified());
+        toolsList("*").andExpect(status().isNotModified());
+        toolsList("\"stale\", " + etag).andExpect(status().isNotModified());
+        toolsList("\"stale\",W/" + etag).andExpect(status().isNotModified());
+    }
+
+    @Test
+    void servesFullListForEtagThatDoesNotMatch() throws Exception {
+        String etag = mcpToolService.getToolsListEtag();
+
+        MvcResult result = toolsList("\"stale\", W/\"other\"")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+
+        JsonNode response = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertTrue(response.path("result").path("tools").isArray());
+        // The ETag is compared whole, so a tag that only contains the current one does not match
+        toolsList("\"x" + etag.substring(1)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,65 @@
+package com.restify.mcp.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolResultTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesStringResultAsText() throws Exception {
+        String json = objectMapper.writeValueAsString(ToolResult.of("hello world"));
+        assertEquals("{\"content\":[{\"type\":\"text\",\"text\":\"hello world\"}]}", json);
+    }
+
+    @Test
+    void writesStructuredResultAsEscapedJsonText() throws Exception {
+        Map<String, Object> email = new LinkedHashMap<>();
+        email.put("subject", "Quote \" backslash \\ tab \t newline \n");
+        email.put("body", "<p>caf\u00e9 \uD83D\uDE00 \u0001</p>");
+        email.put("isRead", true);
+
+        assertEquals(expected(email), objectMapper.writeValueAsString(ToolResult.of(email)));
+    }
+
+    @Test
+    void writesLargeResultsAcrossBufferBoundaries() throws Exception {
+        List<Map<String, Object>> emails = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Map<String, Object> email = new LinkedHashMap<>();
+            email.put("id", "message-" + i);
+            // Vary the length so surrogate pairs land on every buffer offset
+            email.put("bodyPreview", "\uD83D\uDCE7 \"preview\" ".repeat(i % 7 + 1) + "x".repeat(i % 13));
+            emails.add(email);
+        }
+
+        String json = objectMapper.writeValueAsString(ToolResult.of(emails));
+        // Servlet responses are written through the UTF-8 byte generator
+        byte[] bytes = objectMapper.writeValueAsBytes(ToolResult.of(emails));
+
+        assertEquals(expected(emails), json);
+        assertEquals(json, new String(bytes, StandardCharsets.UTF_8));
+        Map<?, ?> parsed = objectMapper.readValue(json, Map.class);
+        String text = (String) ((Map<?, ?>) ((List<?>) parsed.get("content")).get(0)).get("text");
+        assertEquals(emails, objectMapper.readValue(text, List.class));
+    }
+
+    /**
+     * The previous two-pass formatting: serialize the value to a String, then the envelope
+     */
+    private String expected(Object value) throws Exception {
+        Map<String, Object> contentItem = new LinkedHashMap<>();
+        contentItem.put("type", "text");
+        contentItem.put("text", objectMapper.writeValueAsString(value));
+        return objectMapper.writeValueAsString(Map.of("content", List.of(contentItem)));
+    }
+}
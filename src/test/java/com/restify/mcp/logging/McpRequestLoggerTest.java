@@ -0,0 +1,101 @@
+package com.restify.mcp.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.restify.mcp.config.McpRequestLogProperties;
+import com.restify.mcp.dto.McpRequest;
+import com.restify.mcp.dto.McpResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class McpRequestLoggerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final McpRequestLogProperties properties = new McpRequestLogProperties();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final Logger requestLog = (Logger) LoggerFactory.getLogger("com.restify.mcp.requests");
+    private McpRequestLogger requestLogger;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        requestLog.addAppender(appender);
+        requestLogger = new McpRequestLogger(properties, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        requestLog.detachAppender(appender);
+    }
+
+    private McpRequest toolCall(String toolName) throws Exception {
+        return objectMapper.readValue("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"" + toolName + "\",\"arguments\":{\"top\":10}}}", McpRequest.class);
+    }
+
+    private McpResponse success(Object result) {
+        McpResponse response = new McpResponse();
+        response.setJsonrpc("2.0");
+        response.setId(7);
+        response.setResult(result);
+        return response;
+    }
+
+    @Test
+    void truncatesPayloadsWhileSerializing() throws Exception {
+        properties.setSampleRate(1.0);
+        properties.setPayloadMaxChars(40);
+
+        requestLogger.log(toolCall("readOutlookEmails"), success(Map.of("body", "x".repeat(10_000))), System.nanoTime());
+
+        assertEquals(1, appender.list.size());
+        String line = appender.list.get(0).getFormattedMessage();
+        assertTrue(line.startsWith("method=tools/call tool=readOutlookEmails id=7 status=ok"), line);
+        assertTrue(line.endsWith("result={\"body\":\"" + "x".repeat(31) + "..."), line);
+        assertTrue(line.length() < 300, line);
+    }
+
+    @Test
+    void samplesPerToolButKeepsErrors() throws Exception {
+        properties.setSampleRate(1.0);
+        McpRequestLogProperties.ToolSettings quiet = new McpRequestLogProperties.ToolSettings();
+        quiet.setSampleRate(0.0);
+        properties.getPerTool().put("hello", quiet);
+
+        requestLogger.log(toolCall("hello"), success("hello world"), System.nanoTime());
+        assertTrue(appender.list.isEmpty());
+
+        McpResponse failure = success(null);
+        McpResponse.Error error = new McpResponse.Error();
+        error.setCode(-32602);
+        error.setData("bad");
+        failure.setError(error);
+        requestLogger.log(toolCall("hello"), failure, System.nanoTime());
+
+        assertEquals(1, appender.list.size());
+        assertTrue(appender.list.get(0).getFormattedMessage().contains("status=-32602"));
+    }
+
+    @Test
+    void limitsLinesPerSecondAndReportsDropped() throws Exception {
+        properties.setSampleRate(1.0);
+        properties.setMaxPerSecond(2);
+        properties.setPayloadMaxChars(0);
+
+        for (int i = 0; i < 5; i++) {
+            requestLogger.log(toolCall("hello"), success("hello world"), System.nanoTime());
+        }
+
+        // A new second may begin mid-loop, which only lets more lines through
+        assertTrue(appender.list.size() >= 2);
+        assertFalse(appender.list.get(0).getFormattedMessage().contains("params="));
+    }
+}
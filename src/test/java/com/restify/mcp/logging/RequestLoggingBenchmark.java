@@ -0,0 +1,134 @@
+package com.restify.mcp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.restify.mcp.config.McpRequestLogProperties;
+import com.restify.mcp.dto.McpRequest;
+import com.restify.mcp.dto.McpResponse;
+import com.restify.mcp.dto.ToolResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the previous response-path logging, which serialized the full
+ * response into INFO log lines, against the sampled, truncated request log.
+ * Both variants also serialize the response once as it is written to the client.
+ * Log output goes through a pattern encoder into a discarding stream, so formatting
+ * and encoding costs are included but disk I/O is not.
+ *
+ * Run via {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestLoggingBenchmark {
+
+    private static final Logger controllerLog = LoggerFactory.getLogger("com.restify.mcp.controller.McpController");
+
+    private ObjectMapper objectMapper;
+    private McpRequestLogger sampledLogger;
+    private McpRequestLogger everyRequestLogger;
+    private McpRequest request;
+    private McpResponse response;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        configureDiscardingLogback();
+
+        McpRequestLogProperties sampled = new McpRequestLogProperties();
+        sampledLogger = new McpRequestLogger(sampled, objectMapper);
+
+        McpRequestLogProperties every = new McpRequestLogProperties();
+        every.setSampleRate(1.0);
+        every.setMaxPerSecond(Integer.MAX_VALUE);
+        everyRequestLogger = new McpRequestLogger(every, objectMapper);
+
+        request = objectMapper.readValue("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"readOutlookEmails\",\"arguments\":{\"top\":50}}}", McpRequest.class);
+
+        // A mailbox page of 50 messages with 4 KB bodies
+        List<Map<String, Object>> emails = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Map<String, Object> email = new LinkedHashMap<>();
+            email.put("id", "AAMkAGI2TG93AAA=" + i);
+            email.put("subject", "Quarterly report " + i);
+            email.put("from", "sender" + i + "@example.com");
+            email.put("receivedDateTime", "2024-01-01T10:00:00Z");
+            email.put("body", "Lorem ipsum dolor sit amet. ".repeat(150));
+            emails.add(email);
+        }
+        response = new McpResponse();
+        response.setJsonrpc("2.0");
+        response.setId(1);
+        response.setResult(ToolResult.of(Map.of("emails", emails, "count", emails.size())));
+    }
+
+    private static void configureDiscardingLogback() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] %logger{39} : %m%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        ch.qos.logback.classic.Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+    }
+
+    @Benchmark
+    public void fullPayloadLogging(Blackhole blackhole) throws Exception {
+        // What the controller used to do on every streamable response
+        String jsonResponse = objectMapper.writeValueAsString(response);
+        controllerLog.info("Streamable response JSON: {}", jsonResponse);
+        controllerLog.info("Writing to stream: {}", jsonResponse);
+        blackhole.consume(jsonResponse.getBytes());
+    }
+
+    @Benchmark
+    public void sampledRequestLogging(Blackhole blackhole) throws Exception {
+        long start = System.nanoTime();
+        blackhole.consume(objectMapper.writeValueAsBytes(response));
+        sampledLogger.log(request, response, start);
+    }
+
+    @Benchmark
+    public void everyRequestTruncated(Blackhole blackhole) throws Exception {
+        long start = System.nanoTime();
+        blackhole.consume(objectMapper.writeValueAsBytes(response));
+        everyRequestLogger.log(request, response, start);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RequestLoggingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
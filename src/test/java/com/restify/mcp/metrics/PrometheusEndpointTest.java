@@ -0,0 +1,79 @@
+package com.restify.mcp.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Scrapes /actuator/prometheus after a tools/call, through the real servlet stack so the
+ * payload metrics filter sees the request as in production. Tests disable metrics export
+ * unless observability is auto-configured.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+class PrometheusEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private String scrapeAfterToolCall() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String call = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":{\"name\":\"hello\",\"arguments\":{}}}";
+        ResponseEntity<String> response = restTemplate.postForEntity("/mcp", new HttpEntity<>(call, headers), String.class);
+        assertTrue(response.getBody().contains("hello world"), response.getBody());
+
+        ResponseEntity<String> scrape = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        assertTrue(scrape.getStatusCode().is2xxSuccessful(), scrape.getStatusCode().toString());
+        return scrape.getBody();
+    }
+
+    /**
+     * Value of the first sample of the metric whose labels include all the given ones
+     */
+    private static double sample(String scrape, String metric, String... labels) {
+        return Arrays.stream(scrape.split("\n"))
+                .filter(line -> line.startsWith(metric + "{") || line.startsWith(metric + " "))
+                .filter(line -> Arrays.stream(labels).allMatch(label -> line.contains(label)))
+                .mapToDouble(line -> Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1)))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No sample of " + metric + " with " + Arrays.toString(labels)));
+    }
+
+    @Test
+    void exposesMethodAndToolTimers() {
+        String scrape = scrapeAfterToolCall();
+
+        assertTrue(sample(scrape, "mcp_requests_seconds_count", "method=\"tools/call\"") >= 1);
+        assertTrue(sample(scrape, "mcp_tool_calls_seconds_count", "tool=\"hello\"", "outcome=\"success\"") >= 1);
+        // Percentiles and histogram buckets are published for latency SLOs
+        assertTrue(Pattern.compile("mcp_requests_seconds\\{.*method=\"tools/call\".*quantile=\"0\\.99\"")
+                .matcher(scrape).find());
+        assertTrue(Pattern.compile("mcp_tool_calls_seconds_bucket\\{.*le=").matcher(scrape).find());
+        // Meters registered up front are exposed before their first use
+        assertEquals(0, sample(scrape, "mcp_requests_seconds_count", "method=\"initialize\""), 0);
+        sample(scrape, "mcp_errors_total", "code=\"-32603\"");
+        sample(scrape, "mcp_tool_calls_active", "tool=\"readOutlookEmails\"");
+    }
+
+    @Test
+    void exposesPayloadByteCounters() {
+        String scrape = scrapeAfterToolCall();
+
+        assertTrue(sample(scrape, "mcp_request_size_bytes_count") >= 1);
+        assertTrue(sample(scrape, "mcp_request_size_bytes_sum") > 0);
+        assertTrue(sample(scrape, "mcp_response_size_bytes_count") >= 1);
+        assertTrue(sample(scrape, "mcp_response_size_bytes_sum") > 0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.testing.FakeGraphServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the attachment listing and content streaming of OutlookMailService against FakeGraphServer.
+ */
+class AttachmentStreamingTest {
+
+    private FakeGraphServer graph;
+    private GraphClientFactory factory;
+    private OutlookMailService service;
+    private final byte[] content = new byte[1024 * 1024 + 1];
+
+    @BeforeEach
+    void setUp() throws Exception {
+        graph = new FakeGraphServer();
+        factory = new GraphClientFactory(graph.endpoint(), 4, Duration.ofMinutes(1), 64, 32, 10, Duration.ofMinutes(1),
+                GraphThrottle.disabled());
+        service = new OutlookMailService(factory, MailboxCache.disabled(), GraphBatchCoalescer.disabled(),
+                UserProfileCache.disabled(), MailboxSearchIndex.disabled());
+        new Random(42).nextBytes(content);
+        graph.addAttachment("m1", "a1", "report.pdf", "application/pdf", content);
+        graph.addAttachment("m1", "a2", "notes.txt", "text/plain", new byte[]{'h', 'i'});
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.shutdown();
+        graph.close();
+    }
+
+    @Test
+    void listsAttachmentsWithoutContent() {
+        List<Map<String, Object>> attachments = service.listAttachmentsAsync("token", "m1").join();
+
+        assertEquals(2, attachments.size());
+        assertEquals("report.pdf", attachments.get(0).get("name"));
+        assertEquals("application/pdf", attachments.get(0).get("contentType"));
+        assertEquals(content.length, attachments.get(0).get("size"));
+        assertFalse(attachments.get(0).containsKey("contentBytes"));
+        assertTrue(graph.requests().get(0).contains("$select=id,name,contentType,size,isInline"));
+    }
+
+    @Test
+    void streamsContentInBase64ChunksWhileDownloading() {
+        // The server holds back the second half until the first chunk has been handed on,
+        // which only works if the content is not buffered as a whole first
+        CountDownLatch firstChunk = new CountDownLatch(1);
+        graph.holdAttachmentContent(firstChunk);
+        List<Long> offsets = new ArrayList<>();
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+
+        long bytes = service.forEachAttachmentChunk("token", "m1", "a1", (offset, base64) -> {
+            offsets.add(offset);
+            decoded.writeBytes(Base64.getDecoder().decode(base64));
+            firstChunk.countDown();
+        });
+
+        assertEquals(content.length, bytes);
+        assertArrayEquals(content, decoded.toByteArray());
+        assertTrue(offsets.size() > 1);
+        assertEquals(List.of(0L, 48 * 1024L), offsets.subList(0, 2));
+    }
+
+    @Test
+    void failsForUnknownAttachment() {
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.forEachAttachmentChunk("token", "m1", "missing", (offset, base64) -> { }));
+
+        assertTrue(e.getMessage().startsWith("Failed to read attachment content"));
+    }
+}
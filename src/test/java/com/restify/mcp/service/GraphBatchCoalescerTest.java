@@ -0,0 +1,125 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.dto.Email;
+import com.restify.mcp.dto.EmailSummary;
+import com.restify.mcp.dto.PartialEmail;
+import com.restify.mcp.testing.FakeGraphServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs OutlookMailService reads by ID through the GraphBatchCoalescer against FakeGraphServer.
+ */
+class GraphBatchCoalescerTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    private FakeGraphServer graph;
+    private GraphClientFactory factory;
+    private GraphBatchCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        graph = new FakeGraphServer();
+        for (int i = 1; i <= 45; i++) {
+            graph.addMessage("inbox", "msg-" + i, "Subject " + i, NOW.plusSeconds(i));
+        }
+        factory = new GraphClientFactory(graph.endpoint(), 4, Duration.ofMinutes(1), 64, 32, 10, Duration.ofMinutes(1),
+                GraphThrottle.disabled());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.shutdown();
+        }
+        factory.shutdown();
+        graph.close();
+    }
+
+    private OutlookMailService service(Duration window) {
+        coalescer = new GraphBatchCoalescer(true, window, 20);
+        return new OutlookMailService(factory, MailboxCache.disabled(), coalescer, UserProfileCache.disabled(),
+                MailboxSearchIndex.disabled());
+    }
+
+    private long requestsMatching(String fragment) {
+        return graph.requests().stream().filter(request -> request.contains(fragment)).count();
+    }
+
+    @Test
+    void readsListOfIdsInBatchesOfTwenty() {
+        List<String> ids = IntStream.rangeClosed(1, 45).mapToObj(i -> "msg-" + i).collect(Collectors.toList());
+
+        List<Email> emails = service(Duration.ofSeconds(10))
+                .readEmailsByIds("token", ids, MessageProjection.SUMMARY);
+
+        assertEquals(ids, emails.stream().map(Email::id).collect(Collectors.toList()));
+        assertEquals("Subject 45", ((EmailSummary) emails.get(44)).subject());
+        assertEquals(List.of("/v1.0/$batch", "/v1.0/$batch", "/v1.0/$batch"), graph.requests(),
+                "45 messages take three round trips, without waiting for the window");
+    }
+
+    @Test
+    void coalescesConcurrentSingleReads() throws Exception {
+        OutlookMailService service = service(Duration.ofMillis(300));
+        ExecutorService callers = Executors.newFixedThreadPool(10);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<CompletableFuture<Email>> reads = new ArrayList<>();
+            for (int i = 1; i <= 10; i++) {
+                String id = "msg-" + i;
+                reads.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return service.readEmailById("token", id, MessageProjection.SUMMARY);
+                }, callers));
+            }
+            start.countDown();
+
+            for (int i = 0; i < reads.size(); i++) {
+                assertEquals("msg-" + (i + 1), reads.get(i).join().id());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(List.of("/v1.0/$batch"), graph.requests());
+    }
+
+    @Test
+    void sendsLoneReadAsPlainRequest() {
+        Email email = service(Duration.ofMillis(1)).readEmailById("token", "msg-7", MessageProjection.SUMMARY);
+
+        assertEquals("Subject 7", ((EmailSummary) email).subject());
+        assertEquals(0, requestsMatching("$batch"));
+        assertEquals(1, requestsMatching("/v1.0/me/messages/msg-7"));
+    }
+
+    @Test
+    void unreadableMessageOnlyFailsItsOwnEntry() {
+        List<Email> emails = service(Duration.ofSeconds(10))
+                .readEmailsByIds("token", List.of("msg-1", "missing", "msg-2"), MessageProjection.SUMMARY);
+
+        assertEquals("Subject 1", ((EmailSummary) emails.get(0)).subject());
+        assertEquals("missing", emails.get(1).id());
+        assertNotNull(((PartialEmail) emails.get(1)).get("error"));
+        assertEquals("Subject 2", ((EmailSummary) emails.get(2)).subject());
+    }
+}
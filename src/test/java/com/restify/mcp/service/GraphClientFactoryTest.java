@@ -0,0 +1,110 @@
+package com.restify.mcp.service;
+
+import com.microsoft.graph.models.User;
+import com.microsoft.graph.requests.GraphServiceClient;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs GraphClientFactory against a local mock Graph server.
+ */
+class GraphClientFactoryTest {
+
+    private HttpServer server;
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+    private GraphClientFactory factory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1.0/me", exchange -> {
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{\"id\":\"user-1\",\"displayName\":\"Test User\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        factory = createFactory(2, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.shutdown();
+        server.stop(0);
+    }
+
+    private GraphClientFactory createFactory(int cacheSize, Duration ttl) {
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1.0";
+        return new GraphClientFactory(endpoint, 4, Duration.ofMinutes(1), 64, 32, cacheSize, ttl, GraphThrottle.disabled());
+    }
+
+    @Test
+    void sendsEachClientsOwnToken() {
+        User first = factory.createClient("token-a").me().buildRequest().get();
+        factory.createClient("token-b").me().buildRequest().get();
+
+        assertEquals("Test User", first.displayName);
+        assertEquals(List.of("Bearer token-a", "Bearer token-b"), authorizations);
+    }
+
+    @Test
+    void reusesConnectionsAcrossCallsAndTokens() {
+        for (int i = 0; i < 3; i++) {
+            factory.createClient("token-a").me().buildRequest().get();
+            factory.createClient("token-b").me().buildRequest().get();
+        }
+
+        Set<Integer> distinctPorts = clientPorts.stream().collect(Collectors.toSet());
+        assertEquals(6, clientPorts.size());
+        assertEquals(1, distinctPorts.size(), "All calls should share one pooled connection");
+    }
+
+    @Test
+    void cachesClientsPerToken() {
+        GraphServiceClient<Request> first = factory.createClient("token-a");
+        assertSame(first, factory.createClient("token-a"));
+        assertNotSame(first, factory.createClient("token-b"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedClients() {
+        GraphServiceClient<Request> first = factory.createClient("token-a");
+        factory.createClient("token-b");
+        factory.createClient("token-c");
+
+        assertNotSame(first, factory.createClient("token-a"), "Cache is bounded to two clients");
+    }
+
+    @Test
+    void expiresClientsAfterTtl() throws Exception {
+        factory.shutdown();
+        factory = createFactory(10, Duration.ofMillis(50));
+
+        GraphServiceClient<Request> first = factory.createClient("token-a");
+        Thread.sleep(100);
+
+        assertNotSame(first, factory.createClient("token-a"));
+    }
+
+    @Test
+    void rejectsMissingToken() {
+        assertThrows(IllegalArgumentException.class, () -> factory.createClient(""));
+    }
+}
@@ -0,0 +1,163 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.metrics.GraphMetrics;
+import com.microsoft.graph.core.ClientException;
+import com.microsoft.graph.models.User;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphThrottleTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger throttledResponses = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private GraphClientFactory factory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1.0/me", exchange -> {
+            requests.incrementAndGet();
+            boolean throttled = throttledResponses.getAndDecrement() > 0;
+            byte[] body = (throttled
+                    ? "{\"error\":{\"code\":\"TooManyRequests\",\"message\":\"Slow down\"}}"
+                    : "{\"id\":\"user-1\",\"displayName\":\"Test User\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (throttled) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+            }
+            exchange.sendResponseHeaders(throttled ? 429 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (factory != null) {
+            factory.shutdown();
+        }
+        server.stop(0);
+    }
+
+    private GraphClientFactory createFactory(double mailboxRate, Duration maxWait) {
+        GraphThrottle throttle = new GraphThrottle(true, 100, 100, mailboxRate, 1, maxWait, 10, 3,
+                Duration.ofMillis(10), Duration.ofMillis(100), 100, new GraphMetrics(registry));
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1.0";
+        factory = new GraphClientFactory(endpoint, 4, Duration.ofMinutes(1), 64, 32, 10,
+                Duration.ofMinutes(1), throttle);
+        return factory;
+    }
+
+    @Test
+    void bucketServesBurstThenPacesAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+
+        assertEquals(0, bucket.reserve(0, SECOND));
+        assertEquals(0, bucket.reserve(0, SECOND));
+        assertEquals(SECOND / 10, bucket.reserve(0, SECOND));
+        assertEquals(2 * SECOND / 10, bucket.reserve(0, SECOND));
+        assertEquals(-1, bucket.reserve(0, SECOND / 10), "Waits longer than the limit are refused");
+        assertEquals(0, bucket.reserve(10 * SECOND, SECOND), "Permits accrue again after a quiet period");
+    }
+
+    @Test
+    void throttlingPausesAndSlowsBucket() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        bucket.onThrottled(0);
+        bucket.pauseUntil(0, 2 * SECOND);
+
+        assertEquals(5, bucket.getRate());
+        assertEquals(2 * SECOND + SECOND / 5, bucket.reserve(0, 10 * SECOND));
+        for (int i = 0; i < 100; i++) {
+            bucket.onSuccess(3 * SECOND);
+        }
+        assertEquals(10, bucket.getRate());
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndDates() {
+        assertEquals(Long.valueOf(2 * SECOND), GraphThrottle.retryAfterNanos("2"));
+        assertEquals(Long.valueOf(0), GraphThrottle.retryAfterNanos("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertNull(GraphThrottle.retryAfterNanos("soon"));
+        assertNull(GraphThrottle.retryAfterNanos(null));
+    }
+
+    @Test
+    void retriesThrottledRequestsAfterRetryAfter() {
+        throttledResponses.set(2);
+
+        User user = createFactory(100, Duration.ofSeconds(5)).createClient("token").me().buildRequest().get();
+
+        assertEquals("Test User", user.displayName);
+        assertEquals(3, requests.get());
+        assertEquals(2, registry.get("graph.requests.retries").counter().count());
+        assertEquals(2, registry.get("graph.requests.wire").tag("outcome", "throttled").timer().count());
+        assertEquals(1, registry.get("graph.requests.wire").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void retriesThrottledAsyncRequests() throws Exception {
+        throttledResponses.set(2);
+
+        User user = createFactory(100, Duration.ofSeconds(5)).createClient("token").me().buildRequest()
+                .getAsync().get(5, TimeUnit.SECONDS);
+
+        assertEquals("Test User", user.displayName);
+        assertEquals(3, requests.get());
+        assertEquals(2, registry.get("graph.requests.retries").counter().count());
+    }
+
+    @Test
+    void throttledMailboxDoesNotDelayOtherMailboxes() throws Exception {
+        GraphClientFactory factory = createFactory(1, Duration.ofSeconds(5));
+        List<CompletableFuture<User>> busy = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            busy.add(factory.createClient("token-a").me().buildRequest().getAsync());
+        }
+
+        long start = System.nanoTime();
+        User other = factory.createClient("token-b").me().buildRequest().getAsync().get(5, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals("Test User", other.displayName);
+        assertTrue(elapsed < SECOND / 2, "Unthrottled mailbox waited " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+        assertFalse(busy.get(3).isDone(), "The busy mailbox is still paced at its rate");
+        for (CompletableFuture<User> call : busy) {
+            assertEquals("Test User", call.get(10, TimeUnit.SECONDS).displayName);
+        }
+    }
+
+    @Test
+    void failsFastWhenWaitWouldExceedMaxWait() {
+        GraphClientFactory factory = createFactory(1, Duration.ofMillis(100));
+        factory.createClient("token").me().buildRequest().get();
+
+        ClientException e = assertThrows(ClientException.class,
+                () -> factory.createClient("token").me().buildRequest().get());
+
+        assertInstanceOf(GraphThrottle.ThrottledException.class, e.getCause());
+        assertTrue(e.getCause().getMessage().contains("rejected before it was sent"), e.getCause().getMessage());
+        assertEquals(1, requests.get());
+        assertEquals(1, registry.get("graph.requests.rejected").counter().count());
+    }
+}
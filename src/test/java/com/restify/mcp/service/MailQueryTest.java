@@ -0,0 +1,118 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.dto.Email;
+import com.restify.mcp.testing.FakeGraphServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Builds MailQuery clauses, and runs filtered listings against FakeGraphServer.
+ */
+class MailQueryTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    private FakeGraphServer graph;
+    private GraphClientFactory factory;
+    private OutlookMailService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        graph = new FakeGraphServer();
+        factory = new GraphClientFactory(graph.endpoint(), 4, Duration.ofMinutes(1), 64, 32, 10, Duration.ofMinutes(1),
+                GraphThrottle.disabled());
+        service = new OutlookMailService(factory, MailboxCache.disabled(), GraphBatchCoalescer.disabled(),
+                UserProfileCache.disabled(), MailboxSearchIndex.disabled());
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.shutdown();
+        graph.close();
+    }
+
+    private static List<String> ids(List<Email> emails) {
+        return emails.stream().map(Email::id).collect(Collectors.toList());
+    }
+
+    private List<String> listingRequests() {
+        return graph.requests().stream().filter(request -> request.contains("/mailFolders/")).collect(Collectors.toList());
+    }
+
+    @Test
+    void pushesConditionsIntoFilter() {
+        MailQuery query = MailQuery.of("o'brien@contoso.com", "2024-06-01", "2024-06-02T10:00:00+02:00", true, false, " ");
+
+        assertEquals("receivedDateTime ge 2024-06-01T00:00:00Z and receivedDateTime lt 2024-06-02T08:00:00Z"
+                + " and from/emailAddress/address eq 'o''brien@contoso.com' and isRead eq false"
+                + " and hasAttachments eq false", query.filter());
+        assertEquals("receivedDateTime desc", query.orderBy());
+        assertNull(query.search());
+        assertNull(query.clientFilter());
+        assertNull(query.note());
+        assertEquals("receivedDateTime ge 1900-01-01T00:00:00Z and isRead eq false",
+                MailQuery.of(null, null, null, true, null, null).filter());
+    }
+
+    @Test
+    void searchesKeywordsAndSenderNames() {
+        MailQuery query = MailQuery.of("Bob Smith", null, null, null, null, "budget \"q3\"");
+
+        assertEquals("\"budget q3 from:Bob from:Smith\"", query.search());
+        assertNull(query.filter());
+        assertNull(query.orderBy());
+        assertNull(query.clientFilter(), "Nothing is left to check on the results");
+        assertNotNull(query.note());
+    }
+
+    @Test
+    void rejectsBadDates() {
+        assertThrows(IllegalArgumentException.class, () -> MailQuery.of(null, "yesterday", null, null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> MailQuery.of(null, "2024-06-02", "2024-06-01", null, null, null));
+        assertSame(MailQuery.ALL, MailQuery.of("", null, " ", false, null, null));
+    }
+
+    @Test
+    void listsOnlyMatchingMessagesFromGraph() {
+        graph.addMessage("inbox", "msg-1", "Budget review", "alice@contoso.com", NOW.minusSeconds(86400));
+        graph.addMessage("inbox", "msg-2", "Team lunch", "bob@contoso.com", NOW.plusSeconds(1));
+        graph.addMessage("inbox", "msg-3", "Budget approved", "bob@contoso.com", NOW.plusSeconds(2));
+        graph.addMessage("inbox", "msg-4", "Offsite", "bob@contoso.com", NOW.plusSeconds(3));
+        graph.markRead("inbox", "msg-3");
+
+        List<Email> emails = service.readEmails("token", 10, null, MessageProjection.SUMMARY,
+                MailQuery.of("bob@contoso.com", "2024-06-01", null, true, null, null));
+
+        assertEquals(List.of("msg-4", "msg-2"), ids(emails));
+        assertEquals(1, listingRequests().size());
+        assertTrue(listingRequests().get(0).contains("$filter=receivedDateTime ge 2024-06-01T00:00:00Z"),
+                listingRequests().toString());
+    }
+
+    @Test
+    void checksUnpushableConditionsOnSearchResults() {
+        for (int i = 0; i < 120; i++) {
+            graph.addMessage("inbox", "msg-" + i, (i % 10 == 0 ? "Budget " : "Misc ") + i, NOW.plusSeconds(i));
+            if (i % 20 == 0) {
+                graph.markRead("inbox", "msg-" + i);
+            }
+        }
+
+        MailQuery query = MailQuery.of(null, null, null, true, null, "budget");
+        List<Email> emails = service.readEmails("token", 3, null, MessageProjection.SUMMARY, query);
+
+        assertEquals(List.of("msg-110", "msg-90", "msg-70"), ids(emails));
+        assertTrue(listingRequests().stream().allMatch(request -> request.contains("$search")
+                && !request.contains("$filter") && !request.contains("$orderby")), listingRequests().toString());
+        assertTrue(query.note().contains("unreadOnly"));
+    }
+}
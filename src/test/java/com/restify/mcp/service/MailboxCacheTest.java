@@ -0,0 +1,181 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.dto.Email;
+import com.restify.mcp.dto.EmailSummary;
+import com.restify.mcp.testing.FakeGraphServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs OutlookMailService with the delta-synced MailboxCache against FakeGraphServer.
+ */
+class MailboxCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    private FakeGraphServer graph;
+    private GraphClientFactory factory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        graph = new FakeGraphServer();
+        graph.setDeltaPageSize(2);
+        for (int i = 1; i <= 5; i++) {
+            graph.addMessage("inbox", "msg-" + i, "Subject " + i, NOW.plusSeconds(i));
+        }
+        factory = new GraphClientFactory(graph.endpoint(), 4, Duration.ofMinutes(1), 64, 32, 10, Duration.ofMinutes(1),
+                GraphThrottle.disabled());
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.shutdown();
+        graph.close();
+    }
+
+    private OutlookMailService service(int maxFolders, int maxMessages, Duration syncInterval) {
+        return service(maxFolders, maxMessages, syncInterval, Duration.ofMinutes(10));
+    }
+
+    private OutlookMailService service(int maxFolders, int maxMessages, Duration syncInterval, Duration ttl) {
+        MailboxCache cache = new MailboxCache(true, maxFolders, maxMessages, ttl,
+                syncInterval, Duration.ZERO, 50, MailboxSearchIndex.disabled());
+        return new OutlookMailService(factory, cache, GraphBatchCoalescer.disabled(), UserProfileCache.disabled(),
+                MailboxSearchIndex.disabled());
+    }
+
+    private static List<String> ids(List<Email> emails) {
+        return emails.stream().map(Email::id).collect(Collectors.toList());
+    }
+
+    private long requestsMatching(String fragment) {
+        return graph.requests().stream().filter(request -> request.contains(fragment)).count();
+    }
+
+    @Test
+    void servesRepeatReadsFromMemoryAndFetchesOnlyChanges() {
+        OutlookMailService service = service(10, 100, Duration.ZERO);
+
+        assertEquals(List.of("msg-5", "msg-4", "msg-3"), ids(service.readEmails("token", 3, null)));
+        assertEquals(3, graph.requests().size(), graph.requests().toString());
+        assertTrue(graph.requests().get(0).contains("$select=id,subject,from,toRecipients"), graph.requests().get(0));
+
+        assertEquals(List.of("msg-5", "msg-4", "msg-3"), ids(service.readEmails("token", 3, null)));
+        assertEquals(4, graph.requests().size());
+        assertTrue(graph.requests().get(3).contains("$deltatoken"), graph.requests().get(3));
+
+        graph.addMessage("inbox", "msg-6", "Subject 6", NOW.plusSeconds(6));
+        graph.deleteMessage("inbox", "msg-4");
+        graph.markRead("inbox", "msg-5");
+        List<Email> emails = service.readEmails("token", 3, null);
+
+        assertEquals(List.of("msg-6", "msg-5", "msg-3"), ids(emails));
+        assertTrue(((EmailSummary) emails.get(1)).isRead());
+        assertEquals(0, requestsMatching("/messages?"), "Listings never hit the messages endpoint");
+    }
+
+    @Test
+    void skipsSyncWithinSyncInterval() {
+        OutlookMailService service = service(10, 100, Duration.ofHours(1));
+
+        service.readEmails("token", 3, null);
+        int afterFirstRead = graph.requests().size();
+        service.readEmails("token", 5, null);
+
+        assertEquals(afterFirstRead, graph.requests().size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedMailboxes() {
+        OutlookMailService service = service(1, 100, Duration.ZERO);
+
+        service.readEmails("token-a", 3, null);
+        service.readEmails("token-b", 3, null);
+        service.readEmails("token-a", 3, null);
+
+        assertEquals(0, requestsMatching("$deltatoken"), "Each read after eviction starts a full sync");
+    }
+
+    @Test
+    void keepsFolderThatIsReadWithinTheTtl() throws Exception {
+        OutlookMailService service = service(10, 100, Duration.ZERO, Duration.ofMillis(1500));
+        service.readEmails("token", 3, null);
+        long initialSyncRequests = graph.requests().size();
+
+        // Each read restarts the ttl, so the folder outlives ttl after its initial sync
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(700);
+            service.readEmails("token", 3, null);
+        }
+
+        assertEquals(initialSyncRequests + 3, graph.requests().size(), graph.requests().toString());
+        assertEquals(3, requestsMatching("$deltatoken"), "Every later read only fetches changes");
+    }
+
+    @Test
+    void syncsWithoutBlockingTheCallerAndSharesTheSyncInProgress() throws Exception {
+        OutlookMailService service = service(10, 100, Duration.ZERO);
+        service.readEmails("token", 3, null);
+        long afterFirstRead = graph.requests().size();
+
+        CountDownLatch gate = new CountDownLatch(1);
+        graph.holdResponses(gate);
+        CompletableFuture<List<Email>> first;
+        CompletableFuture<List<Email>> second;
+        try {
+            first = service.readEmailsAsync("token", 3, null, MessageProjection.SUMMARY, MailQuery.ALL);
+            second = service.readEmailsAsync("token", 2, null, MessageProjection.SUMMARY, MailQuery.ALL);
+            assertFalse(first.isDone(), "The delta sync is still waiting for Graph");
+            assertFalse(second.isDone(), "A concurrent read waits for the sync in progress");
+        } finally {
+            gate.countDown();
+        }
+
+        assertEquals(List.of("msg-5", "msg-4", "msg-3"), ids(first.get(10, TimeUnit.SECONDS)));
+        assertEquals(List.of("msg-5", "msg-4"), ids(second.get(10, TimeUnit.SECONDS)));
+        assertEquals(afterFirstRead + 1, graph.requests().size(), graph.requests().toString());
+    }
+
+    @Test
+    void fallsBackToGraphWhenMoreMessagesAreAskedThanCached() {
+        OutlookMailService service = service(10, 2, Duration.ZERO);
+
+        assertEquals(List.of("msg-5", "msg-4"), ids(service.readEmails("token", 2, null)));
+        assertEquals(0, requestsMatching("/messages?"));
+
+        assertEquals(List.of("msg-5", "msg-4", "msg-3", "msg-2"), ids(service.readEmails("token", 4, null)));
+        assertEquals(1, requestsMatching("/messages?"));
+    }
+
+    @Test
+    void bypassesCacheForFieldsItDoesNotHold() {
+        OutlookMailService service = service(10, 100, Duration.ZERO);
+
+        service.readEmails("token", 3, null, MessageProjection.of(List.of("id", "body"), MessageProjection.SUMMARY));
+
+        assertEquals(0, requestsMatching("/delta"));
+        assertEquals(1, requestsMatching("/messages?"));
+    }
+
+    @Test
+    void resyncsWhenDeltaLinkExpires() {
+        OutlookMailService service = service(10, 100, Duration.ZERO);
+        service.readEmails("token", 3, null);
+
+        graph.expireDeltaTokens();
+        graph.addMessage("inbox", "msg-6", "Subject 6", NOW.plusSeconds(6));
+
+        assertEquals(List.of("msg-6", "msg-5", "msg-4"), ids(service.readEmails("token", 3, null)));
+    }
+}
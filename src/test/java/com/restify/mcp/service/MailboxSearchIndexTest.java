@@ -0,0 +1,143 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.dto.Email;
+import com.restify.mcp.testing.FakeGraphServer;
+import com.microsoft.graph.models.EmailAddress;
+import com.microsoft.graph.models.Message;
+import com.microsoft.graph.models.Recipient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs searchEmails with the MailboxSearchIndex against FakeGraphServer, and the index on its own.
+ */
+class MailboxSearchIndexTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    private FakeGraphServer graph;
+    private GraphClientFactory factory;
+    private MailboxSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        graph = new FakeGraphServer();
+        graph.addMessage("inbox", "msg-1", "Budget review", "alice@contoso.com", NOW.plusSeconds(1));
+        graph.addMessage("inbox", "msg-2", "Team lunch", "bob@contoso.com", NOW.plusSeconds(2));
+        graph.addMessage("inbox", "msg-3", "Budget approved", "bob@contoso.com", NOW.plusSeconds(3));
+        factory = new GraphClientFactory(graph.endpoint(), 4, Duration.ofMinutes(1), 64, 32, 10, Duration.ofMinutes(1),
+                GraphThrottle.disabled());
+        index = new MailboxSearchIndex(true, 10, 100, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.shutdown();
+        graph.close();
+    }
+
+    private OutlookMailService service(MailboxCache cache) {
+        return new OutlookMailService(factory, cache, GraphBatchCoalescer.disabled(), UserProfileCache.disabled(), index);
+    }
+
+    private static List<String> ids(List<Email> emails) {
+        return emails.stream().map(Email::id).collect(Collectors.toList());
+    }
+
+    private long requestsMatching(String fragment) {
+        return graph.requests().stream().filter(request -> request.contains(fragment)).count();
+    }
+
+    @Test
+    void searchesGraphWhileIndexIsCold() {
+        List<Email> emails = service(MailboxCache.disabled()).searchEmails("token", "budget", "bob", 10);
+
+        assertEquals(List.of("msg-3"), ids(emails));
+        assertEquals(1, requestsMatching("$search"), graph.requests().toString());
+    }
+
+    @Test
+    void answersFromIndexOnceListingsFetchedMessages() {
+        OutlookMailService service = service(MailboxCache.disabled());
+        service.readEmails("token", 10, null);
+        int requests = graph.requests().size();
+
+        assertEquals(List.of("msg-3", "msg-1"), ids(service.searchEmails("token", "budget", null, 2)));
+        assertEquals(List.of("msg-3", "msg-2"), ids(service.searchEmails("token", null, "bob@contoso.com", 2)));
+        assertEquals(List.of("msg-1"), ids(service.searchEmails("token", "from:alice Budget", null, 1)));
+        assertEquals(List.of("msg-3"), ids(service.searchEmails("token", "budget", null, 1)));
+        assertEquals(requests, graph.requests().size(), "Searches the index has enough hits for never reach Graph");
+    }
+
+    @Test
+    void searchesGraphWhenIndexHasFewerHitsThanAskedFor() {
+        OutlookMailService service = service(MailboxCache.disabled());
+        service.readEmails("token", 2, null);
+        graph.addMessage("archive", "msg-0", "Budget draft", "carol@contoso.com", NOW);
+
+        assertEquals(List.of("msg-3"), ids(service.searchEmails("token", "budget", null, 1)));
+        assertEquals(0, requestsMatching("$search"));
+        // msg-1 was never listed, and msg-0 is in a folder that never was
+        assertEquals(Set.of("msg-3", "msg-1", "msg-0"), Set.copyOf(ids(service.searchEmails("token", "budget", null, 10))));
+        assertEquals(1, requestsMatching("$search"));
+        assertNull(index.search("token", "budget lunch", null, 10));
+    }
+
+    @Test
+    void followsMailboxCacheDeltas() {
+        MailboxCache cache = new MailboxCache(true, 10, 100, Duration.ofMinutes(10), Duration.ZERO, Duration.ZERO, 50, index);
+        OutlookMailService service = service(cache);
+        service.readEmails("token", 3, null);
+
+        graph.deleteMessage("inbox", "msg-3");
+        graph.addMessage("inbox", "msg-4", "Budget forecast", "carol@contoso.com", NOW.plusSeconds(4));
+        service.readEmails("token", 3, null);
+
+        assertEquals(List.of("msg-4", "msg-1"), ids(service.searchEmails("token", "budget", null, 2)));
+        assertEquals(0, requestsMatching("$search"));
+    }
+
+    @Test
+    void keepsNewestMessagesAcrossReplacementsAndCompaction() {
+        MailboxSearchIndex small = new MailboxSearchIndex(true, 10, 50, Duration.ofMinutes(10));
+        for (int round = 0; round < 5; round++) {
+            List<Message> messages = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                messages.add(message("msg-" + i, (i % 2 == 0 ? "even" : "odd") + " round" + round, i));
+            }
+            small.update("token", messages);
+        }
+
+        List<Message> even = small.search("token", "even", null, 20);
+        assertEquals(20, even.size());
+        assertNull(small.search("token", "even", null, 26), "At most the newest 50 messages are kept");
+        assertEquals("msg-198", even.get(0).id);
+        assertTrue(even.stream().allMatch(message -> message.subject.equals("even round4")),
+                "Replaced versions are not found");
+        assertNull(small.search("token", "round3", null, 1), "Replaced versions are not found");
+        assertNull(small.search("other-token", "even", null, 100), "Other tokens have a cold index");
+    }
+
+    private static Message message(String id, String subject, int minutes) {
+        Message message = new Message();
+        message.id = id;
+        message.subject = subject;
+        message.receivedDateTime = OffsetDateTime.of(2024, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC).plusMinutes(minutes);
+        message.from = new Recipient();
+        message.from.emailAddress = new EmailAddress();
+        message.from.emailAddress.address = "sender@example.com";
+        return message;
+    }
+}
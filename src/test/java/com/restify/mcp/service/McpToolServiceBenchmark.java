@@ -0,0 +1,175 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.config.McpToolProperties;
+import com.restify.mcp.metrics.McpMetrics;
+import com.restify.mcp.tool.HelloTool;
+import com.restify.mcp.tool.OutlookMailTool;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the compiled MethodHandle tool dispatch in McpToolService
+ * against the previous reflective Method.invoke path. Each call includes
+ * serializing its result, since formatting is deferred to response writing.
+ *
+ * Run via {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class McpToolServiceBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private McpToolService mcpToolService;
+    private ReflectiveDispatcher reflectiveDispatcher;
+    private JsonNode helloArguments;
+    private JsonNode readEmailsArguments;
+
+    @Setup
+    public void setUp() throws Exception {
+        HelloTool helloTool = new HelloTool();
+        GraphClientFactory graphClientFactory = new GraphClientFactory("https://graph.microsoft.com/v1.0",
+                32, Duration.ofMinutes(5), 256, 128, 1000, Duration.ofMinutes(10), GraphThrottle.disabled());
+        OutlookMailTool outlookMailTool = new OutlookMailTool(new OutlookMailService(graphClientFactory,
+                MailboxCache.disabled(), GraphBatchCoalescer.disabled(), UserProfileCache.disabled(),
+                MailboxSearchIndex.disabled()));
+        mcpToolService = new McpToolService(helloTool, outlookMailTool, objectMapper,
+                new ToolExecutor(new McpToolProperties()), new McpMetrics(new SimpleMeterRegistry()),
+                new McpToolProperties());
+
+        reflectiveDispatcher = new ReflectiveDispatcher(objectMapper);
+        reflectiveDispatcher.register("hello", helloTool, HelloTool.class.getMethod("hello"));
+        reflectiveDispatcher.register("readOutlookEmails", outlookMailTool,
+                OutlookMailTool.class.getMethod("readOutlookEmails", Integer.class, String.class, List.class,
+                        String.class, String.class, String.class, Boolean.class, Boolean.class, String.class,
+                        ToolContext.class));
+
+        helloArguments = objectMapper.createObjectNode();
+        readEmailsArguments = objectMapper.readTree("{\"maxResults\":25,\"folderId\":\"inbox\"}");
+    }
+
+    @Benchmark
+    public void helloCompiled(Blackhole blackhole) throws Exception {
+        blackhole.consume(objectMapper.writeValueAsBytes(mcpToolService.callTool("hello", helloArguments)));
+    }
+
+    @Benchmark
+    public void helloReflective(Blackhole blackhole) throws Exception {
+        blackhole.consume(objectMapper.writeValueAsBytes(reflectiveDispatcher.callTool("hello", helloArguments)));
+    }
+
+    @Benchmark
+    public void readEmailsCompiled(Blackhole blackhole) throws Exception {
+        blackhole.consume(objectMapper.writeValueAsBytes(mcpToolService.callTool("readOutlookEmails", readEmailsArguments)));
+    }
+
+    @Benchmark
+    public void readEmailsReflective(Blackhole blackhole) throws Exception {
+        blackhole.consume(objectMapper.writeValueAsBytes(reflectiveDispatcher.callTool("readOutlookEmails", readEmailsArguments)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(McpToolServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Copy of the reflective dispatch McpToolService used before tools were compiled
+     * into MethodHandle invokers, kept here as the benchmark baseline.
+     */
+    static class ReflectiveDispatcher {
+        private final Map<String, Object> instances = new HashMap<>();
+        private final Map<String, Method> methods = new HashMap<>();
+        private final ObjectMapper objectMapper;
+
+        ReflectiveDispatcher(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        void register(String toolName, Object instance, Method method) {
+            instances.put(toolName, instance);
+            methods.put(toolName, method);
+        }
+
+        Object callTool(String toolName, JsonNode arguments) throws Exception {
+            Method method = methods.get(toolName);
+            Parameter[] parameters = method.getParameters();
+            Object[] args = new Object[parameters.length];
+
+            for (int i = 0; i < parameters.length; i++) {
+                Parameter param = parameters[i];
+                String paramName = param.getName();
+                Class<?> paramType = param.getType();
+
+                JsonNode argValue = arguments.has(paramName) ? arguments.get(paramName) : null;
+
+                if (argValue == null || argValue.isNull()) {
+                    if (paramType.isPrimitive()) {
+                        throw new IllegalArgumentException("Required parameter '" + paramName + "' is missing");
+                    }
+                    args[i] = null;
+                } else {
+                    args[i] = convertJsonNodeToType(argValue, paramType);
+                }
+            }
+
+            Object result = method.invoke(instances.get(toolName), args);
+            return formatToolResult(result);
+        }
+
+        private Object convertJsonNodeToType(JsonNode node, Class<?> targetType) {
+            if (targetType == String.class) {
+                return node.asText();
+            } else if (targetType == Integer.class || targetType == int.class) {
+                return node.asInt();
+            } else if (targetType == Long.class || targetType == long.class) {
+                return node.asLong();
+            } else if (targetType == Double.class || targetType == double.class) {
+                return node.asDouble();
+            } else if (targetType == Boolean.class || targetType == boolean.class) {
+                return node.asBoolean();
+            } else if (List.class.isAssignableFrom(targetType)) {
+                return objectMapper.convertValue(node, List.class);
+            } else if (Map.class.isAssignableFrom(targetType)) {
+                return objectMapper.convertValue(node, Map.class);
+            } else {
+                return objectMapper.convertValue(node, targetType);
+            }
+        }
+
+        private Object formatToolResult(Object result) {
+            Map<String, Object> mcpResult = new HashMap<>();
+            List<Map<String, Object>> content = new ArrayList<>();
+            Map<String, Object> contentItem = new HashMap<>();
+            contentItem.put("type", "text");
+            if (result instanceof String) {
+                contentItem.put("text", result);
+            } else {
+                try {
+                    contentItem.put("text", objectMapper.writeValueAsString(result));
+                } catch (Exception e) {
+                    contentItem.put("text", result.toString());
+                }
+            }
+            content.add(contentItem);
+            mcpResult.put("content", content);
+            return mcpResult;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.config.McpToolProperties;
+import com.restify.mcp.metrics.McpMetrics;
+import com.restify.mcp.dto.ToolResult;
+import com.restify.mcp.tool.HelloTool;
+import com.restify.mcp.tool.OutlookMailTool;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class McpToolServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private McpToolService mcpToolService;
+
+    @BeforeEach
+    void setUp() {
+        GraphClientFactory graphClientFactory = new GraphClientFactory("https://graph.microsoft.com/v1.0",
+                1, Duration.ofMinutes(1), 8, 8, 10, Duration.ofMinutes(1), GraphThrottle.disabled());
+        OutlookMailService outlookMailService = new OutlookMailService(graphClientFactory, MailboxCache.disabled(),
+                GraphBatchCoalescer.disabled(), UserProfileCache.disabled(), MailboxSearchIndex.disabled());
+        mcpToolService = new McpToolService(new HelloTool(), new OutlookMailTool(outlookMailService), objectMapper,
+                new ToolExecutor(new McpToolProperties()), new McpMetrics(meterRegistry), new McpToolProperties());
+    }
+
+    private Object call(String toolName, String argumentsJson) throws Exception {
+        try (JsonParser arguments = objectMapper.createParser(argumentsJson)) {
+            arguments.nextToken();
+            return mcpToolService.callTool(toolName, arguments, ToolContext.NONE);
+        }
+    }
+
+    private String text(Object result) {
+        return (String) ((ToolResult) result).getContent().get(0).getValue();
+    }
+
+    @Test
+    void bindsArgumentsFromStreamAndSkipsUnknownFields() throws Exception {
+        Object result = call("readOutlookEmailById",
+                "{\"ignored\":{\"nested\":[1,{\"deep\":true}]},\"messageId\":\"msg-1\",\"extra\":[]}");
+
+        String json = objectMapper.writeValueAsString(result);
+        assertTrue(json.contains("msg-1"), json);
+    }
+
+    @Test
+    void callsToolWithoutArguments() throws Exception {
+        assertEquals("hello world", text(mcpToolService.callTool("hello", (JsonParser) null, ToolContext.NONE)));
+        assertEquals("hello world", text(call("hello", "{}")));
+    }
+
+    @Test
+    void rejectsNonObjectArguments() {
+        assertThrows(IllegalArgumentException.class, () -> call("hello", "[1, 2]"));
+    }
+
+    @Test
+    void rejectsStructuredValueForScalarParameter() {
+        assertThrows(IllegalArgumentException.class, () -> call("readOutlookEmailById", "{\"messageId\":{\"a\":1}}"));
+    }
+
+    @Test
+    void rejectsUnknownTool() {
+        assertThrows(IllegalArgumentException.class, () -> call("missing", "{}"));
+    }
+
+    @Test
+    void recordsToolCallsByOutcome() throws Exception {
+        call("hello", "{}");
+        assertThrows(IllegalArgumentException.class, () -> call("readOutlookEmailById", "{\"messageId\":[]}"));
+
+        assertEquals(1, meterRegistry.get("mcp.tool.calls").tags("tool", "hello", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("mcp.tool.calls").tags("tool", "readOutlookEmailById", "outcome", "error").timer().count());
+        assertEquals(0, meterRegistry.get("mcp.tool.calls.active").tags("tool", "hello").gauge().value());
+    }
+
+    @Test
+    void describesListParametersAsArrays() throws Exception {
+        String tools = objectMapper.writeValueAsString(mcpToolService.listTools());
+
+        assertTrue(tools.contains("\"fields\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}"), tools);
+        assertFalse(tools.contains("\"context\""), tools);
+    }
+
+    @Test
+    void leavesBoxedParametersOptional() throws Exception {
+        JsonNode tools = objectMapper.readTree(objectMapper.writeValueAsString(mcpToolService.listTools()))
+                .path("tools");
+        JsonNode schema = null;
+        for (JsonNode tool : tools) {
+            if ("readOutlookEmails".equals(tool.path("name").asText())) {
+                schema = tool.path("inputSchema");
+            }
+        }
+
+        assertNotNull(schema, tools.toString());
+        assertEquals("boolean", schema.path("properties").path("hasAttachments").path("type").asText());
+        assertEquals("integer", schema.path("properties").path("maxResults").path("type").asText());
+        for (JsonNode name : schema.path("required")) {
+            assertNotEquals("hasAttachments", name.asText(), schema.toString());
+            assertNotEquals("maxResults", name.asText(), schema.toString());
+        }
+    }
+
+    private double cacheLookups(String toolName, String result) {
+        return meterRegistry.get("mcp.tool.cache.requests").tags("tool", toolName, "result", result).counter().count();
+    }
+
+    @Test
+    void answersRepeatedCallsFromResultCache() throws Exception {
+        Object first = call("readOutlookEmailById", "{\"messageId\":\"msg-1\",\"fields\":[\"id\"]}");
+        Object second = call("readOutlookEmailById",
+                "{\"ignored\":true,\"fields\":[\"id\"],\"bodyFormat\":null,\"messageId\":\"msg-1\"}");
+        call("readOutlookEmailById", "{\"messageId\":\"msg-2\"}");
+
+        assertInstanceOf(RawValue.class, second, "Hits return the serialized result");
+        assertEquals(objectMapper.writeValueAsString(first), objectMapper.writeValueAsString(second));
+        assertEquals(1, cacheLookups("readOutlookEmailById", "hit"));
+        assertEquals(2, cacheLookups("readOutlookEmailById", "miss"));
+        assertEquals(2, meterRegistry.get("mcp.tool.cache.entries").tags("tool", "readOutlookEmailById").gauge().value());
+        assertNull(meterRegistry.find("mcp.tool.cache.requests").tags("tool", "hello").counter(),
+                "Tools without @McpToolCache are not cached");
+    }
+
+    @Test
+    void cachesPerToolAsConfigured() throws Exception {
+        McpToolProperties properties = new McpToolProperties();
+        McpToolProperties.ToolSettings off = new McpToolProperties.ToolSettings();
+        off.setCacheTtl(Duration.ZERO);
+        McpToolProperties.ToolSettings on = new McpToolProperties.ToolSettings();
+        on.setCacheTtl(Duration.ofMinutes(1));
+        properties.getPerTool().put("readOutlookEmailById", off);
+        properties.getPerTool().put("hello", on);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        McpToolService service = new McpToolService(new HelloTool(), new OutlookMailTool(null), objectMapper,
+                new ToolExecutor(properties), new McpMetrics(registry), properties);
+
+        service.callTool("hello", (JsonParser) null, ToolContext.NONE);
+        service.callTool("hello", (JsonParser) null, ToolContext.NONE);
+
+        assertEquals(1, registry.get("mcp.tool.cache.requests").tags("tool", "hello", "result", "hit").counter().count());
+        assertNull(registry.find("mcp.tool.cache.requests").tags("tool", "readOutlookEmailById").counter());
+        assertNull(registry.find("mcp.tool.cache.requests").tags("tool", "getOutlookUserProfile").counter(),
+                "The profile is cached by UserProfileCache only");
+    }
+
+    @Test
+    void bindsFieldSubsetAndRejectsUnknownFields() {
+        assertThrows(IllegalArgumentException.class,
+                () -> call("readOutlookEmailById", "{\"messageId\":\"msg-1\",\"fields\":[\"id\",\"headers\"]}"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.restify.mcp.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageBodyFilterTest {
+
+    private static final MessageBodyFilter TEXT = MessageBodyFilter.of("text", false, 0);
+
+    @Test
+    void extractsTextFromHtml() {
+        String html = "<html><head><title>Ignored</title><style>p { color: red; }</style></head>"
+                + "<body><p>Hello&nbsp;<b>Bob</b>,</p><p>Numbers:<br>1 &lt; 2 &amp;&amp; 3 &gt; 2</p>"
+                + "<ul><li>first</li><li>second &#8211; &#x1F600;</li></ul>"
+                + "<script>alert('<p>no</p>')</script><!-- <p>comment</p> --><div>Thanks,\n   Alice</div></body></html>";
+
+        assertEquals("Hello Bob,\n\nNumbers:\n1 < 2 && 3 > 2\n\n- first\n- second \u2013 \uD83D\uDE00\n\nThanks, Alice",
+                TEXT.apply(html, true));
+    }
+
+    @Test
+    void keepsUnknownEntitiesAndAttributeBracketsIntact() {
+        assertEquals("Fish & chips &unknown; link",
+                TEXT.apply("<p>Fish & chips &unknown; <a title=\"a > b\" href='x'>link</a></p>", true));
+    }
+
+    @Test
+    void stripsOutlookQuotedReply() {
+        String html = "<div>Sounds good.</div><hr style=\"display:inline-block\"><div id=\"divRplyFwdMsg\">"
+                + "<b>From:</b> Bob<br><b>Sent:</b> Monday</div><div>Original text</div>";
+
+        assertEquals("Sounds good.", TEXT.apply(html, true));
+        assertTrue(MessageBodyFilter.of("text", true, 0).apply(html, true).contains("Original text"));
+    }
+
+    @Test
+    void stripsQuotedReplyHeadersInText() {
+        assertEquals("Yes.", TEXT.apply("Yes.\n\nOn Mon, Jan 1, 2024 at 8:00 AM Bob <bob@example.com> wrote:\n> Lunch?", false));
+        assertEquals("Yes.", TEXT.apply("Yes.\r\n-----Original Message-----\r\nFrom: Bob", false));
+        assertEquals("Yes.\nFrom: the team", TEXT.apply("Yes.\nFrom: the team\n\nFrom: Bob\nSent: Monday\nLunch?", false));
+    }
+
+    @Test
+    void truncatesAtMaxLength() {
+        MessageBodyFilter filter = MessageBodyFilter.of("text", false, 10);
+
+        assertEquals("0123456789" + MessageBodyFilter.TRUNCATED_MARKER, filter.apply("<p>0123456789abcdef</p>", true));
+        assertEquals("0123456789", filter.apply("<p>0123456789</p>", true));
+    }
+
+    @Test
+    void originalFormatOnlyTruncates() {
+        String html = "<p>Hello</p>";
+
+        assertSame(html, MessageBodyFilter.ORIGINAL.apply(html, true));
+        assertEquals("<p>He" + MessageBodyFilter.TRUNCATED_MARKER, MessageBodyFilter.of("original", false, 5).apply(html, true));
+    }
+
+    @Test
+    void truncatesBeforeSurrogatePairThatDoesNotFit() {
+        String emoji = "\uD83D\uDE00";
+
+        assertEquals("0123" + MessageBodyFilter.TRUNCATED_MARKER,
+                MessageBodyFilter.of("original", false, 5).apply("0123" + emoji + "5", false));
+        assertEquals("0123" + MessageBodyFilter.TRUNCATED_MARKER,
+                MessageBodyFilter.of("text", false, 5).apply("0123" + emoji + "5", false));
+        assertEquals("0123" + MessageBodyFilter.TRUNCATED_MARKER,
+                MessageBodyFilter.of("text", false, 5).apply("<p>0123&#x1F600;5</p>", true));
+        assertEquals("012" + emoji + MessageBodyFilter.TRUNCATED_MARKER,
+                MessageBodyFilter.of("text", false, 5).apply("012" + emoji + "56", false));
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> MessageBodyFilter.of("markdown", false, 0));
+    }
+}
@@ -0,0 +1,107 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.dto.Email;
+import com.restify.mcp.dto.ToolResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.graph.models.EmailAddress;
+import com.microsoft.graph.models.Message;
+import com.microsoft.graph.models.Recipient;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of building and serializing a 1000-message listing as typed records
+ * with hand-written serializers against the previous map per message.
+ * Each iteration builds the results from Graph messages and writes them as a tool result.
+ * Run with -prof gc to compare allocation per operation.
+ *
+ * Run via {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageProjectionBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Message> messages;
+
+    @Setup
+    public void setUp() {
+        messages = new ArrayList<>(1000);
+        OffsetDateTime received = OffsetDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+        for (int i = 0; i < 1000; i++) {
+            Message message = new Message();
+            message.id = "AAMkAGI2TG93AAA=" + i;
+            message.subject = "Quarterly report " + i;
+            message.from = recipient("sender" + i + "@example.com");
+            message.toRecipients = List.of(recipient("alice@example.com"), recipient("bob@example.com"));
+            message.receivedDateTime = received.plusMinutes(i);
+            message.bodyPreview = "Please find the figures for this quarter attached. ".repeat(3);
+            message.isRead = i % 3 == 0;
+            message.hasAttachments = i % 5 == 0;
+            messages.add(message);
+        }
+    }
+
+    private static Recipient recipient(String address) {
+        Recipient recipient = new Recipient();
+        recipient.emailAddress = new EmailAddress();
+        recipient.emailAddress.address = address;
+        return recipient;
+    }
+
+    @Benchmark
+    public void summaryRecords(Blackhole blackhole) throws Exception {
+        List<Email> emails = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            emails.add(MessageProjection.SUMMARY.apply(message));
+        }
+        blackhole.consume(objectMapper.writeValueAsBytes(ToolResult.of(emails)));
+    }
+
+    @Benchmark
+    public void summaryMaps(Blackhole blackhole) throws Exception {
+        List<Map<String, Object>> emails = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            emails.add(summaryMap(message));
+        }
+        blackhole.consume(objectMapper.writeValueAsBytes(ToolResult.of(emails)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MessageProjectionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Copy of the map MessageProjection.SUMMARY built before results were typed records,
+     * kept here as the benchmark baseline.
+     */
+    static Map<String, Object> summaryMap(Message message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", message.id != null ? message.id : "");
+        result.put("subject", message.subject != null ? message.subject : "");
+        result.put("from", message.from != null && message.from.emailAddress != null
+                ? message.from.emailAddress.address : "");
+        result.put("receivedDateTime", message.receivedDateTime != null ? message.receivedDateTime.toString() : "");
+        result.put("bodyPreview", message.bodyPreview != null ? message.bodyPreview : "");
+        result.put("isRead", message.isRead != null ? message.isRead : false);
+        result.put("hasAttachments", message.hasAttachments != null ? message.hasAttachments : false);
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.dto.EmailDetail;
+import com.restify.mcp.dto.EmailSummary;
+import com.restify.mcp.dto.PartialEmail;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.graph.models.EmailAddress;
+import com.microsoft.graph.models.ItemBody;
+import com.microsoft.graph.models.Message;
+import com.microsoft.graph.models.Recipient;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageProjectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static Message message() {
+        Message message = new Message();
+        message.id = "msg-1";
+        message.subject = "Quote \" and café";
+        message.from = recipient("sender@example.com");
+        message.toRecipients = List.of(recipient("alice@example.com"), recipient("bob@example.com"));
+        message.receivedDateTime = OffsetDateTime.of(2024, 1, 1, 8, 30, 0, 0, ZoneOffset.UTC);
+        message.body = new ItemBody();
+        message.body.content = "<p>Hello</p>";
+        message.bodyPreview = "Hello";
+        message.isRead = true;
+        return message;
+    }
+
+    private static Recipient recipient(String address) {
+        Recipient recipient = new Recipient();
+        recipient.emailAddress = new EmailAddress();
+        recipient.emailAddress.address = address;
+        return recipient;
+    }
+
+    @Test
+    void summaryRecordWritesSameJsonAsPreviousMap() throws Exception {
+        Message message = message();
+
+        assertInstanceOf(EmailSummary.class, MessageProjection.SUMMARY.apply(message));
+        assertEquals(objectMapper.writeValueAsString(MessageProjectionBenchmark.summaryMap(message)),
+                objectMapper.writeValueAsString(MessageProjection.SUMMARY.apply(message)));
+    }
+
+    @Test
+    void detailRecordWritesAllFieldsInOrder() throws Exception {
+        assertInstanceOf(EmailDetail.class, MessageProjection.DETAIL.apply(message()));
+        assertEquals("{\"id\":\"msg-1\",\"subject\":\"Quote \\\" and café\",\"from\":\"sender@example.com\","
+                        + "\"to\":\"alice@example.com, bob@example.com\",\"receivedDateTime\":\"2024-01-01T08:30Z\","
+                        + "\"body\":\"<p>Hello</p>\",\"bodyPreview\":\"Hello\",\"isRead\":true,\"hasAttachments\":false}",
+                objectMapper.writeValueAsString(MessageProjection.DETAIL.apply(message())));
+    }
+
+    @Test
+    void missingPropertiesBecomeEmptyValues() throws Exception {
+        Message message = new Message();
+        message.id = "msg-2";
+
+        assertEquals("{\"id\":\"msg-2\",\"subject\":\"\",\"from\":\"\",\"receivedDateTime\":\"\","
+                        + "\"bodyPreview\":\"\",\"isRead\":false,\"hasAttachments\":false}",
+                objectMapper.writeValueAsString(MessageProjection.SUMMARY.apply(message)));
+    }
+
+    @Test
+    void customFieldsBuildPartialEmailInRequestedOrder() throws Exception {
+        MessageProjection projection = MessageProjection.of(List.of("isRead", "id"), MessageProjection.SUMMARY);
+
+        assertInstanceOf(PartialEmail.class, projection.apply(message()));
+        assertEquals("{\"isRead\":true,\"id\":\"msg-1\"}", objectMapper.writeValueAsString(projection.apply(message())));
+    }
+}
@@ -0,0 +1,160 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.dto.Email;
+import com.restify.mcp.dto.PartialEmail;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs OutlookMailService paging against a local mock Graph server serving three pages
+ * of three messages each, linked by @odata.nextLink.
+ */
+class OutlookMailServiceTest {
+
+    private static final int PAGES = 3;
+    private static final int PAGE_SIZE = 3;
+
+    private HttpServer server;
+    private final List<Integer> requestedPages = new CopyOnWriteArrayList<>();
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final CountDownLatch secondPageRequested = new CountDownLatch(1);
+    private volatile CountDownLatch pagesHeld = new CountDownLatch(0);
+    private GraphClientFactory factory;
+    private OutlookMailService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1.0/me/mailFolders/inbox/messages", this::servePage);
+        server.start();
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1.0";
+        factory = new GraphClientFactory(endpoint, 4, Duration.ofMinutes(1), 64, 32, 10, Duration.ofMinutes(1),
+                GraphThrottle.disabled());
+        service = new OutlookMailService(factory, MailboxCache.disabled(), GraphBatchCoalescer.disabled(),
+                UserProfileCache.disabled(), MailboxSearchIndex.disabled());
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.shutdown();
+        server.stop(0);
+    }
+
+    private void servePage(HttpExchange exchange) throws IOException {
+        try {
+            pagesHeld.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String query = exchange.getRequestURI().getQuery();
+        queries.add(String.valueOf(query));
+        int page = query != null && query.contains("page=") ? Integer.parseInt(query.replaceAll(".*page=(\\d+).*", "$1")) : 1;
+        requestedPages.add(page);
+        if (page == 2) {
+            secondPageRequested.countDown();
+        }
+
+        StringBuilder json = new StringBuilder("{\"value\":[");
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            int n = (page - 1) * PAGE_SIZE + i;
+            json.append(i > 0 ? "," : "")
+                .append("{\"id\":\"msg-").append(n).append("\",\"subject\":\"Subject ").append(n)
+                .append("\",\"receivedDateTime\":\"2024-01-01T10:00:00Z\",\"isRead\":false}");
+        }
+        json.append(']');
+        if (page < PAGES) {
+            json.append(",\"@odata.nextLink\":\"http://127.0.0.1:").append(server.getAddress().getPort())
+                .append("/v1.0/me/mailFolders/inbox/messages?page=").append(page + 1).append('"');
+        }
+        json.append('}');
+
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    @Test
+    void followsNextLinksUntilCollectionEnds() {
+        List<Email> emails = service.readEmails("token", 100, null);
+
+        assertEquals(PAGES * PAGE_SIZE, emails.size());
+        assertEquals("msg-0", emails.get(0).id());
+        assertEquals("msg-8", emails.get(8).id());
+        assertEquals(List.of(1, 2, 3), requestedPages);
+    }
+
+    @Test
+    void stopsAtMaxResultsWithoutFetchingFurther() {
+        List<Integer> pageSizes = new ArrayList<>();
+        int count = service.forEachEmailPage("token", 4, null, MessageProjection.SUMMARY, page -> pageSizes.add(page.size()));
+
+        assertEquals(4, count);
+        assertEquals(List.of(3, 1), pageSizes);
+        assertEquals(List.of(1, 2), requestedPages);
+    }
+
+    @Test
+    void prefetchesNextPageWhileCurrentPageIsConsumed() {
+        List<Boolean> prefetched = new ArrayList<>();
+        service.forEachEmailPage("token", 100, null, MessageProjection.SUMMARY, page -> {
+            if (prefetched.isEmpty()) {
+                try {
+                    prefetched.add(secondPageRequested.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        assertEquals(List.of(true), prefetched);
+    }
+
+    @Test
+    void readsAsynchronouslyWithoutWaitingForGraph() throws Exception {
+        pagesHeld = new CountDownLatch(1);
+
+        CompletableFuture<List<Email>> emails = service.readEmailsAsync("token", 4, null, MessageProjection.SUMMARY,
+                MailQuery.ALL);
+
+        assertFalse(emails.isDone());
+        pagesHeld.countDown();
+        assertEquals(List.of("msg-0", "msg-1", "msg-2", "msg-3"),
+                emails.get(5, TimeUnit.SECONDS).stream().map(Email::id).toList());
+        assertEquals(List.of(1, 2), requestedPages);
+    }
+
+    @Test
+    void selectsOnlyProjectedFields() {
+        MessageProjection projection = MessageProjection.of(List.of("id", "subject", "to"), MessageProjection.SUMMARY);
+
+        List<Email> emails = service.readEmails("token", 2, null, projection);
+
+        assertTrue(queries.get(0).contains("$select=id,subject,toRecipients"), queries.get(0));
+        assertEquals(List.of("id", "subject", "to"), List.copyOf(((PartialEmail) emails.get(0)).fields().keySet()));
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MessageProjection.of(List.of("id", "headers"), MessageProjection.DETAIL));
+        assertSame(MessageProjection.DETAIL, MessageProjection.of(null, MessageProjection.DETAIL));
+    }
+}
@@ -0,0 +1,145 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.config.McpToolProperties;
+import com.restify.mcp.testing.FakeGraphServer;
+import com.restify.mcp.metrics.McpMetrics;
+import com.restify.mcp.tool.HelloTool;
+import com.restify.mcp.tool.OutlookMailTool;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs concurrent equal tool calls through McpToolService against FakeGraphServer.
+ */
+class ToolCallCoalescingTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+    private FakeGraphServer graph;
+    private GraphClientFactory factory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        graph = new FakeGraphServer();
+        graph.addMessage("inbox", "msg-1", "Budget review", Instant.parse("2024-06-01T12:00:00Z"));
+        factory = new GraphClientFactory(graph.endpoint(), 4, Duration.ofMinutes(1), 64, 32, 10, Duration.ofMinutes(1),
+                GraphThrottle.disabled());
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        factory.shutdown();
+        graph.close();
+    }
+
+    private McpToolService service(McpToolProperties properties) {
+        OutlookMailService outlookMailService = new OutlookMailService(factory, MailboxCache.disabled(),
+                GraphBatchCoalescer.disabled(), UserProfileCache.disabled(), MailboxSearchIndex.disabled());
+        return new McpToolService(new HelloTool(), new OutlookMailTool(outlookMailService), objectMapper,
+                new ToolExecutor(properties), new McpMetrics(meterRegistry), properties);
+    }
+
+    private static McpToolProperties coalescing() {
+        McpToolProperties properties = new McpToolProperties();
+        McpToolProperties.ToolSettings settings = new McpToolProperties.ToolSettings();
+        settings.setCoalesce(true);
+        properties.getPerTool().put("readOutlookEmails", settings);
+        return properties;
+    }
+
+    private Future<String> call(McpToolService service, String token, String argumentsJson) {
+        Callable<String> call = () -> {
+            try (JsonParser arguments = objectMapper.createParser(argumentsJson)) {
+                arguments.nextToken();
+                return objectMapper.writeValueAsString(
+                        service.callTool("readOutlookEmails", arguments, ToolContext.of(token)));
+            }
+        };
+        return callers.submit(call);
+    }
+
+    private long listings() {
+        return graph.requests().stream().filter(request -> request.contains("/mailFolders/")).count();
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("mcp.tool.calls.coalesced").tags("tool", "readOutlookEmails").counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void sharesOneInvocationBetweenEqualCalls() throws Exception {
+        McpToolService service = service(coalescing());
+        CountDownLatch gate = new CountDownLatch(1);
+        graph.holdResponses(gate);
+
+        List<Future<String>> results = new ArrayList<>();
+        results.add(call(service, "token", "{\"maxResults\":5,\"folderId\":\"inbox\"}"));
+        await(() -> listings() == 1);
+        results.add(call(service, "token", "{\"folderId\":\"inbox\",\"maxResults\":5}"));
+        results.add(call(service, "token", "{\"folderId\":\"inbox\",\"maxResults\":5,\"unknown\":1}"));
+        await(() -> coalesced() == 2);
+        gate.countDown();
+
+        for (Future<String> result : results) {
+            assertTrue(result.get().contains("msg-1"), result.get());
+            assertEquals(results.get(0).get(), result.get());
+        }
+        assertEquals(1, listings());
+    }
+
+    @Test
+    void keepsCallsOfOtherCallersAndArgumentsApart() throws Exception {
+        McpToolService service = service(coalescing());
+
+        call(service, "token", "{\"maxResults\":5}").get();
+        call(service, "other-token", "{\"maxResults\":5}").get();
+        call(service, "token", "{\"maxResults\":6}").get();
+
+        assertEquals(3, listings());
+        assertEquals(0, coalesced());
+    }
+
+    @Test
+    void invokesEveryCallUnlessTheToolOptsIn() throws Exception {
+        McpToolService service = service(new McpToolProperties());
+        CountDownLatch gate = new CountDownLatch(1);
+        graph.holdResponses(gate);
+
+        Future<String> first = call(service, "token", "{\"maxResults\":5}");
+        await(() -> listings() == 1);
+        Future<String> second = call(service, "token", "{\"maxResults\":5}");
+        Thread.sleep(100);
+        assertEquals(0, coalesced());
+        gate.countDown();
+
+        assertEquals(first.get(), second.get());
+        assertEquals(2, listings());
+    }
+}
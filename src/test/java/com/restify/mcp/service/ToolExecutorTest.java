@@ -0,0 +1,157 @@
+package com.restify.mcp.service;
+
+import com.restify.mcp.config.McpToolProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolExecutorTest {
+
+    private ToolExecutor toolExecutor;
+
+    @AfterEach
+    void tearDown() {
+        if (toolExecutor != null) {
+            toolExecutor.shutdown();
+        }
+    }
+
+    private ToolExecutor create(McpToolProperties.ExecutionMode mode, int maxConcurrency, Duration timeout) {
+        McpToolProperties properties = new McpToolProperties();
+        properties.getExecution().setMode(mode);
+        properties.getExecution().setPlatformThreads(4);
+        McpToolProperties.ToolSettings settings = new McpToolProperties.ToolSettings();
+        settings.setMaxConcurrency(maxConcurrency);
+        settings.setTimeout(timeout);
+        properties.getPerTool().put("slow", settings);
+        toolExecutor = new ToolExecutor(properties);
+        return toolExecutor;
+    }
+
+    @Test
+    void returnsResultAndUnwrapsException() throws Exception {
+        ToolExecutor executor = create(McpToolProperties.ExecutionMode.PLATFORM, 2, Duration.ofSeconds(5));
+        ToolExecutor.ToolLimits limits = executor.createLimits("slow");
+
+        assertEquals("done", executor.execute(limits, () -> "done"));
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(limits, () -> {
+            throw new IllegalArgumentException("bad");
+        }));
+        assertEquals(2, limits.getAvailablePermits());
+    }
+
+    @Test
+    void timeoutKeepsPermitUntilInvocationEnds() throws Exception {
+        ToolExecutor executor = create(McpToolProperties.ExecutionMode.PLATFORM, 1, Duration.ofMillis(100));
+        ToolExecutor.ToolLimits limits = executor.createLimits("slow");
+        CountDownLatch finished = new CountDownLatch(1);
+
+        assertThrows(TimeoutException.class, () -> executor.execute(limits, () -> {
+            try {
+                Thread.sleep(10_000);
+                return null;
+            } finally {
+                finished.countDown();
+            }
+        }));
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        // The permit is back once the cancelled invocation has unwound
+        for (int i = 0; i < 50 && limits.getAvailablePermits() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, limits.getAvailablePermits());
+    }
+
+    @Test
+    void rejectsWhenAtConcurrencyLimit() throws Exception {
+        ToolExecutor executor = create(McpToolProperties.ExecutionMode.CALLER, 1, Duration.ofMillis(50));
+        ToolExecutor.ToolLimits limits = executor.createLimits("slow");
+        CompletableFuture<Object> graphResponse = new CompletableFuture<>();
+        executor.executeAsync(limits, () -> graphResponse);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(limits, () -> "queued"));
+        graphResponse.complete("done");
+        assertEquals(1, limits.getAvailablePermits());
+    }
+
+    @Test
+    void queuedCallHoldsNoThreadAndStartsWhenPermitIsReleased() throws Exception {
+        ToolExecutor executor = create(McpToolProperties.ExecutionMode.CALLER, 1, Duration.ofSeconds(5));
+        ToolExecutor.ToolLimits limits = executor.createLimits("slow");
+        CompletableFuture<Object> graphResponse = new CompletableFuture<>();
+        executor.executeAsync(limits, () -> graphResponse);
+
+        long start = System.nanoTime();
+        CompletableFuture<Object> queued = executor.executeAsync(limits,
+                () -> CompletableFuture.completedFuture(Thread.currentThread().getName()));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "The caller must not wait for a permit");
+        assertFalse(queued.isDone());
+
+        graphResponse.complete("done");
+        // Started on a tool thread, not on the common pool where blocking tools would starve other users
+        assertTrue(((String) queued.get(5, TimeUnit.SECONDS)).startsWith("mcp-tool-"));
+        assertEquals(1, limits.getAvailablePermits());
+    }
+
+    @Test
+    void callerModeInterruptsBlockingToolAtTimeout() throws Exception {
+        ToolExecutor executor = create(McpToolProperties.ExecutionMode.CALLER, 1, Duration.ofMillis(100));
+        ToolExecutor.ToolLimits limits = executor.createLimits("slow");
+
+        long start = System.nanoTime();
+        assertThrows(TimeoutException.class, () -> executor.execute(limits, () -> {
+            Thread.sleep(10_000);
+            return null;
+        }));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertFalse(Thread.currentThread().isInterrupted(), "The interrupt must not leak into the request");
+        assertEquals(1, limits.getAvailablePermits());
+    }
+
+    @Test
+    void virtualModeFallsBackBeforeJava21() throws Exception {
+        ToolExecutor executor = create(McpToolProperties.ExecutionMode.VIRTUAL, 4, Duration.ofSeconds(5));
+
+        assertEquals(42, executor.execute(executor.createLimits("hello"), () -> 42));
+    }
+
+    @Test
+    void asyncResultHoldsPermitButNoThread() throws Exception {
+        ToolExecutor executor = create(McpToolProperties.ExecutionMode.PLATFORM, 1, Duration.ofSeconds(5));
+        ToolExecutor.ToolLimits limits = executor.createLimits("slow");
+        CompletableFuture<Object> graphResponse = new CompletableFuture<>();
+
+        CompletableFuture<Object> result = executor.executeAsync(limits, () -> graphResponse);
+
+        assertFalse(result.isDone());
+        assertEquals(0, limits.getAvailablePermits());
+        graphResponse.complete("done");
+        assertEquals("done", result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limits.getAvailablePermits());
+    }
+
+    @Test
+    void asyncResultTimesOut() throws Exception {
+        ToolExecutor executor = create(McpToolProperties.ExecutionMode.CALLER, 1, Duration.ofMillis(50));
+        ToolExecutor.ToolLimits limits = executor.createLimits("slow");
+        CompletableFuture<Object> graphResponse = new CompletableFuture<>();
+
+        CompletableFuture<Object> result = executor.executeAsync(limits, () -> graphResponse);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(0, limits.getAvailablePermits(), "The permit is held until Graph answers");
+        graphResponse.complete("late");
+        assertEquals(1, limits.getAvailablePermits());
+    }
+}
@@ -0,0 +1,123 @@
+package com.restify.mcp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserProfileCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+    private static final Map<String, Object> PROFILE = Map.of("id", "user-1", "displayName", "Ada");
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private UserProfileCache cache() {
+        return new UserProfileCache(true, 10, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC), nanos::get);
+    }
+
+    private CompletableFuture<Map<String, Object>> load() {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(PROFILE);
+    }
+
+    private static String jwt(Instant expiry) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(("{\"exp\":" + expiry.getEpochSecond() + "}").getBytes(StandardCharsets.UTF_8))
+                + ".signature";
+    }
+
+    @Test
+    void readsExpiryFromJwtExpClaim() {
+        assertEquals(NOW, AccessTokens.expiry(jwt(NOW)));
+        assertNull(AccessTokens.expiry("opaque-token"));
+        assertNull(AccessTokens.expiry("not.a.jwt"));
+    }
+
+    @Test
+    void keepsProfileUntilTokenExpires() {
+        UserProfileCache cache = cache();
+        String token = jwt(NOW.plus(Duration.ofMinutes(10)));
+
+        cache.get(token, this::load);
+        nanos.addAndGet(Duration.ofMinutes(9).toNanos());
+        assertSame(PROFILE, cache.get(token, this::load).join());
+        assertEquals(1, loads.get());
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        cache.get(token, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void capsOpaqueTokensAtTtl() {
+        UserProfileCache cache = cache();
+
+        cache.get("opaque-token", this::load);
+        nanos.addAndGet(Duration.ofMinutes(59).toNanos());
+        cache.get("opaque-token", this::load);
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        cache.get("opaque-token", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void doesNotCacheExpiredTokensOrFailures() {
+        UserProfileCache cache = cache();
+        String expired = jwt(NOW.minusSeconds(1));
+
+        cache.get(expired, this::load);
+        cache.get(expired, this::load);
+        assertEquals(2, loads.get());
+
+        CompletableFuture<Map<String, Object>> failed = cache.get("opaque-token",
+                () -> CompletableFuture.failedFuture(new IllegalStateException("Graph unavailable")));
+        assertThrows(CompletionException.class, failed::join);
+        assertSame(PROFILE, cache.get("opaque-token", this::load).join());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void concurrentCallsShareOneLoad() throws Exception {
+        UserProfileCache cache = cache();
+        CompletableFuture<Map<String, Object>> graphResponse = new CompletableFuture<>();
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<CompletableFuture<Map<String, Object>>> calls = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> cache.get("opaque-token", () -> {
+                    loads.incrementAndGet();
+                    return graphResponse;
+                }), callers).thenCompose(profile -> profile));
+            }
+            Thread.sleep(100);
+            graphResponse.complete(PROFILE);
+
+            for (CompletableFuture<Map<String, Object>> call : calls) {
+                assertSame(PROFILE, call.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+}
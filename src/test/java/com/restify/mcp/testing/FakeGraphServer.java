@@ -0,0 +1,684 @@
+package com.restify.mcp.testing;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the Microsoft Graph endpoints the server calls, backed by an in-memory
+ * mailbox. Used by the load generator with a generated inbox, and by the server's tests,
+ * which fill the mailbox themselves and assert on the recorded requests.
+ * Every request is delayed by the configured latency plus random jitter, and a share of them
+ * can be answered with 429 Too Many Requests and a Retry-After header, so the server's
+ * throttling and retry paths are exercised under load.
+ * Supports /me, folder listings with paging, $filter and $search, messages/delta with paging
+ * and delta tokens, $search over all messages, messages and attachments by ID, attachment
+ * content and JSON $batch.
+ */
+public final class FakeGraphServer implements AutoCloseable {
+
+    private static final Pattern BATCH_ID = Pattern.compile("\"id\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern BATCH_URL = Pattern.compile("\"url\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern MAX_PAGE_SIZE = Pattern.compile("odata\\.maxpagesize=(\\d+)");
+    private static final String[] WORDS = {"budget", "review", "quarterly", "report", "meeting", "roadmap",
+            "release", "invoice", "travel", "hiring", "design", "incident", "customer", "contract", "launch"};
+    private static final String GENERATED_FOLDER = "inbox";
+    private static final int DEFAULT_DELTA_PAGE_SIZE = 100;
+
+    static {
+        // Without TCP_NODELAY, a response whose headers and body are written separately waits
+        // out the client's delayed ACK on a kept-alive connection, adding about 40ms per request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Map<String, Message>> folders = new HashMap<>();
+    private final Map<String, Map<String, Attachment>> attachments = new HashMap<>();
+    private final List<Change> changes = new ArrayList<>();
+    private final List<String> recorded = new ArrayList<>();
+    private final String body;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private volatile CountDownLatch attachmentGate;
+    private volatile CountDownLatch responseGate;
+    private int version;
+    private int deltaPageSize = Integer.MAX_VALUE;
+    private boolean deltaTokensExpired;
+
+    /**
+     * Empty mailbox without latency or throttling, recording every request
+     */
+    public FakeGraphServer() throws IOException {
+        this(new Settings(0, Duration.ZERO, Duration.ZERO, 0, Duration.ZERO, 0, 0, true));
+    }
+
+    public FakeGraphServer(Settings settings) throws IOException {
+        this.settings = settings;
+        this.body = body(settings.bodySize());
+        Instant newest = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < settings.messages(); i++) {
+            String id = String.format("AAMkAGload%06d", i);
+            Message message = new Message(id,
+                    WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " #" + i,
+                    "user" + (i % 50) + "@contoso.com", newest.minus(i, ChronoUnit.MINUTES));
+            message.isRead = i % 3 != 0;
+            folders.computeIfAbsent(GENERATED_FOLDER, f -> new LinkedHashMap<>()).put(id, message);
+            if (i % 10 == 0) {
+                addAttachment(id, "att-" + id, "report.pdf", "application/pdf", new byte[2048]);
+            }
+        }
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-graph");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("localhost", settings.port()), 1024);
+        server.createContext("/v1.0", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Graph endpoint to configure as outlook.graph.endpoint
+     */
+    public String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1.0";
+    }
+
+    /**
+     * IDs of the generated messages, newest first
+     */
+    public synchronized List<String> messageIds() {
+        return newestFirst(GENERATED_FOLDER).stream().map(message -> message.id).toList();
+    }
+
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    public long throttledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * Request paths with their decoded query, in arrival order, if the settings record them
+     */
+    public List<String> requests() {
+        synchronized (recorded) {
+            return List.copyOf(recorded);
+        }
+    }
+
+    /**
+     * Cap delta pages below the page size the client prefers, so small folders take several pages
+     */
+    public synchronized void setDeltaPageSize(int deltaPageSize) {
+        this.deltaPageSize = deltaPageSize;
+    }
+
+    public synchronized void expireDeltaTokens() {
+        deltaTokensExpired = true;
+    }
+
+    public void addMessage(String folder, String id, String subject, Instant received) {
+        addMessage(folder, id, subject, "sender@example.com", received);
+    }
+
+    public synchronized void addMessage(String folder, String id, String subject, String from, Instant received) {
+        folders.computeIfAbsent(folder, f -> new LinkedHashMap<>()).put(id, new Message(id, subject, from, received));
+        changes.add(new Change(++version, folder, id));
+    }
+
+    public synchronized void markRead(String folder, String id) {
+        folders.get(folder).get(id).isRead = true;
+        changes.add(new Change(++version, folder, id));
+    }
+
+    public synchronized void deleteMessage(String folder, String id) {
+        folders.get(folder).remove(id);
+        changes.add(new Change(++version, folder, id));
+    }
+
+    public synchronized void addAttachment(String messageId, String id, String name, String contentType,
+                                           byte[] content) {
+        attachments.computeIfAbsent(messageId, m -> new LinkedHashMap<>())
+                .put(id, new Attachment(id, name, contentType, content));
+    }
+
+    /**
+     * Hold attachment content after its first half until the gate opens, so tests can observe
+     * bytes arriving while the download is still in progress
+     */
+    public void holdAttachmentContent(CountDownLatch gate) {
+        this.attachmentGate = gate;
+    }
+
+    /**
+     * Hold every response until the gate opens, so tests can observe calls while Graph has not
+     * answered yet. Requests are still recorded as they arrive.
+     */
+    public void holdResponses(CountDownLatch gate) {
+        this.responseGate = gate;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (settings.recordRequests()) {
+                synchronized (recorded) {
+                    recorded.add(path + (query.isEmpty() ? "" : "?" + query));
+                }
+            }
+            await(responseGate, "Response gate was not opened");
+            delay();
+            if (settings.throttleRate() > 0 && ThreadLocalRandom.current().nextDouble() < settings.throttleRate()) {
+                throttled.increment();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(settings.retryAfter().toSeconds()));
+                respond(exchange, error(429, "TooManyRequests", "Application is over its MailboxConcurrency limit."));
+                return;
+            }
+            String[] segments = path.split("/");
+            // /v1.0/me/messages/{id}/attachments/{attachmentId}/$value
+            if (segments.length == 8 && "attachments".equals(segments[5]) && "$value".equals(segments[7])) {
+                attachmentContent(exchange, segments[4], segments[6]);
+                return;
+            }
+            Response response;
+            if ("/v1.0/$batch".equals(path)) {
+                response = batch(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            } else {
+                String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+                response = route(path, query, prefer);
+            }
+            respond(exchange, response);
+        }
+    }
+
+    private void delay() {
+        long millis = settings.latency().toMillis();
+        if (settings.jitter().toMillis() > 0) {
+            millis += ThreadLocalRandom.current().nextLong(settings.jitter().toMillis() + 1);
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void await(CountDownLatch gate, String timeoutMessage) throws IOException {
+        try {
+            if (gate != null && !gate.await(10, TimeUnit.SECONDS)) {
+                throw new IOException(timeoutMessage);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private synchronized Response route(String path, Map<String, String> query, String prefer) {
+        String[] segments = path.split("/");
+        String select = query.get("$select");
+        // /v1.0/me
+        if (segments.length == 3 && "me".equals(segments[2])) {
+            return new Response(200, "{\"id\":\"load-test-user\",\"displayName\":\"Load Test\","
+                    + "\"mail\":\"load.test@contoso.com\",\"userPrincipalName\":\"load.test@contoso.com\","
+                    + "\"jobTitle\":\"Engineer\",\"officeLocation\":\"Remote\"}");
+        }
+        // /v1.0/me/messages?$search="..."
+        if (segments.length == 4 && "messages".equals(segments[3])) {
+            String search = query.getOrDefault("$search", "");
+            List<Message> matches = folders.keySet().stream()
+                    .flatMap(folder -> newestFirst(folder).stream())
+                    .filter(message -> message.matches(search))
+                    .toList();
+            return page(matches, query, select, endpoint() + "/me/messages");
+        }
+        // /v1.0/me/messages/{id}[/attachments[/{attachmentId}]]; attachments do not need a stored message
+        if (segments.length == 5 && "messages".equals(segments[3])) {
+            Message message = message(segments[4]);
+            return message != null ? new Response(200, toJson(message, select))
+                    : error(404, "ErrorItemNotFound", "The specified object was not found in the store.");
+        }
+        if (segments.length >= 6 && "messages".equals(segments[3])) {
+            Map<String, Attachment> byId = attachments.getOrDefault(segments[4], Map.of());
+            if (segments.length == 6 && "attachments".equals(segments[5])) {
+                return new Response(200, "{\"value\":["
+                        + String.join(",", byId.values().stream().map(Attachment::toJson).toList()) + "]}");
+            }
+            if (segments.length == 7 && "attachments".equals(segments[5])) {
+                Attachment attachment = byId.get(segments[6]);
+                return attachment != null ? new Response(200, attachment.toJson())
+                        : error(404, "ErrorItemNotFound", "The specified object was not found in the store.");
+            }
+        }
+        // /v1.0/me/mailFolders/{folder}/messages[/delta]; the SDK addresses the function as microsoft.graph.delta
+        if (segments.length >= 6 && "mailFolders".equals(segments[3]) && "messages".equals(segments[5])) {
+            String link = endpoint() + "/me/mailFolders/" + segments[4] + "/messages";
+            if (segments.length == 6) {
+                return list(segments[4], query, select, link);
+            }
+            if (segments.length == 7 && segments[6].endsWith("delta")) {
+                return delta(segments[4], query, prefer, select, link + "/delta");
+            }
+        }
+        return error(404, "ResourceNotFound", path);
+    }
+
+    /**
+     * Folder listing, newest first or filtered by $search and $filter. Like Graph, rejects
+     * $search combined with $filter or $orderby, and a $filter that does not start with the
+     * $orderby property.
+     */
+    private Response list(String folder, Map<String, String> query, String select, String link) {
+        String search = query.get("$search");
+        String filter = query.get("$filter");
+        String orderBy = query.get("$orderby");
+        if (search != null && (filter != null || orderBy != null)) {
+            return error(400, "ErrorInvalidUrlQuery", "$search cannot be combined with $filter or $orderby");
+        }
+        if (filter != null && orderBy != null && !filter.startsWith(orderBy.split(" ")[0])) {
+            return error(400, "InefficientFilter", "The restriction or sort order is too complex for this operation.");
+        }
+        List<Message> matches = new ArrayList<>();
+        for (Message message : newestFirst(folder)) {
+            if (search != null && !message.matches(search)) {
+                continue;
+            }
+            try {
+                if (filter == null || matchesFilter(message, filter)) {
+                    matches.add(message);
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                return error(400, "BadRequest", "Invalid filter clause: " + e.getMessage());
+            }
+        }
+        return page(matches, query, select, link);
+    }
+
+    /**
+     * The $filter clauses MailQuery produces, joined by "and"
+     */
+    private boolean matchesFilter(Message message, String filter) {
+        for (String clause : filter.split(" and ")) {
+            String[] parts = clause.split(" ", 3);
+            if (parts.length < 3) {
+                throw new IllegalArgumentException(clause);
+            }
+            String value = parts[2].replace("'", "");
+            boolean matches = switch (parts[0] + " " + parts[1]) {
+                case "receivedDateTime ge" -> !message.received.isBefore(Instant.parse(value));
+                case "receivedDateTime lt" -> message.received.isBefore(Instant.parse(value));
+                case "from/emailAddress/address eq" -> message.from.equalsIgnoreCase(value);
+                case "isRead eq" -> message.isRead == Boolean.parseBoolean(value);
+                case "hasAttachments eq" -> attachments.containsKey(message.id) == Boolean.parseBoolean(value);
+                default -> throw new IllegalArgumentException(clause);
+            };
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One page of messages by $top and $skip, with a nextLink if more remain
+     */
+    private Response page(List<Message> matches, Map<String, String> query, String select, String link) {
+        int top = Integer.parseInt(query.getOrDefault("$top", "10"));
+        int skip = Integer.parseInt(query.getOrDefault("$skip", "0"));
+        int end = Math.min(skip + top, matches.size());
+        StringBuilder json = new StringBuilder("{\"value\":[");
+        appendMessages(json, matches.subList(Math.min(skip, end), end), select);
+        json.append(']');
+        if (end < matches.size()) {
+            Map<String, String> next = new LinkedHashMap<>(query);
+            next.put("$skip", String.valueOf(end));
+            json.append(",\"@odata.nextLink\":\"").append(link).append('?').append(encodeQuery(next)).append('"');
+        }
+        return new Response(200, json.append('}').toString());
+    }
+
+    /**
+     * Delta query over a folder: the initial sync pages through every message, and later rounds
+     * return the messages changed since the delta token, with deleted ones marked as removed.
+     * The skip token carries the offset and the version the initial sync started from.
+     */
+    private Response delta(String folder, Map<String, String> query, String prefer, String select, String link) {
+        if (query.containsKey("$deltatoken")) {
+            if (deltaTokensExpired) {
+                return error(410, "SyncStateNotFound", "Delta token expired");
+            }
+            int since = Integer.parseInt(query.get("$deltatoken"));
+            Map<String, String> changed = new LinkedHashMap<>();
+            for (Change change : changes) {
+                if (change.version > since && change.folder.equals(folder)) {
+                    Message message = folders.getOrDefault(folder, Map.of()).get(change.id);
+                    changed.put(change.id, message != null ? toJson(message, select)
+                            : "{\"id\":\"" + change.id + "\",\"@removed\":{\"reason\":\"deleted\"}}");
+                }
+            }
+            return new Response(200, "{\"value\":[" + String.join(",", changed.values())
+                    + "],\"@odata.deltaLink\":\"" + link + "?$deltatoken=" + version + "\"}");
+        }
+
+        deltaTokensExpired = false;
+        int pageSize = DEFAULT_DELTA_PAGE_SIZE;
+        Matcher matcher = prefer != null ? MAX_PAGE_SIZE.matcher(prefer) : null;
+        if (matcher != null && matcher.find()) {
+            pageSize = Integer.parseInt(matcher.group(1));
+        }
+        pageSize = Math.min(pageSize, deltaPageSize);
+        int offset = 0;
+        int snapshot = version;
+        if (query.containsKey("$skiptoken")) {
+            String[] token = query.get("$skiptoken").split("-");
+            offset = Integer.parseInt(token[0]);
+            snapshot = Integer.parseInt(token[1]);
+        }
+        List<Message> all = new ArrayList<>(folders.getOrDefault(folder, Map.of()).values());
+        int end = Math.min(offset + pageSize, all.size());
+        StringBuilder json = new StringBuilder("{\"value\":[");
+        appendMessages(json, all.subList(Math.min(offset, end), end), select);
+        json.append("],");
+        if (end < all.size()) {
+            json.append("\"@odata.nextLink\":\"").append(link).append("?$skiptoken=").append(end).append('-')
+                    .append(snapshot).append('"');
+        } else {
+            json.append("\"@odata.deltaLink\":\"").append(link).append("?$deltatoken=").append(snapshot).append('"');
+        }
+        return new Response(200, json.append('}').toString());
+    }
+
+    /**
+     * JSON $batch: each sub-request is routed like a top-level request and answered inline.
+     * The body is scanned for "id" and "url" pairs rather than parsed, to keep the fake free
+     * of dependencies.
+     */
+    private Response batch(String requestBody) {
+        Matcher ids = BATCH_ID.matcher(requestBody);
+        Matcher urls = BATCH_URL.matcher(requestBody);
+        StringBuilder json = new StringBuilder("{\"responses\":[");
+        boolean first = true;
+        while (ids.find() && urls.find()) {
+            // Sub-request URLs are relative on graph.microsoft.com, absolute for other hosts
+            String url = unescape(urls.group(1));
+            int version = url.indexOf("/v1.0");
+            URI uri = URI.create(version >= 0 ? url.substring(version) : "/v1.0" + url);
+            Response response = route(uri.getPath(), parseQuery(uri.getRawQuery()), null);
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"id\":\"").append(unescape(ids.group(1))).append("\",\"status\":").append(response.status)
+                    .append(",\"headers\":{\"Content-Type\":\"application/json\"},\"body\":").append(response.json)
+                    .append('}');
+        }
+        return new Response(200, json.append("]}").toString());
+    }
+
+    /**
+     * Raw attachment bytes, sent with chunked transfer encoding
+     */
+    private void attachmentContent(HttpExchange exchange, String messageId, String id) throws IOException {
+        Attachment attachment;
+        synchronized (this) {
+            attachment = attachments.getOrDefault(messageId, Map.of()).get(id);
+        }
+        if (attachment == null) {
+            respond(exchange, error(404, "ErrorItemNotFound", "The specified object was not found in the store."));
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", attachment.contentType);
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            int half = attachment.content.length / 2;
+            out.write(attachment.content, 0, half);
+            out.flush();
+            await(attachmentGate, "Attachment gate was not opened");
+            out.write(attachment.content, half, attachment.content.length - half);
+        }
+    }
+
+    private Message message(String id) {
+        for (Map<String, Message> folder : folders.values()) {
+            Message message = folder.get(id);
+            if (message != null) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    private List<Message> newestFirst(String folder) {
+        return folders.getOrDefault(folder, Map.of()).values().stream()
+                .sorted(Comparator.comparing((Message message) -> message.received).reversed())
+                .toList();
+    }
+
+    private void appendMessages(StringBuilder json, List<Message> page, String select) {
+        for (int i = 0; i < page.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(toJson(page.get(i), select));
+        }
+    }
+
+    /**
+     * JSON of the message, limited to the $select fields if there are any
+     */
+    private String toJson(Message message, String select) {
+        List<String> fields = select == null ? null : List.of(select.split(","));
+        StringBuilder json = new StringBuilder("{\"id\":\"").append(message.id).append('"');
+        if (fields == null || fields.contains("subject")) {
+            json.append(",\"subject\":\"").append(message.subject).append('"');
+        }
+        if (fields == null || fields.contains("from")) {
+            int at = message.from.indexOf('@');
+            json.append(",\"from\":{\"emailAddress\":{\"name\":\"")
+                    .append(at > 0 ? message.from.substring(0, at) : message.from)
+                    .append("\",\"address\":\"").append(message.from).append("\"}}");
+        }
+        if (fields == null || fields.contains("toRecipients")) {
+            json.append(",\"toRecipients\":[{\"emailAddress\":{\"name\":\"Load Test\","
+                    + "\"address\":\"load.test@contoso.com\"}}]");
+        }
+        if (fields == null || fields.contains("receivedDateTime")) {
+            json.append(",\"receivedDateTime\":\"").append(message.received).append('"');
+        }
+        if (fields == null || fields.contains("bodyPreview")) {
+            json.append(",\"bodyPreview\":\"").append(message.subject).append(" - preview of the message\"");
+        }
+        if (fields == null || fields.contains("body")) {
+            json.append(",\"body\":{\"contentType\":\"html\",\"content\":\"").append(body).append("\"}");
+        }
+        if (fields == null || fields.contains("isRead")) {
+            json.append(",\"isRead\":").append(message.isRead);
+        }
+        if (fields == null || fields.contains("hasAttachments")) {
+            json.append(",\"hasAttachments\":").append(attachments.containsKey(message.id));
+        }
+        return json.append('}').toString();
+    }
+
+    private static String body(int size) {
+        StringBuilder html = new StringBuilder("<html><body>");
+        int word = 0;
+        while (html.length() < size) {
+            html.append("<p>");
+            for (int i = 0; i < 12; i++) {
+                html.append(WORDS[word++ % WORDS.length]).append(' ');
+            }
+            html.append("</p>");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    private static Response error(int status, String code, String message) {
+        return new Response(status, "{\"error\":{\"code\":\"" + code + "\",\"message\":\"" + message + "\"}}");
+    }
+
+    private static void respond(HttpExchange exchange, Response response) throws IOException {
+        byte[] json = response.json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            query.put(key, value);
+        }
+        return query;
+    }
+
+    private static String encodeQuery(Map<String, String> query) {
+        StringBuilder encoded = new StringBuilder();
+        query.forEach((key, value) -> {
+            if (encoded.length() > 0) {
+                encoded.append('&');
+            }
+            encoded.append(URLEncoder.encode(key, StandardCharsets.UTF_8)).append('=')
+                    .append(URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20"));
+        });
+        return encoded.toString();
+    }
+
+    /**
+     * Undo JSON string escapes; Gson writes '=' and '&' in $batch URLs as unicode escapes
+     */
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 >= value.length()) {
+                result.append(c);
+                continue;
+            }
+            char escaped = value.charAt(++i);
+            if (escaped == 'u' && i + 4 < value.length()) {
+                result.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                i += 4;
+            } else {
+                result.append(escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped);
+            }
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fake Graph configuration
+     *
+     * @param port           port to listen on, 0 for any free port
+     * @param latency        base delay of every response
+     * @param jitter         upper bound of a random delay added to the base latency
+     * @param throttleRate   share of requests answered with 429, between 0 and 1
+     * @param retryAfter     Retry-After sent with a 429
+     * @param messages       number of messages generated into the inbox
+     * @param bodySize       approximate size of each message body in characters
+     * @param recordRequests whether to keep every request for {@link #requests()}, which grows
+     *                       without bound on a long run
+     */
+    public record Settings(int port, Duration latency, Duration jitter, double throttleRate, Duration retryAfter,
+                           int messages, int bodySize, boolean recordRequests) {
+    }
+
+    private record Response(int status, String json) {
+    }
+
+    private record Change(int version, String folder, String id) {
+    }
+
+    private record Attachment(String id, String name, String contentType, byte[] content) {
+
+        private String toJson() {
+            return "{\"@odata.type\":\"#microsoft.graph.fileAttachment\",\"id\":\"" + id + "\",\"name\":\"" + name
+                    + "\",\"contentType\":\"" + contentType + "\",\"size\":" + content.length + ",\"isInline\":false}";
+        }
+    }
+
+    private static final class Message {
+        private final String id;
+        private final String subject;
+        private final String from;
+        private final Instant received;
+        private boolean isRead;
+
+        private Message(String id, String subject, String from, Instant received) {
+            this.id = id;
+            this.subject = subject;
+            this.from = from;
+            this.received = received;
+        }
+
+        /**
+         * $search: every word must occur in the subject, "from:" words in the sender
+         */
+        private boolean matches(String search) {
+            if (search.isBlank()) {
+                return true;
+            }
+            for (String word : search.replace("\"", "").toLowerCase(Locale.ROOT).split("\\s+")) {
+                boolean matches = word.startsWith("from:")
+                        ? from.toLowerCase(Locale.ROOT).contains(word.substring(5))
+                        : subject.toLowerCase(Locale.ROOT).contains(word);
+                if (!matches) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}